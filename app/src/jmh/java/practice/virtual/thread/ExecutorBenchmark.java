@@ -0,0 +1,151 @@
+package practice.virtual.thread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// CThreadPoolTest, DBasicVitualThreadTest 의 작업을 그대로 실행기별로 측정한다
+// - sumReduction : CThreadPoolTest.forkJoinPool 의 SumTask 합계
+// - sleepFanOut : DBasicVitualThreadTest.virtualThreadParallelForIO 의 100개 sleep 작업
+// - counterSubmission : CThreadPoolTest.fixedThreadPool 의 카운터 100회 submit
+//
+// 실행 : ./gradlew jmh (결과는 app/build/results/jmh/results.json)
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExecutorBenchmark {
+
+    private static final int TASK_COUNT = 100;
+    private static final int THRESHOLD = 10_000;
+
+    @Param({"fixed", "cached", "forkJoin", "virtual"})
+    String executorType;
+
+    @Param({"8"})
+    int poolSize;
+
+    @Param({"10"})
+    int sleepMillis;
+
+    private ExecutorService executor;
+    private long[] numbers;
+    private AtomicInteger counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = switch (executorType) {
+            case "fixed" -> Executors.newFixedThreadPool(poolSize);
+            case "cached" -> Executors.newCachedThreadPool();
+            case "forkJoin" -> new ForkJoinPool(poolSize);
+            case "virtual" -> Executors.newVirtualThreadPerTaskExecutor();
+            default -> throw new IllegalArgumentException("알 수 없는 실행기: " + executorType);
+        };
+        numbers = LongStream.rangeClosed(1, 1_000_000).toArray();
+        counter = new AtomicInteger();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public long sumReduction() throws InterruptedException, ExecutionException {
+        // ForkJoinPool 은 SumTask 를 그대로, 나머지 실행기는 같은 THRESHOLD 단위로 잘라서 submit
+        if (executor instanceof ForkJoinPool pool) {
+            return pool.invoke(new SumTask(numbers, 0, numbers.length));
+        }
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int start = 0; start < numbers.length; start += THRESHOLD) {
+            int from = start;
+            int to = Math.min(start + THRESHOLD, numbers.length);
+            futures.add(executor.submit(() -> new SumTask(numbers, from, to).compute()));
+        }
+        long sum = 0;
+        for (Future<Long> future : futures) {
+            sum += future.get();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int sleepFanOut() throws InterruptedException, ExecutionException {
+        List<Future<String>> futures = new ArrayList<>(TASK_COUNT);
+        for (int i = 0; i < TASK_COUNT; i++) {
+            int num = i;
+            Callable<String> io = () -> {
+                Thread.sleep(sleepMillis); // IO작업중이라 시간이 걸린다고 가정
+                return "Result-" + num;
+            };
+            futures.add(executor.submit(io));
+        }
+        int completed = 0;
+        for (Future<String> future : futures) {
+            future.get();
+            completed++;
+        }
+        return completed;
+    }
+
+    @Benchmark
+    public int counterSubmission() throws InterruptedException, ExecutionException {
+        List<Future<Integer>> futures = new ArrayList<>(TASK_COUNT);
+        for (int i = 0; i < TASK_COUNT; i++) {
+            futures.add(executor.submit(counter::incrementAndGet));
+        }
+        int last = 0;
+        for (Future<Integer> future : futures) {
+            last = future.get();
+        }
+        return last;
+    }
+
+    static class SumTask extends RecursiveTask<Long> {
+        private final long[] numbers;
+        private final int start;
+        private final int end;
+
+        SumTask(long[] numbers, int start, int end) {
+            this.numbers = numbers;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Long compute() {
+            int length = end - start;
+            if (length <= THRESHOLD) {
+                long sum = 0;
+                for (int i = start; i < end; i++) {
+                    sum += numbers[i];
+                }
+                return sum;
+            }
+            int middle = start + length / 2;
+            SumTask leftTask = new SumTask(numbers, start, middle);
+            SumTask rightTask = new SumTask(numbers, middle, end);
+
+            leftTask.fork();
+            long rightResult = rightTask.compute();
+            long leftResult = leftTask.join();
+
+            return leftResult + rightResult;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package practice.virtual.thread;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import practice.virtual.thread.reduce.ParallelReducer;
+
+// 박싱 + 고정 THRESHOLD 의 SumTask 와 ParallelReducer 비교
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReductionBenchmark {
+
+    @Param({"1000000", "32000000"})
+    int size;
+
+    private ForkJoinPool pool;
+    private ParallelReducer reducer;
+    private long[] numbers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool();
+        reducer = new ParallelReducer(pool);
+        numbers = LongStream.rangeClosed(1, size).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public long sumTask() {
+        return pool.invoke(new ExecutorBenchmark.SumTask(numbers, 0, numbers.length));
+    }
+
+    @Benchmark
+    public long parallelReducer() {
+        return reducer.sum(numbers);
+    }
+}
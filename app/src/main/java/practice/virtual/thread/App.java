@@ -1,14 +1,21 @@
-/*
- * This source file was generated by the Gradle 'init' task
- */
 package practice.virtual.thread;
 
+// 요청 모양(Observation → Security → Tenant → OrderService)이 플랫폼 스레드 풀과 가상 스레드에서
+// 어떻게 확장되는지 보는 부하 실행기
+//
+//  ./gradlew run --args="--mode=both --rate=5000 --duration=10s --io=20ms --cpu=200us"
+//
+// 옵션은 LoadRunner.Config 참고
 public class App {
-    public String getGreeting() {
-        return "Hello World!";
-    }
 
-    public static void main(String[] args) {
-        System.out.println(new App().getGreeting());
+    public static void main(String[] args) throws InterruptedException {
+        LoadRunner.Config config = LoadRunner.Config.parse(args);
+        System.out.println(config);
+        LoadRunner runner = new LoadRunner(config);
+        for (LoadRunner.Mode mode : config.modes) {
+            LoadRunner.Result result = runner.run(mode);
+            Logs.LOG.flush(); // 서비스 로그가 결과 사이에 끼지 않도록
+            System.out.println(result.summary());
+        }
     }
 }
@@ -0,0 +1,31 @@
+package practice.virtual.thread;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import practice.virtual.thread.jdbc.TenantConnectionPool;
+
+class DataSourceManager {
+    private final TenantConnectionPool pool;
+
+    public DataSourceManager() {
+        this(null);
+    }
+
+    public DataSourceManager(TenantConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public void connect() {
+        // 현재 실행 맥락의 TenantID에 따라 동적으로 커넥션 제공
+        String tenant = TenantAspect.TENANT_ID.get();
+        Logs.LOG.log("{} 전용 데이터베이스에 연결 중...", tenant);
+    }
+
+    // 바인딩된 TenantID 의 풀에서 커넥션을 빌린다 (close 하면 풀에 반납)
+    public Connection getConnection() throws SQLException {
+        if (pool == null) {
+            throw new IllegalStateException("커넥션 풀 없이 만든 DataSourceManager 입니다");
+        }
+        return pool.getConnection();
+    }
+}
@@ -0,0 +1,3 @@
+package practice.virtual.thread;
+
+record Document(Long id, String title) {}
@@ -0,0 +1,59 @@
+package practice.virtual.thread;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import practice.virtual.thread.loader.BatchLoader;
+import practice.virtual.thread.lock.KeyedLocks;
+import practice.virtual.thread.security.Permission;
+
+class DocumentService {
+    // 인스턴스가 달라도 같은 문서는 같은 lock 을 쓰도록 공유한다
+    static final KeyedLocks DOCUMENT_LOCKS = KeyedLocks.builder().build();
+    // 삭제된 문서 id (저장소 대신). lock 과 같은 범위로 공유해야 check-then-act 가 보호된다
+    static final Set<Long> DELETED_DOCUMENTS = ConcurrentHashMap.newKeySet();
+
+    private final BatchLoader<Long, Document> documents;
+    private final KeyedLocks locks;
+    private final Set<Long> deleted;
+
+    public DocumentService() {
+        this(null);
+    }
+
+    // 같은 순간의 문서 조회를 합쳐서 (single-flight + batch) 백엔드 호출을 줄인다
+    public DocumentService(BatchLoader<Long, Document> documents) {
+        this(documents, DOCUMENT_LOCKS, DELETED_DOCUMENTS);
+    }
+
+    // deleted 는 locks 를 함께 쓰는 인스턴스끼리 같은 것을 넘긴다
+    public DocumentService(BatchLoader<Long, Document> documents, KeyedLocks locks, Set<Long> deleted) {
+        this.documents = documents;
+        this.locks = locks;
+        this.deleted = deleted;
+    }
+
+    public Document find(Long docId) throws Exception {
+        if (documents == null) {
+            throw new IllegalStateException("문서 loader 없이 만든 DocumentService 입니다");
+        }
+        return documents.load(docId);
+    }
+
+    // 이번 호출로 삭제했으면 true, 이미 삭제된 문서면 false
+    public boolean delete(Long docId) {
+        User user = SecurityAspect.CURRENT_USER.get();
+        // 같은 문서에 대한 삭제/수정만 줄을 세운다 (다른 문서는 동시에 진행)
+        // 권한/존재 확인과 삭제를 같은 lock 안에서 : 확인한 뒤 다른 요청이 먼저 지우는 일이 없도록
+        return locks.withLock(docId, () -> {
+            if (!user.can(Permission.DOCUMENT_DELETE)) {
+                throw new SecurityException("권한이 없습니다: " + user.name());
+            }
+            if (deleted.contains(docId)) {
+                return false;
+            }
+            deleted.add(docId);
+            Logs.LOG.log("{}번 문서 삭제 완료 (By {})", docId, user.name());
+            return true;
+        });
+    }
+}
@@ -0,0 +1,207 @@
+package practice.virtual.thread;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import practice.virtual.thread.observation.LatencyHistogram;
+import practice.virtual.thread.tenant.TenantBulkheads;
+
+// 요청 하나 = ObservationAspect → SecurityAspect → TenantAspect → OrderService.create (하위 시스템 I/O 대기 + CPU 계산)
+// 이 모양의 요청을 플랫폼 스레드 풀 / 가상 스레드로 실행하고 처리량과 지연시간 분포를 비교한다
+//
+// 도착은 open-loop : 응답을 기다리지 않고 정해진 간격(rate)으로 요청을 만든다
+// 지연시간은 실제 시작 시각이 아니라 "도착했어야 할 시각"부터 잰다
+// (closed-loop 로 재면 시스템이 느려질수록 요청도 덜 보내서 p99 가 좋아 보인다 : coordinated omission)
+final class LoadRunner {
+
+    enum Mode { PLATFORM, VIRTUAL }
+
+    // --mode=platform|virtual|both --rate=2000 --duration=10s --warmup=2s --io=20ms --cpu=200us
+    // --tenants=4 --threads=200 --tenant-limit=0 (0 이면 bulkhead 없음)
+    static final class Config {
+        private static final Pattern DURATION = Pattern.compile("(\\d+)(ns|us|ms|s)");
+
+        List<Mode> modes = List.of(Mode.PLATFORM, Mode.VIRTUAL);
+        int rate = 2_000; // 초당 도착 수
+        Duration duration = Duration.ofSeconds(10);
+        Duration warmup = Duration.ofSeconds(2);
+        Duration io = Duration.ofMillis(20);
+        Duration cpu = Duration.ZERO;
+        int tenants = 4;
+        int platformThreads = 200;
+        int tenantLimit = 0;
+
+        static Config parse(String... args) {
+            Config config = new Config();
+            for (String arg : args) {
+                String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("--이름=값 형식이어야 합니다: " + arg);
+                }
+                String name = pair[0];
+                String value = pair[1];
+                switch (name) {
+                    case "mode" -> config.modes = switch (value) {
+                        case "platform" -> List.of(Mode.PLATFORM);
+                        case "virtual" -> List.of(Mode.VIRTUAL);
+                        case "both" -> List.of(Mode.PLATFORM, Mode.VIRTUAL);
+                        default -> throw new IllegalArgumentException(
+                                "mode 는 platform, virtual, both 중 하나여야 합니다: " + value);
+                    };
+                    case "rate" -> config.rate = positive(name, value);
+                    case "duration" -> config.duration = duration(value);
+                    case "warmup" -> config.warmup = duration(value);
+                    case "io" -> config.io = duration(value);
+                    case "cpu" -> config.cpu = duration(value);
+                    case "tenants" -> config.tenants = positive(name, value);
+                    case "threads" -> config.platformThreads = positive(name, value);
+                    case "tenant-limit" -> config.tenantLimit = Integer.parseInt(value);
+                    default -> throw new IllegalArgumentException("알 수 없는 옵션: " + arg);
+                }
+            }
+            return config;
+        }
+
+        private static int positive(String name, String value) {
+            int parsed = Integer.parseInt(value);
+            if (parsed <= 0) {
+                throw new IllegalArgumentException(name + " 는 1 이상이어야 합니다");
+            }
+            return parsed;
+        }
+
+        // 10s, 20ms, 200us, 500ns
+        static Duration duration(String value) {
+            Matcher matcher = DURATION.matcher(value);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("시간은 숫자 + ns/us/ms/s 형식이어야 합니다: " + value);
+            }
+            long amount = Long.parseLong(matcher.group(1));
+            return switch (matcher.group(2)) {
+                case "ns" -> Duration.ofNanos(amount);
+                case "us" -> Duration.ofNanos(amount * 1_000);
+                case "ms" -> Duration.ofMillis(amount);
+                default -> Duration.ofSeconds(amount);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "rate=" + rate + "/s duration=" + duration + " io=" + io + " cpu=" + cpu
+                    + " tenants=" + tenants + " threads=" + platformThreads + " tenant-limit=" + tenantLimit;
+        }
+    }
+
+    record Result(Mode mode, long sent, long completed, long failed, Duration elapsed,
+            LatencyHistogram latency) {
+
+        double throughput() {
+            return completed / (elapsed.toNanos() / 1e9);
+        }
+
+        String summary() {
+            return String.format("%-8s sent=%d completed=%d failed=%d throughput=%.0f req/s "
+                    + "p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms",
+                    mode, sent, completed, failed, throughput(), millis(latency.p50()), millis(latency.p99()),
+                    millis(latency.p999()), millis(latency.max()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    private final Config config;
+    private final ObservationAspect observation = new ObservationAspect();
+    private final SecurityAspect security = new SecurityAspect();
+    private final TenantAspect tenant;
+    private final OrderService orders = new OrderService(this::backend);
+    private final List<String> tenantIds = new ArrayList<>();
+
+    LoadRunner(Config config) {
+        this.config = config;
+        for (int i = 0; i < config.tenants; i++) {
+            tenantIds.add("tenant-" + i);
+        }
+        this.tenant = config.tenantLimit <= 0 ? new TenantAspect()
+                : new TenantAspect(TenantBulkheads.builder(config.tenantLimit * config.tenants)
+                        .defaults(config.tenantLimit, 1, Integer.MAX_VALUE).build());
+    }
+
+    Result run(Mode mode) throws InterruptedException {
+        if (!config.warmup.isZero()) {
+            run(mode, config.warmup); // JIT, 스레드 생성, 커넥션 등 초기 비용은 결과에서 뺀다
+        }
+        return run(mode, config.duration);
+    }
+
+    private Result run(Mode mode, Duration duration) throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long interval = 1_000_000_000L / config.rate;
+        long total = duration.toNanos() / interval;
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = executor(mode)) {
+            for (long i = 0; i < total; i++) {
+                long intended = start + i * interval;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                int index = (int) (i % tenantIds.size());
+                executor.execute(() -> {
+                    try {
+                        handle(index);
+                        completed.increment();
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                    } finally {
+                        latency.record(System.nanoTime() - intended);
+                    }
+                });
+            }
+        }
+        return new Result(mode, total, completed.sum(), failed.sum(),
+                Duration.ofNanos(System.nanoTime() - start), latency);
+    }
+
+    private ExecutorService executor(Mode mode) {
+        return switch (mode) {
+            case PLATFORM -> Executors.newFixedThreadPool(config.platformThreads);
+            case VIRTUAL -> Executors.newVirtualThreadPerTaskExecutor();
+        };
+    }
+
+    private void handle(int index) {
+        String tenantId = tenantIds.get(index);
+        observation.trace(() -> security.runWithAuth("user-" + index, tenantId, Set.of(), () ->
+                tenant.processTenantRequest(tenantId, orders::create)));
+    }
+
+    // OrderService 가 부르는 하위 시스템 : 응답 대기(I/O) + 응답 가공(CPU)
+    private void backend() {
+        if (!TenantAspect.TENANT_ID.isBound() || !SecurityAspect.CURRENT_USER.isBound()) {
+            throw new IllegalStateException("요청 맥락이 전달되지 않았습니다");
+        }
+        try {
+            Thread.sleep(config.io);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("요청 처리 중 인터럽트", e);
+        }
+        long until = System.nanoTime() + config.cpu.toNanos();
+        while (System.nanoTime() < until) {
+            Thread.onSpinWait();
+        }
+    }
+}
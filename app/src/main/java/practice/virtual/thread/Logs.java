@@ -0,0 +1,14 @@
+package practice.virtual.thread;
+
+import practice.virtual.thread.log.AsyncLogger;
+
+// 서비스 공용 로거 : System.out.println 대신 링 버퍼에 넣고 별도 스레드에서 출력
+// TX_ID, TENANT_ID 가 바인딩되어 있으면 자동으로 태그가 붙는다
+final class Logs {
+    static final AsyncLogger LOG = AsyncLogger.builder().stdout()
+            .tag("txId", ObservationAspect.TX_ID)
+            .tag("tenant", TenantAspect.TENANT_ID)
+            .build();
+
+    private Logs() {}
+}
@@ -0,0 +1,16 @@
+package practice.virtual.thread;
+
+import practice.virtual.thread.observation.SpanRecorder;
+import practice.virtual.thread.observation.SpanRecorder.SpanName;
+import practice.virtual.thread.observation.TraceIds;
+
+class ObservationAspect {
+    public static final ScopedValue<String> TX_ID = ScopedValue.newInstance();
+    public static final SpanRecorder SPANS = new SpanRecorder(4096);
+    private static final SpanName TRACE = SPANS.register("trace");
+
+    public void trace(Runnable businessLogic) {
+        String generatedId = TraceIds.uuidV7String(); // UUID.randomUUID() 는 공유 SecureRandom 을 사용
+        ScopedValue.where(TX_ID, generatedId).run(() -> SPANS.span(TRACE, businessLogic));
+    }
+}
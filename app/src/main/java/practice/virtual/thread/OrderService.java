@@ -0,0 +1,28 @@
+package practice.virtual.thread;
+
+import practice.virtual.thread.observation.SpanRecorder.SpanName;
+
+class OrderService {
+    private static final SpanName CREATE = ObservationAspect.SPANS.register("order.create");
+
+    private final Runnable backend;
+
+    public OrderService() {
+        this(() -> {});
+    }
+
+    // backend : 주문 저장 같은 하위 시스템 호출 (LoadRunner 는 I/O 대기 + CPU 계산으로 흉내낸다)
+    public OrderService(Runnable backend) {
+        this.backend = backend;
+    }
+
+    public void create() {
+        long start = ObservationAspect.SPANS.start();
+        try {
+            backend.run();
+            Logs.LOG.log("[LOG] TraceId {}", ObservationAspect.TX_ID.get());
+        } finally {
+            ObservationAspect.SPANS.end(CREATE, start);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package practice.virtual.thread;
+
+import java.util.Set;
+import practice.virtual.thread.security.AccessDecisionCache;
+import practice.virtual.thread.security.Permission;
+import practice.virtual.thread.security.RoleRegistry;
+
+class SecurityAspect {
+    public static final ScopedValue<User> CURRENT_USER = ScopedValue.newInstance();
+
+    private final RoleRegistry roles;
+    private final AccessDecisionCache decisions;
+
+    public SecurityAspect() {
+        this(RoleRegistry.builder().build(), null);
+    }
+
+    public SecurityAspect(RoleRegistry roles, AccessDecisionCache decisions) {
+        this.roles = roles;
+        this.decisions = decisions;
+    }
+
+    public void runWithAuth(User user, Runnable task) {
+        ScopedValue.where(CURRENT_USER, user).run(task);
+    }
+
+    // 역할은 요청이 들어올 때 한 번만 풀어서 PermissionSet 으로 바인딩한다
+    public void runWithAuth(String name, String tenantId, Set<String> roleNames, Runnable task) {
+        User user = new User(name, false, tenantId, Set.copyOf(roleNames), roles.resolve(roleNames));
+        runWithAuth(user, task);
+    }
+
+    // 1) PermissionSet bit 확인 (캐시 없이도 충분히 싸다)
+    // 2) 리소스 단위 결정은 decision 캐시에서 (없으면 bit 확인만)
+    public boolean isAllowed(String resource, Permission action) {
+        User user = CURRENT_USER.get();
+        if (!user.can(action)) {
+            return false;
+        }
+        return decisions == null || decisions.isAllowed(user.name(), user.tenantId(), resource, action);
+    }
+}
@@ -0,0 +1,28 @@
+package practice.virtual.thread;
+
+import practice.virtual.thread.tenant.TenantBulkheads;
+
+class TenantAspect {
+    public static final ScopedValue<String> TENANT_ID = ScopedValue.newInstance();
+
+    private final TenantBulkheads bulkheads;
+
+    public TenantAspect() {
+        this(null);
+    }
+
+    // 테넌트별 동시 실행 제한과 가중치 공정 대기열을 거쳐서 실행
+    public TenantAspect(TenantBulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    public void processTenantRequest(String tenantId, Runnable logic) {
+        if (bulkheads == null) {
+            ScopedValue.where(TENANT_ID, tenantId).run(logic);
+            return;
+        }
+        try (var _ = bulkheads.admit(tenantId)) { // 자리가 없으면 RejectedExecutionException
+            ScopedValue.where(TENANT_ID, tenantId).run(logic);
+        }
+    }
+}
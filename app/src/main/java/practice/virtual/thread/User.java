@@ -0,0 +1,17 @@
+package practice.virtual.thread;
+
+import java.util.Set;
+import practice.virtual.thread.security.Permission;
+import practice.virtual.thread.security.PermissionSet;
+
+record User(String name, Boolean isAdmin, String tenantId, Set<String> roles, PermissionSet permissions) {
+
+    // 관리자는 모든 권한, 그 외에는 권한 없음
+    User(String name, Boolean isAdmin) {
+        this(name, isAdmin, null, Set.of(), isAdmin ? PermissionSet.ALL : PermissionSet.NONE);
+    }
+
+    boolean can(Permission permission) {
+        return permissions.has(permission);
+    }
+}
@@ -0,0 +1,12 @@
+package practice.virtual.thread.batch;
+
+import java.util.List;
+
+// 모은 항목을 한 번에 기록하는 대상 (예: JDBC addBatch + commit 한 번)
+// 반환하는 결과는 items 와 같은 순서, 같은 개수여야 한다
+// 예외를 던지면 배치의 모든 항목이 그 예외로 실패한다
+@FunctionalInterface
+public interface BatchSink<T, R> {
+
+    List<Outcome<R>> write(List<T> items) throws Exception;
+}
@@ -0,0 +1,317 @@
+package practice.virtual.thread.batch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import practice.virtual.thread.deadline.Deadline;
+import practice.virtual.thread.deadline.DeadlineExceededException;
+import practice.virtual.thread.observation.LatencyHistogram;
+
+// group commit : 여러 요청 스레드의 쓰기를 모아서 한 번에 기록한다
+// 요청마다 왕복 + commit 을 하면 DB 는 작은 트랜잭션만 처리하게 된다
+//
+// - maxBatchSize 개가 모이거나, 첫 항목이 들어온 뒤 linger 가 지나면 배치를 기록
+// - 배치는 BatchSink 로 한 번만 실행하고 결과는 항목마다 따로 완료 (항목별 실패 포함)
+// - 대기열(maxPending)이 가득 차면 submit 한 스레드가 기다린다 (가상 스레드는 unmount 됨)
+// - flusher 는 가상 스레드에서 동작
+// - 제출한 스레드의 Deadline 이 기록 전에 지났거나 write() 가 먼저 포기한 항목은 기록하지 않는다
+public final class GroupCommitWriter<T, R> implements AutoCloseable {
+
+    // deadline 은 없으면 null
+    private record Pending<T, R>(T item, CompletableFuture<R> result, Deadline deadline) {}
+
+    private final BatchSink<T, R> sink;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Pending<T, R>> queue;
+    private final List<Thread> flushers = new ArrayList<>();
+    private volatile boolean closed;
+    // closed 를 확인하고 대기열에 넣는 중인 submit 수
+    // flusher 는 이 값이 0 이 될 때까지 끝나지 않으므로 close 와 겹친 submit 의 항목도 기록된다
+    private final AtomicInteger submitting = new AtomicInteger();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder failedItems = new LongAdder();
+    private final LongAdder expiredItems = new LongAdder();
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+
+    private GroupCommitWriter(Builder<T, R> builder) {
+        this.sink = builder.sink;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.lingerNanos = builder.linger.toNanos();
+        this.queue = new ArrayBlockingQueue<>(builder.maxPending);
+        for (int i = 0; i < builder.flushers; i++) {
+            flushers.add(Thread.ofVirtual().name("group-commit-" + i).start(this::flushLoop));
+        }
+    }
+
+    public static <T, R> Builder<T, R> builder(BatchSink<T, R> sink) {
+        return new Builder<>(sink);
+    }
+
+    public static final class Builder<T, R> {
+        private final BatchSink<T, R> sink;
+        private int maxBatchSize = 100;
+        private Duration linger = Duration.ofMillis(2);
+        private int maxPending = 10_000;
+        private int flushers = 1;
+
+        private Builder(BatchSink<T, R> sink) {
+            this.sink = sink;
+        }
+
+        public Builder<T, R> maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize 는 1 이상이어야 합니다");
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        // 첫 항목이 들어온 뒤 배치를 더 채우려고 기다리는 최대 시간
+        public Builder<T, R> linger(Duration linger) {
+            this.linger = linger;
+            return this;
+        }
+
+        public Builder<T, R> maxPending(int maxPending) {
+            if (maxPending <= 0) {
+                throw new IllegalArgumentException("maxPending 은 1 이상이어야 합니다");
+            }
+            this.maxPending = maxPending;
+            return this;
+        }
+
+        // 동시에 기록할 수 있는 배치 수 (기본 1 : 배치를 순서대로 기록)
+        public Builder<T, R> flushers(int flushers) {
+            if (flushers <= 0) {
+                throw new IllegalArgumentException("flushers 는 1 이상이어야 합니다");
+            }
+            this.flushers = flushers;
+            return this;
+        }
+
+        public GroupCommitWriter<T, R> build() {
+            return new GroupCommitWriter<>(this);
+        }
+    }
+
+    // ---- 제출 ----
+
+    public CompletableFuture<R> submit(T item) {
+        submitting.incrementAndGet(); // closed 보다 먼저 : flusher 가 이 submit 을 놓치지 않도록
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("writer 가 종료되었습니다");
+            }
+            return enqueue(item);
+        } finally {
+            submitting.decrementAndGet();
+        }
+    }
+
+    private CompletableFuture<R> enqueue(T item) {
+        Deadline deadline = Deadline.current().orElse(null);
+        if (deadline != null && deadline.isExpired()) {
+            expiredItems.increment();
+            return CompletableFuture.failedFuture(
+                    new DeadlineExceededException("기록 전에 deadline 이 지났습니다"));
+        }
+        Pending<T, R> pending = new Pending<>(item, new CompletableFuture<>(), deadline);
+        try {
+            if (deadline == null) {
+                queue.put(pending);
+            } else if (!queue.offer(pending, deadline.remainingNanos(), TimeUnit.NANOSECONDS)) {
+                expiredItems.increment();
+                return CompletableFuture.failedFuture(
+                        new DeadlineExceededException("대기열 자리를 기다리다 deadline 이 지났습니다"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("대기 중 인터럽트", e);
+        }
+        return pending.result;
+    }
+
+    // 배치가 기록될 때까지 기다린다. 항목이 실패했으면 그 예외를 던진다
+    // Deadline 이 지나면 기다리기를 그만두고, 아직 기록 전이면 그 항목은 기록하지 않는다
+    public R write(T item) throws Exception {
+        CompletableFuture<R> result = submit(item);
+        try {
+            if (!Deadline.CURRENT.isBound()) {
+                return result.get();
+            }
+            return result.get(Deadline.CURRENT.get().remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            throw new DeadlineExceededException("기록을 기다리다 deadline 이 지났습니다");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // ---- flusher ----
+
+    private void flushLoop() {
+        List<Pending<T, R>> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            try {
+                Pending<T, R> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // 순서가 중요 : closed → submitting → 대기열 (submit 은 반대 순서로 기록한다)
+                    if (closed && submitting.get() == 0 && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    // 이미 쌓여 있는 것은 기다리지 않고 가져온다
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || closed) {
+                        break;
+                    }
+                    Pending<T, R> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // close 를 기다리지 않고 중단된 경우: 모은 것은 기록하고 끝낸다
+                closed = true;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending<T, R>> batch) {
+        batch.removeIf(this::abandoned);
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<T> values = new ArrayList<>(batch.size());
+        for (Pending<T, R> pending : batch) {
+            values.add(pending.item);
+        }
+
+        long start = System.nanoTime();
+        List<Outcome<R>> outcomes;
+        try {
+            outcomes = sink.write(values);
+            if (outcomes == null || outcomes.size() != batch.size()) {
+                throw new IllegalStateException("BatchSink 는 항목 수(" + batch.size()
+                        + ")만큼 결과를 반환해야 합니다");
+            }
+        } catch (Exception e) {
+            batchLatency.record(System.nanoTime() - start);
+            batches.increment();
+            items.add(batch.size());
+            failedItems.add(batch.size());
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+            return;
+        }
+        batchLatency.record(System.nanoTime() - start);
+        batches.increment();
+        items.add(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<R> result = batch.get(i).result;
+            switch (outcomes.get(i)) {
+                case Outcome.Success<R> success -> result.complete(success.value());
+                case Outcome.Failure<R> failure -> {
+                    failedItems.increment();
+                    result.completeExceptionally(failure.error());
+                }
+            }
+        }
+    }
+
+    // 호출자가 이미 포기한 항목 (write() 가 취소했거나 deadline 이 지남)
+    private boolean abandoned(Pending<T, R> pending) {
+        if (pending.result.isDone()) {
+            expiredItems.increment();
+            return true;
+        }
+        if (pending.deadline != null && pending.deadline.isExpired()) {
+            expiredItems.increment();
+            pending.result.completeExceptionally(
+                    new DeadlineExceededException("기록 전에 deadline 이 지났습니다"));
+            return true;
+        }
+        return false;
+    }
+
+    // ---- 상태 ----
+
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    public long itemCount() {
+        return items.sum();
+    }
+
+    public long failedItemCount() {
+        return failedItems.sum();
+    }
+
+    // deadline 이 지나거나 호출자가 포기해서 기록하지 않은 항목 수
+    public long expiredItemCount() {
+        return expiredItems.sum();
+    }
+
+    public double averageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) items.sum() / count;
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    // BatchSink 실행 시간 분포 (nanos)
+    public LatencyHistogram batchLatency() {
+        return batchLatency.copy();
+    }
+
+    // 새 항목은 거절하고, 이미 받은 항목은 모두 기록한 뒤 종료
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread flusher : flushers) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flushers.forEach(Thread::interrupt);
+                return;
+            }
+        }
+        // flusher 가 인터럽트로 먼저 끝난 경우에 남은 항목
+        Pending<T, R> late;
+        while ((late = queue.poll()) != null) {
+            late.result.completeExceptionally(new RejectedExecutionException("writer 가 종료되었습니다"));
+        }
+    }
+}
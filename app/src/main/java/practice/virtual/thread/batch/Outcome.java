@@ -0,0 +1,17 @@
+package practice.virtual.thread.batch;
+
+// 배치 안의 항목 하나의 처리 결과
+public sealed interface Outcome<R> {
+
+    record Success<R>(R value) implements Outcome<R> {}
+
+    record Failure<R>(Exception error) implements Outcome<R> {}
+
+    static <R> Outcome<R> success(R value) {
+        return new Success<>(value);
+    }
+
+    static <R> Outcome<R> failure(Exception error) {
+        return new Failure<>(error);
+    }
+}
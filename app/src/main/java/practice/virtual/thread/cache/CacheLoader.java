@@ -0,0 +1,9 @@
+package practice.virtual.thread.cache;
+
+// 캐시에 없는 key 의 값을 읽어 온다 (가상 스레드에서 호출된다)
+// null 을 반환하면 캐시에 넣지 않는다
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+    V load(K key) throws Exception;
+}
@@ -0,0 +1,12 @@
+package practice.virtual.thread.cache;
+
+import practice.virtual.thread.observation.LatencyHistogram;
+
+public record CacheStats(long hitCount, long missCount, long loadSuccessCount,
+        long loadFailureCount, long evictionCount, long refreshCount, LatencyHistogram loadLatency) {
+
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+}
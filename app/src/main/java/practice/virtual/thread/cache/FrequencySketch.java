@@ -0,0 +1,78 @@
+package practice.virtual.thread.cache;
+
+// TinyLFU 의 접근 빈도 추정 (4bit count-min sketch)
+// long 하나에 4bit 카운터 16개, key 마다 4개의 카운터 중 최솟값을 빈도로 본다
+// 증가 횟수가 sampleSize 에 도달하면 모든 카운터를 절반으로 줄여서(aging) 오래된 인기를 잊는다
+//
+// 동기화하지 않는다: LoadingCache 의 policy 락 안에서만 호출
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long maximumSize) {
+        int size = (int) Math.min(1 << 30, Math.max(16, Long.highestOneBit(maximumSize - 1) << 1));
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = (int) Math.min(Integer.MAX_VALUE, 10L * Math.max(16, maximumSize));
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = 15;
+        for (int i = 0; i < 4; i++) {
+            long h = rehash(hash, i);
+            int shift = (int) (h & 15) << 2;
+            int count = (int) ((table[index(h)] >>> shift) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            long h = rehash(hash, i);
+            int index = index(h);
+            int shift = (int) (h & 15) << 2;
+            long mask = 0xFL << shift;
+            if ((table[index] & mask) != mask) { // 15 에서 멈춤
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int index(long h) {
+        return (int) (h >>> 32) & tableMask;
+    }
+
+    private static long rehash(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h ^ (h >>> 29);
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,529 @@
+package practice.virtual.thread.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import practice.virtual.thread.observation.LatencyHistogram;
+
+// 크기 제한이 있는 로딩 캐시 (W-TinyLFU)
+//
+// 읽기
+// - ConcurrentHashMap 조회만 하고 락을 잡지 않는다
+// - 접근 기록은 스레드별 stripe 링 버퍼에 남기고(가득 차면 버림), 버퍼가 차면 tryLock 으로 한꺼번에 반영
+//
+// 적재 (load)
+// - key 별 single-flight : 같은 key 는 한 번만 읽고, 다른 key 의 적재를 막지 않는다
+// - CacheLoader 는 처음 요청한 스레드에서 바로 실행하고, 같은 key 를 요청한 다른 스레드는 그 결과를 기다린다
+//   (적재 중에 락을 잡지 않으므로 기다리는 가상 스레드는 unmount 된다)
+// - 적재하는 동안 invalidate / put 된 key 는 적재가 끝나도 캐시에 넣지 않는다
+// - refreshAfterWrite 가 지난 값은 그대로 돌려주면서 백그라운드로 다시 읽는다 (refresh-ahead)
+//
+// 제거 정책 (policy 락 안에서만)
+// - window LRU(1%) -> main SLRU(probation 20% / protected 80%)
+// - window 에서 밀려난 후보와 probation 의 가장 오래된 항목 중 접근 빈도(FrequencySketch)가 높은 쪽을 남긴다
+// - expireAfterWrite / expireAfterAccess 가 지난 항목은 읽을 때 없는 것으로 본다
+public final class LoadingCache<K, V> {
+
+    private static final int WINDOW = 1;
+    private static final int PROBATION = 2;
+    private static final int PROTECTED = 3;
+
+    private final CacheLoader<K, V> loader;
+    private final long maximumSize;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final long refreshAfterWriteNanos;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final ReadStripe[] readStripes;
+
+    // ---- policy 락으로 보호 ----
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final NodeList<K, V> window = new NodeList<>();
+    private final NodeList<K, V> probation = new NodeList<>();
+    private final NodeList<K, V> protectedList = new NodeList<>();
+    private final long windowMaximum;
+    private final long protectedMaximum;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccess = new LongAdder();
+    private final LongAdder loadFailure = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+    private LoadingCache(Builder builder, CacheLoader<K, V> loader) {
+        this.loader = loader;
+        this.maximumSize = builder.maximumSize;
+        this.expireAfterWriteNanos = builder.expireAfterWrite.toNanos();
+        this.expireAfterAccessNanos = builder.expireAfterAccess.toNanos();
+        this.refreshAfterWriteNanos = builder.refreshAfterWrite.toNanos();
+        this.sketch = new FrequencySketch(maximumSize);
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (long) ((maximumSize - windowMaximum) * 0.8);
+
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        this.readStripes = new ReadStripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            readStripes[i] = new ReadStripe();
+        }
+    }
+
+    public static Builder builder(long maximumSize) {
+        return new Builder(maximumSize);
+    }
+
+    public static final class Builder {
+        private final long maximumSize;
+        private Duration expireAfterWrite = Duration.ZERO;
+        private Duration expireAfterAccess = Duration.ZERO;
+        private Duration refreshAfterWrite = Duration.ZERO;
+
+        private Builder(long maximumSize) {
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("maximumSize 는 1 이상이어야 합니다");
+            }
+            this.maximumSize = maximumSize;
+        }
+
+        // 기록한 뒤 이 시간이 지나면 만료 (0 이면 사용 안 함)
+        public Builder expireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+            return this;
+        }
+
+        // 마지막으로 읽은 뒤 이 시간이 지나면 만료 (0 이면 사용 안 함)
+        public Builder expireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+            return this;
+        }
+
+        // 기록한 뒤 이 시간이 지난 값을 읽으면 기존 값을 돌려주고 백그라운드에서 다시 읽는다
+        public Builder refreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+            return this;
+        }
+
+        public <K, V> LoadingCache<K, V> build(CacheLoader<K, V> loader) {
+            return new LoadingCache<>(this, loader);
+        }
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile long writeNanos;
+        volatile long accessNanos;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        // policy 락으로 보호
+        Node<K, V> prev;
+        Node<K, V> next;
+        int queue;
+        boolean alive = true;
+
+        Node(K key, V value, long now) {
+            this.key = key;
+            this.value = value;
+            this.writeNanos = now;
+            this.accessNanos = now;
+        }
+    }
+
+    // ---- 조회 ----
+
+    // 없으면 CacheLoader 로 읽어서 넣는다. 적재 실패는 CompletionException (RuntimeException 은 그대로)
+    public V get(K key) {
+        long now = System.nanoTime();
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            if (!isExpired(node, now)) {
+                V value = node.value;
+                hits.increment();
+                afterRead(node, now);
+                refreshIfNeeded(node, now);
+                return value;
+            }
+            removeNode(node);
+        }
+        misses.increment();
+
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, created);
+        if (existing != null) {
+            return join(existing); // 같은 key 를 읽고 있는 쪽의 결과를 기다린다
+        }
+        // 조회와 putIfAbsent 사이에 다른 스레드가 적재를 끝냈을 수 있다
+        Node<K, V> loaded = data.get(key);
+        if (loaded != null && !isExpired(loaded, now)) {
+            loading.remove(key, created);
+            created.complete(loaded.value);
+            return loaded.value;
+        }
+        load(key, created); // 기다리기만 할 것이므로 다른 스레드로 넘기지 않는다
+        return join(created);
+    }
+
+    // 있으면 값, 없거나 만료되었으면 null (적재하지 않음)
+    public V getIfPresent(K key) {
+        long now = System.nanoTime();
+        Node<K, V> node = data.get(key);
+        if (node == null || isExpired(node, now)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        afterRead(node, now);
+        return node.value;
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private void load(K key, CompletableFuture<V> future) {
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = loader.load(key);
+        } catch (Throwable e) {
+            loadLatency.record(System.nanoTime() - start);
+            loadFailure.increment();
+            loading.remove(key, future);
+            future.completeExceptionally(e);
+            return;
+        }
+        loadLatency.record(System.nanoTime() - start);
+        loadSuccess.increment();
+        // 적재하는 동안 invalidate / put 되었으면 넣지 않는다
+        // 확인과 넣기를 같은 compute 안에서 해야 그 사이에 끼어든 invalidate 가 지워지지 않는다
+        loading.compute(key, (_, current) -> {
+            if (current == future && value != null) {
+                insert(key, value);
+            }
+            return current == future ? null : current;
+        });
+        future.complete(value);
+    }
+
+    private void refreshIfNeeded(Node<K, V> node, long now) {
+        if (refreshAfterWriteNanos <= 0 || now - node.writeNanos < refreshAfterWriteNanos
+                || !node.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("cache-refresh").start(() -> {
+            long start = System.nanoTime();
+            try {
+                V value = loader.load(node.key);
+                loadLatency.record(System.nanoTime() - start);
+                loadSuccess.increment();
+                refreshes.increment();
+                if (value != null && data.get(node.key) == node) {
+                    node.value = value;
+                    node.writeNanos = System.nanoTime();
+                }
+            } catch (Throwable e) {
+                loadLatency.record(System.nanoTime() - start);
+                loadFailure.increment(); // 기존 값을 계속 사용
+            } finally {
+                node.refreshing.set(false);
+            }
+        });
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return (expireAfterWriteNanos > 0 && now - node.writeNanos >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos > 0 && now - node.accessNanos >= expireAfterAccessNanos);
+    }
+
+    // ---- 쓰기 ----
+
+    public void put(K key, V value) {
+        loading.remove(key); // 진행 중인 적재 결과가 이 값을 덮어쓰지 않도록
+        insert(key, value);
+    }
+
+    public void invalidate(K key) {
+        loading.remove(key);
+        Node<K, V> node = data.remove(key);
+        if (node != null) {
+            detach(node);
+        }
+    }
+
+    // key 가 조건에 맞는 항목을 모두 제거 (예: 특정 사용자의 권한 결정)
+    public void invalidateIf(Predicate<K> predicate) {
+        loading.keySet().removeIf(predicate);
+        for (K key : data.keySet()) {
+            if (predicate.test(key)) {
+                invalidate(key);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        invalidateIf(_ -> true);
+    }
+
+    private void insert(K key, V value) {
+        Node<K, V> node = new Node<>(key, value, System.nanoTime());
+        Node<K, V> old = data.put(key, node);
+        policyLock.lock();
+        try {
+            drainReadBuffers();
+            if (old != null) {
+                unlink(old);
+            }
+            // 락을 잡기 전에 다른 스레드가 덮어쓰거나 invalidate 했으면 node 는 이미 죽었다
+            if (node.alive) {
+                sketch.increment(key);
+                window.addLast(node, WINDOW);
+                evict();
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void removeNode(Node<K, V> node) {
+        if (data.remove(node.key, node)) {
+            detach(node);
+        }
+    }
+
+    private void detach(Node<K, V> node) {
+        policyLock.lock();
+        try {
+            unlink(node);
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // ---- 접근 기록 (읽기 버퍼) ----
+
+    private static final class ReadStripe {
+        static final int SIZE = 16;
+        final AtomicReferenceArray<Node<?, ?>> buffer = new AtomicReferenceArray<>(SIZE);
+        final AtomicLong writes = new AtomicLong();
+        volatile long reads; // policy 락 안에서만 증가
+    }
+
+    private void afterRead(Node<K, V> node, long now) {
+        if (expireAfterAccessNanos > 0) {
+            node.accessNanos = now;
+        }
+        ReadStripe stripe = readStripes[(int) Thread.currentThread().threadId() & (readStripes.length - 1)];
+        long writes = stripe.writes.get();
+        long pending = writes - stripe.reads;
+        if (pending < ReadStripe.SIZE && stripe.writes.compareAndSet(writes, writes + 1)) {
+            stripe.buffer.lazySet((int) (writes & (ReadStripe.SIZE - 1)), node);
+            pending++;
+        }
+        // 가득 찼으면(또는 기록을 버렸으면) 비우기를 시도. 다른 스레드가 하고 있으면 넘어간다
+        if (pending >= ReadStripe.SIZE && policyLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drainReadBuffers() {
+        for (ReadStripe stripe : readStripes) {
+            long writes = stripe.writes.get();
+            long reads = stripe.reads;
+            for (; reads < writes; reads++) {
+                int index = (int) (reads & (ReadStripe.SIZE - 1));
+                Node<K, V> node = (Node<K, V>) stripe.buffer.get(index);
+                if (node == null) {
+                    break; // 자리를 잡았지만 아직 기록하지 않은 슬롯
+                }
+                stripe.buffer.lazySet(index, null);
+                onAccess(node);
+            }
+            stripe.reads = reads;
+        }
+    }
+
+    // ---- W-TinyLFU (policy 락 안에서만) ----
+
+    private void onAccess(Node<K, V> node) {
+        if (!node.alive) {
+            return;
+        }
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW -> window.moveToLast(node);
+            case PROBATION -> {
+                // 두 번째 접근: protected 로 승격
+                probation.remove(node);
+                protectedList.addLast(node, PROTECTED);
+                while (protectedList.size > protectedMaximum) {
+                    Node<K, V> demoted = protectedList.pollFirst();
+                    probation.addLast(demoted, PROBATION);
+                }
+            }
+            case PROTECTED -> protectedList.moveToLast(node);
+            default -> {}
+        }
+    }
+
+    private void evict() {
+        // window 가 넘치면 가장 오래된 것을 main 으로 보낼 후보로
+        while (window.size > windowMaximum) {
+            Node<K, V> candidate = window.pollFirst();
+            if (size() < maximumSize) {
+                probation.addLast(candidate, PROBATION);
+                continue;
+            }
+            Node<K, V> victim = probation.peekFirst() != null ? probation.peekFirst() : protectedList.peekFirst();
+            if (victim == null) {
+                probation.addLast(candidate, PROBATION);
+                continue;
+            }
+            // TinyLFU admission : 후보가 더 자주 쓰였을 때만 main 에 들어간다
+            if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                unlink(victim);
+                data.remove(victim.key, victim);
+                probation.addLast(candidate, PROBATION);
+                evictions.increment();
+            } else {
+                candidate.alive = false;
+                candidate.queue = 0;
+                data.remove(candidate.key, candidate);
+                evictions.increment();
+            }
+        }
+        // window 만으로 넘치는 경우 (maximumSize 가 아주 작을 때)
+        while (size() > maximumSize) {
+            Node<K, V> victim = probation.peekFirst() != null ? probation.pollFirst()
+                    : protectedList.peekFirst() != null ? protectedList.pollFirst() : window.pollFirst();
+            victim.alive = false;
+            victim.queue = 0;
+            data.remove(victim.key, victim);
+            evictions.increment();
+        }
+    }
+
+    private long size() {
+        return window.size + probation.size + protectedList.size;
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW -> window.remove(node);
+            case PROBATION -> probation.remove(node);
+            case PROTECTED -> protectedList.remove(node);
+            default -> {}
+        }
+        node.alive = false;
+        node.queue = 0;
+    }
+
+    // 접근 순서 이중 연결 리스트 (앞이 가장 오래됨)
+    private static final class NodeList<K, V> {
+        Node<K, V> head;
+        Node<K, V> tail;
+        long size;
+
+        void addLast(Node<K, V> node, int queue) {
+            node.queue = queue;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            if (tail != node) {
+                int queue = node.queue;
+                remove(node);
+                addLast(node, queue);
+            }
+        }
+
+        Node<K, V> peekFirst() {
+            return head;
+        }
+
+        Node<K, V> pollFirst() {
+            Node<K, V> first = head;
+            if (first != null) {
+                remove(first);
+            }
+            return first;
+        }
+    }
+
+    // ---- 상태 ----
+
+    // 만료되었지만 아직 읽히지 않아 남아 있는 항목을 정리
+    public void cleanUp() {
+        long now = System.nanoTime();
+        for (Node<K, V> node : data.values()) {
+            if (isExpired(node, now)) {
+                removeNode(node);
+            }
+        }
+        policyLock.lock();
+        try {
+            drainReadBuffers();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public long estimatedSize() {
+        return data.size();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), loadSuccess.sum(), loadFailure.sum(),
+                evictions.sum(), refreshes.sum(), loadLatency.copy());
+    }
+}
@@ -0,0 +1,107 @@
+package practice.virtual.thread.context;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// ScopedValue 는 StructuredTaskScope 의 fork 에만 상속된다
+// ExecutorService, CompletableFuture 로 넘긴 작업에서는 바인딩이 사라지므로
+// 등록한 ScopedValue 들을 submit 시점에 캡처해서 워커에서 다시 바인딩한다
+//
+//  var propagator = ContextPropagator.of(ObservationAspect.TX_ID, TenantAspect.TENANT_ID);
+//  ExecutorService executor = propagator.wrap(Executors.newVirtualThreadPerTaskExecutor());
+public final class ContextPropagator {
+
+    private final ScopedValue<?>[] keys;
+
+    private ContextPropagator(ScopedValue<?>[] keys) {
+        this.keys = keys;
+    }
+
+    public static ContextPropagator of(ScopedValue<?>... keys) {
+        return new ContextPropagator(keys.clone());
+    }
+
+    // 아무것도 바인딩되어 있지 않으면 공유 EMPTY 를 돌려준다 (할당 없음)
+    public ContextSnapshot capture() {
+        ScopedValue.Carrier carrier = null;
+        for (ScopedValue<?> key : keys) {
+            if (key.isBound()) {
+                carrier = bind(carrier, key);
+            }
+        }
+        return carrier == null ? ContextSnapshot.EMPTY : new ContextSnapshot(carrier);
+    }
+
+    private static <T> ScopedValue.Carrier bind(ScopedValue.Carrier carrier, ScopedValue<T> key) {
+        T value = key.get();
+        return carrier == null ? ScopedValue.where(key, value) : carrier.where(key, value);
+    }
+
+    public Runnable wrap(Runnable task) {
+        ContextSnapshot snapshot = capture();
+        if (snapshot.isEmpty()) {
+            return task;
+        }
+        return () -> snapshot.run(task);
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        ContextSnapshot snapshot = capture();
+        if (snapshot.isEmpty()) {
+            return task;
+        }
+        return () -> snapshot.call(task);
+    }
+
+    // CompletableFuture.supplyAsync(supplier, propagator.wrap(executor)) 처럼 사용
+    public Executor wrap(Executor executor) {
+        return command -> executor.execute(wrap(command));
+    }
+
+    public ExecutorService wrap(ExecutorService executor) {
+        return new ContextExecutorService(executor);
+    }
+
+    // submit / invokeAll 모두 execute 를 거치므로 execute 에서만 캡처하면 된다
+    private final class ContextExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+
+        ContextExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
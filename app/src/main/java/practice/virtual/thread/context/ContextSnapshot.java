@@ -0,0 +1,35 @@
+package practice.virtual.thread.context;
+
+import java.util.concurrent.Callable;
+
+// submit 시점에 캡처한 ScopedValue 바인딩 묶음 (불변)
+// 워커에서는 미리 만들어 둔 Carrier 로 한 번에 다시 바인딩한다
+public final class ContextSnapshot {
+
+    static final ContextSnapshot EMPTY = new ContextSnapshot(null);
+
+    private final ScopedValue.Carrier carrier;
+
+    ContextSnapshot(ScopedValue.Carrier carrier) {
+        this.carrier = carrier;
+    }
+
+    public boolean isEmpty() {
+        return carrier == null;
+    }
+
+    public void run(Runnable task) {
+        if (carrier == null) {
+            task.run();
+        } else {
+            carrier.run(task);
+        }
+    }
+
+    public <T> T call(Callable<T> task) throws Exception {
+        if (carrier == null) {
+            return task.call();
+        }
+        return carrier.call(task::call);
+    }
+}
@@ -0,0 +1,85 @@
+package practice.virtual.thread.deadline;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+
+// 요청 전체에 주어진 시간 예산 (TimeoutValue)
+// 호출 단계마다 timeout 을 따로 주면 단계별 timeout 의 합이 호출자의 timeout 을 넘는다
+// 호출자가 이미 포기한 요청을 끝까지 처리하는 낭비를 막으려고 절대 시각 하나를 ScopedValue 로 전달한다
+//
+// - Deadline.after(timeout).run(task) : task 안에서 CURRENT 로 읽을 수 있다
+// - 중첩해서 바인딩하면 바깥 deadline 보다 늦출 수 없다 (더 이른 쪽이 바인딩됨)
+// - StructuredTaskScope 의 fork 에는 그대로 상속된다
+//   ExecutorService 로 넘길 때는 ContextPropagator.of(Deadline.CURRENT, ...) 또는
+//   BoundedVirtualExecutor 처럼 실행기가 직접 다시 바인딩한다
+// - 풀과 대기열은 clamp() 로 자기 대기 시간을 남은 예산 안으로 줄인다
+public final class Deadline {
+
+    public static final ScopedValue<Deadline> CURRENT = ScopedValue.newInstance();
+
+    private final long deadlineNanos; // System.nanoTime 기준
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static Optional<Deadline> current() {
+        return CURRENT.isBound() ? Optional.of(CURRENT.get()) : Optional.empty();
+    }
+
+    // 바인딩된 deadline 이 지났으면 DeadlineExceededException (작업 중간중간 호출)
+    public static void checkpoint() {
+        if (CURRENT.isBound() && CURRENT.get().isExpired()) {
+            throw new DeadlineExceededException("deadline 이 지났습니다");
+        }
+    }
+
+    // 기다릴 시간(timeoutNanos)을 남은 예산 이하로 줄인다. deadline 이 없으면 그대로
+    public static long clamp(long timeoutNanos) {
+        if (!CURRENT.isBound()) {
+            return timeoutNanos;
+        }
+        return Math.min(timeoutNanos, CURRENT.get().remainingNanos());
+    }
+
+    public void run(Runnable task) {
+        ScopedValue.where(CURRENT, earlierOfCurrent()).run(task);
+    }
+
+    public <T> T call(Callable<T> task) throws Exception {
+        return ScopedValue.where(CURRENT, earlierOfCurrent()).call(task::call);
+    }
+
+    // 바깥 deadline 이 더 이르면 그것을 유지한다 (예산은 줄어들기만 한다)
+    private Deadline earlierOfCurrent() {
+        if (CURRENT.isBound()) {
+            Deadline outer = CURRENT.get();
+            if (outer.deadlineNanos - deadlineNanos < 0) {
+                return outer;
+            }
+        }
+        return this;
+    }
+
+    public long remainingNanos() {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[remaining=" + remaining() + "]";
+    }
+}
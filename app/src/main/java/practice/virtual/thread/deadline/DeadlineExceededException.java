@@ -0,0 +1,9 @@
+package practice.virtual.thread.deadline;
+
+// 호출자의 deadline 이 이미 지나서 더 진행하지 않는다
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,140 @@
+package practice.virtual.thread.deadline;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+// 재시도 정책 (RetryPolicy). 요청 맥락마다 다른 정책을 CURRENT 로 바인딩해서 쓴다
+//
+// - 대기 시간은 full jitter : random(0, min(maxDelay, baseDelay * 2^n))
+//   모든 클라이언트가 같은 간격으로 다시 몰려오는 것(thundering herd)을 막는다
+// - Deadline 이 바인딩되어 있으면 (대기 시간 + minBudget) 보다 남은 예산이 적을 때 재시도를 멈추고
+//   마지막 예외를 던진다. 시간 안에 끝날 수 없는 재시도는 하위 시스템 부하만 늘린다
+// - DeadlineExceededException 과 InterruptedException 은 재시도하지 않는다
+public final class RetryPolicy {
+
+    public static final ScopedValue<RetryPolicy> CURRENT = ScopedValue.newInstance();
+
+    // 재시도하지 않는 정책 (CURRENT 가 바인딩되어 있지 않을 때)
+    public static final RetryPolicy NONE = builder().maxAttempts(1).build();
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final long minBudgetNanos;
+    private final Predicate<Exception> retryOn;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelayNanos = builder.baseDelay.toNanos();
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+        this.minBudgetNanos = builder.minBudget.toNanos();
+        this.retryOn = builder.retryOn;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static RetryPolicy current() {
+        return CURRENT.isBound() ? CURRENT.get() : NONE;
+    }
+
+    public static final class Builder {
+        private int maxAttempts = 3;
+        private Duration baseDelay = Duration.ofMillis(50);
+        private Duration maxDelay = Duration.ofSeconds(2);
+        private Duration minBudget = Duration.ofMillis(10);
+        private Predicate<Exception> retryOn = _ -> true;
+
+        private Builder() {}
+
+        // 첫 시도를 포함한 최대 시도 횟수
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("maxAttempts 는 1 이상이어야 합니다");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder backoff(Duration baseDelay, Duration maxDelay) {
+            if (baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+                throw new IllegalArgumentException("0 <= baseDelay <= maxDelay 이어야 합니다");
+            }
+            this.baseDelay = baseDelay;
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        // 재시도 한 번에 필요한 최소 시간. 대기 후 남은 예산이 이보다 적으면 재시도하지 않는다
+        public Builder minBudget(Duration minBudget) {
+            this.minBudget = minBudget;
+            return this;
+        }
+
+        public Builder retryOn(Predicate<Exception> retryOn) {
+            this.retryOn = retryOn;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+
+    public <T> T call(Callable<T> task) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            Deadline.checkpoint();
+            attempts.increment();
+            Exception failure;
+            try {
+                return task.call();
+            } catch (DeadlineExceededException | InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failure = e;
+            }
+            if (attempt >= maxAttempts || !retryOn.test(failure)) {
+                throw failure;
+            }
+            long delay = delayNanos(attempt);
+            if (Deadline.clamp(Long.MAX_VALUE) < delay + minBudgetNanos) {
+                budgetExhausted.increment();
+                throw failure;
+            }
+            retries.increment();
+            Thread.sleep(Duration.ofNanos(delay));
+        }
+    }
+
+    // attempt 번째 실패 뒤의 대기 시간 (full jitter)
+    long delayNanos(int attempt) {
+        long ceiling = baseDelayNanos << Math.min(attempt - 1, 30);
+        if (ceiling <= 0 || ceiling > maxDelayNanos) {
+            ceiling = maxDelayNanos;
+        }
+        return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    // ---- 지표 ----
+
+    public long attemptCount() {
+        return attempts.sum();
+    }
+
+    public long retryCount() {
+        return retries.sum();
+    }
+
+    // 남은 예산이 부족해서 재시도를 포기한 횟수
+    public long budgetExhaustedCount() {
+        return budgetExhausted.sum();
+    }
+}
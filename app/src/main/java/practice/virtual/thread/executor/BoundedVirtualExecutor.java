@@ -0,0 +1,262 @@
+package practice.virtual.thread.executor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import practice.virtual.thread.deadline.Deadline;
+
+// 가상 스레드는 얼마든지 만들 수 있지만 DB, HTTP 같은 하위 시스템은 그렇지 않다
+// newVirtualThreadPerTaskExecutor() 위에 동시 실행 개수 제한(전체 / key 별)을 씌운 실행기
+//
+// 제한에 걸렸을 때의 동작 (Overflow)
+// - BLOCK : submit 한 스레드가 자리가 날 때까지 대기 (가상 스레드라면 unmount 됨)
+// - SHED : 즉시 RejectedExecutionException
+// - TIMEOUT : timeout 까지 기다린 뒤에도 자리가 없으면 RejectedExecutionException
+//
+// 호출자에게 Deadline 이 바인딩되어 있으면
+// - 자리를 기다리는 시간은 남은 예산을 넘지 않는다 (BLOCK 이라도)
+// - 이미 지났으면 받지 않고, 작업 스레드에 같은 Deadline 을 다시 바인딩한다
+// - 시작 직전에 지났으면 실행하지 않는다 (Future 는 취소됨)
+public final class BoundedVirtualExecutor extends AbstractExecutorService {
+
+    public enum Overflow { BLOCK, SHED, TIMEOUT }
+
+    private final ExecutorService delegate = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxInFlight;
+    private final int maxInFlightPerKey;
+    private final Overflow overflow;
+    private final long timeoutNanos;
+    private final Semaphore permits;
+    // key 는 하위 시스템 이름처럼 개수가 정해진 값을 사용 (key 별 Semaphore 는 제거하지 않음)
+    private final ConcurrentHashMap<Object, Semaphore> keyPermits = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    private BoundedVirtualExecutor(Builder builder) {
+        this.maxInFlight = builder.maxInFlight;
+        this.maxInFlightPerKey = builder.maxInFlightPerKey;
+        this.overflow = builder.overflow;
+        this.timeoutNanos = builder.timeout.toNanos();
+        this.permits = new Semaphore(maxInFlight, true);
+    }
+
+    public static Builder builder(int maxInFlight) {
+        return new Builder(maxInFlight);
+    }
+
+    public static final class Builder {
+        private final int maxInFlight;
+        private int maxInFlightPerKey = Integer.MAX_VALUE;
+        private Overflow overflow = Overflow.BLOCK;
+        private Duration timeout = Duration.ZERO;
+
+        private Builder(int maxInFlight) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("maxInFlight 는 1 이상이어야 합니다");
+            }
+            this.maxInFlight = maxInFlight;
+        }
+
+        public Builder perKey(int maxInFlightPerKey) {
+            if (maxInFlightPerKey <= 0) {
+                throw new IllegalArgumentException("maxInFlightPerKey 는 1 이상이어야 합니다");
+            }
+            this.maxInFlightPerKey = maxInFlightPerKey;
+            return this;
+        }
+
+        public Builder block() {
+            this.overflow = Overflow.BLOCK;
+            return this;
+        }
+
+        public Builder shed() {
+            this.overflow = Overflow.SHED;
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            if (timeout == null || timeout.isNegative()) {
+                throw new IllegalArgumentException("timeout 은 0 이상이어야 합니다: " + timeout);
+            }
+            this.overflow = Overflow.TIMEOUT;
+            this.timeout = timeout;
+            return this;
+        }
+
+        public BoundedVirtualExecutor build() {
+            return new BoundedVirtualExecutor(this);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        execute(null, command);
+    }
+
+    public void execute(Object key, Runnable command) {
+        Semaphore keyPermit = key == null ? null
+                : keyPermits.computeIfAbsent(key, _ -> new Semaphore(maxInFlightPerKey, true));
+        Deadline deadline = Deadline.current().orElse(null);
+        if (deadline != null && deadline.isExpired()) {
+            expired.increment();
+            reject("deadline 초과");
+        }
+        acquire(keyPermit);
+        try {
+            delegate.execute(() -> {
+                try {
+                    if (deadline == null) {
+                        command.run();
+                    } else if (deadline.isExpired()) {
+                        expired.increment();
+                        if (command instanceof Future<?> future) {
+                            future.cancel(false);
+                        }
+                    } else {
+                        deadline.run(command);
+                    }
+                } finally {
+                    release(keyPermit);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(keyPermit);
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public <T> Future<T> submit(Object key, Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(key, future);
+        return future;
+    }
+
+    public Future<?> submit(Object key, Runnable task) {
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        execute(key, future);
+        return future;
+    }
+
+    // key 자리를 먼저 잡고 전체 자리를 잡는다
+    // (전체 자리를 쥔 채 key 자리를 기다리면 다른 key 의 작업까지 막힌다)
+    private void acquire(Semaphore keyPermit) {
+        long budget = Deadline.clamp(overflow == Overflow.TIMEOUT ? timeoutNanos : Long.MAX_VALUE);
+        long deadline = budget == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + budget;
+        if (!tryAcquire(keyPermit, deadline)) {
+            reject("key 별 동시 실행 제한(" + maxInFlightPerKey + ")");
+        }
+        if (!tryAcquire(permits, deadline)) {
+            if (keyPermit != null) {
+                keyPermit.release();
+            }
+            reject("동시 실행 제한(" + maxInFlight + ")");
+        }
+    }
+
+    private boolean tryAcquire(Semaphore semaphore, long deadline) {
+        if (semaphore == null || semaphore.tryAcquire()) {
+            return true;
+        }
+        if (overflow == Overflow.SHED) {
+            return false;
+        }
+        waiting.incrementAndGet();
+        try {
+            if (deadline == Long.MAX_VALUE) {
+                semaphore.acquire();
+                return true;
+            }
+            return semaphore.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private void release(Semaphore keyPermit) {
+        permits.release();
+        if (keyPermit != null) {
+            keyPermit.release();
+        }
+    }
+
+    private void reject(String reason) {
+        rejected.increment();
+        throw new RejectedExecutionException(reason + "에 걸려 작업을 받지 않습니다 (" + overflow + ")");
+    }
+
+    // ---- 실시간 지표 ----
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int availablePermits(Object key) {
+        Semaphore keyPermit = keyPermits.get(key);
+        return keyPermit == null ? maxInFlightPerKey : keyPermit.availablePermits();
+    }
+
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    // submit 에서 자리를 기다리고 있는 호출자 수 (큐 깊이)
+    public int queueDepth() {
+        return waiting.get();
+    }
+
+    public int queueDepth(Object key) {
+        Semaphore keyPermit = keyPermits.get(key);
+        return keyPermit == null ? 0 : keyPermit.getQueueLength();
+    }
+
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    // deadline 이 지나서 받지 않았거나 실행하지 않은 작업 수
+    public long expiredCount() {
+        return expired.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,337 @@
+package practice.virtual.thread.executor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import practice.virtual.thread.deadline.Deadline;
+import practice.virtual.thread.deadline.DeadlineExceededException;
+
+// CPU 계산은 코어 수만큼의 ForkJoinPool 에서, 블로킹 I/O 는 가상 스레드에서 실행하도록 나눠주는 실행기
+// (commonPool 에서 I/O 를 하면 시스템 전체의 병렬 스트림이 느려진다)
+//
+// - submit(COMPUTE / IO, task) : 작업 종류를 직접 지정
+// - submit(name, task) : 이름별로 실행 시간 중 블로킹 비율(wall - cpu)을 관찰해서 자동으로 분류
+//   처음에는 COMPUTE 로 실행해 보고, 블로킹 비율의 이동 평균(EWMA)이 기준을 넘으면 그 이름은 이후 IO 로 보낸다
+//   - 관찰 minSamples 번 전에는 바꾸지 않는다 (부하가 높아 한 번 밀린 계산 작업이 IO 로 가지 않도록)
+//   - IO 로 보낸 이름도 probeEvery 번에 한 번은 풀에서 관찰해서, 평균이 기준의 절반 아래로 내려가면 COMPUTE 로 되돌린다
+//     (가상 스레드에서는 스레드 cpu 시간을 잴 수 없다)
+//   - 아직 배우는 중인 이름과 probe 실행은 블로킹일 수 있으므로 ManagedBlocker 로 감싸서 관찰한다
+//     (처음 보는 블로킹 작업이 몰려도 워커가 모두 묶이지 않도록)
+// - blocking(call) : 풀 안에서 어쩔 수 없이 블로킹해야 할 때 ManagedBlocker 로 감싸서
+//   그동안 풀이 보상 스레드를 띄워 병렬성을 유지하게 한다
+// - 호출자에게 Deadline 이 바인딩되어 있으면 이미 지난 작업은 받지 않고, 작업 스레드에 같은 Deadline 을 다시 바인딩한다
+//   (시작 직전에 지났으면 실행하지 않고 DeadlineExceededException 으로 끝난다)
+public final class HybridDispatcher implements AutoCloseable {
+
+    public enum TaskKind { COMPUTE, IO }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ForkJoinPool computePool;
+    private final ExecutorService ioExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // 블로킹 비율 이동 평균에서 새 관찰값의 가중치
+    private static final double SMOOTHING = 0.3;
+
+    private final double blockingRatio;
+    private final long minSampleNanos;
+    private final int minSamples;
+    private final int probeEvery;
+    private final ConcurrentHashMap<String, Profile> profiles = new ConcurrentHashMap<>();
+
+    private final LongAdder computeCount = new LongAdder();
+    private final LongAdder ioCount = new LongAdder();
+    private final LongAdder reclassifiedCount = new LongAdder();
+
+    private HybridDispatcher(Builder builder) {
+        this.computePool = new ForkJoinPool(builder.parallelism);
+        this.blockingRatio = builder.blockingRatio;
+        this.minSampleNanos = builder.minSample.toNanos();
+        this.minSamples = builder.minSamples;
+        this.probeEvery = builder.probeEvery;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+        private double blockingRatio = 0.5;
+        private Duration minSample = Duration.ofMillis(1);
+        private int minSamples = 5;
+        private int probeEvery = 32;
+
+        private Builder() {}
+
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("parallelism 은 1 이상이어야 합니다");
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        // 실행 시간 중 블로킹 비율이 이 값을 넘으면 IO 로 분류 (0 ~ 1)
+        public Builder blockingRatio(double blockingRatio) {
+            if (blockingRatio <= 0 || blockingRatio >= 1) {
+                throw new IllegalArgumentException("blockingRatio 는 0 과 1 사이여야 합니다");
+            }
+            this.blockingRatio = blockingRatio;
+            return this;
+        }
+
+        // 짧은 작업은 실행 시간 합계가 이만큼 모여야 관찰값 하나로 센다 (cpu 시간 측정 오차)
+        public Builder minSample(Duration minSample) {
+            this.minSample = minSample;
+            return this;
+        }
+
+        // 분류를 바꾸기 전에 필요한 관찰값 수
+        public Builder minSamples(int minSamples) {
+            if (minSamples <= 0) {
+                throw new IllegalArgumentException("minSamples 는 1 이상이어야 합니다");
+            }
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        // IO 로 분류된 이름을 몇 번에 한 번 풀에서 다시 관찰할지
+        public Builder probeEvery(int probeEvery) {
+            if (probeEvery <= 0) {
+                throw new IllegalArgumentException("probeEvery 는 1 이상이어야 합니다");
+            }
+            this.probeEvery = probeEvery;
+            return this;
+        }
+
+        public HybridDispatcher build() {
+            return new HybridDispatcher(this);
+        }
+    }
+
+    // 이름별 관찰 결과
+    private static final class Profile {
+        volatile TaskKind kind = TaskKind.COMPUTE;
+        volatile boolean pinned; // classify 로 직접 지정한 경우 자동 분류하지 않음
+        final AtomicLong ioSubmits = new AtomicLong();
+        // 아래는 lock 으로 보호 (samples 는 submit 에서 lock 없이 읽는다)
+        final ReentrantLock lock = new ReentrantLock();
+        long wallNanos; // 관찰값 하나로 세기 전까지 모으는 중인 시간
+        long cpuNanos;
+        volatile int samples;
+        double ratio; // 블로킹 비율 이동 평균
+    }
+
+    // ---- 제출 ----
+
+    public <T> Future<T> submit(TaskKind kind, Callable<T> task) {
+        task = withDeadline(task);
+        if (kind == TaskKind.IO) {
+            ioCount.increment();
+            return ioExecutor.submit(task);
+        }
+        computeCount.increment();
+        return computePool.submit(task);
+    }
+
+    public Future<?> submit(TaskKind kind, Runnable task) {
+        return submit(kind, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public <T> Future<T> submit(String name, Callable<T> task) {
+        Callable<T> bound = withDeadline(task);
+        Profile profile = profiles.computeIfAbsent(name, _ -> new Profile());
+        boolean probing = false;
+        if (profile.kind == TaskKind.IO) {
+            if (!probe(profile)) {
+                ioCount.increment();
+                return ioExecutor.submit(bound);
+            }
+            probing = true;
+        }
+        computeCount.increment();
+        if (profile.pinned) {
+            return computePool.submit(bound);
+        }
+        if (probing || profile.samples < minSamples) {
+            return computePool.submit(() -> blocking(() -> observe(profile, bound)));
+        }
+        return computePool.submit(() -> observe(profile, bound));
+    }
+
+    public Future<?> submit(String name, Runnable task) {
+        return submit(name, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    // 이름의 분류를 직접 지정 (이후 자동 분류하지 않음)
+    public void classify(String name, TaskKind kind) {
+        Profile profile = profiles.computeIfAbsent(name, _ -> new Profile());
+        profile.kind = kind;
+        profile.pinned = true;
+    }
+
+    public TaskKind classification(String name) {
+        Profile profile = profiles.get(name);
+        return profile == null ? TaskKind.COMPUTE : profile.kind;
+    }
+
+    // 호출자의 Deadline 을 작업 스레드로 옮긴다 (풀 워커와 가상 스레드는 ScopedValue 를 상속하지 않는다)
+    private static <T> Callable<T> withDeadline(Callable<T> task) {
+        Deadline deadline = Deadline.current().orElse(null);
+        if (deadline == null) {
+            return task;
+        }
+        if (deadline.isExpired()) {
+            throw new RejectedExecutionException("deadline 이 지나 작업을 받지 않습니다");
+        }
+        return () -> {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException("작업 시작 전에 deadline 이 지났습니다");
+            }
+            return deadline.call(task);
+        };
+    }
+
+    // IO 로 분류된 이름을 이번에는 풀에서 관찰 실행할지
+    private boolean probe(Profile profile) {
+        if (profile.pinned) {
+            return false;
+        }
+        return profile.ioSubmits.incrementAndGet() % probeEvery == 0;
+    }
+
+    // 풀 워커(플랫폼 스레드)에서 실행하므로 스레드 cpu 시간을 잴 수 있다
+    private <T> T observe(Profile profile, Callable<T> task) throws Exception {
+        long cpuStart = THREADS.getCurrentThreadCpuTime();
+        long wallStart = System.nanoTime();
+        try {
+            return task.call();
+        } finally {
+            long cpuEnd = THREADS.getCurrentThreadCpuTime();
+            if (cpuStart >= 0 && cpuEnd >= 0) {
+                record(profile, System.nanoTime() - wallStart, cpuEnd - cpuStart);
+            }
+        }
+    }
+
+    private void record(Profile profile, long wall, long cpu) {
+        profile.lock.lock();
+        try {
+            profile.wallNanos += wall;
+            profile.cpuNanos += cpu;
+            if (profile.wallNanos < minSampleNanos) {
+                return;
+            }
+            double sample = Math.max(0.0, (double) (profile.wallNanos - profile.cpuNanos) / profile.wallNanos);
+            profile.wallNanos = 0;
+            profile.cpuNanos = 0;
+            profile.ratio = profile.samples == 0 ? sample : SMOOTHING * sample + (1 - SMOOTHING) * profile.ratio;
+            profile.samples++;
+            if (profile.samples < minSamples || profile.pinned) {
+                return;
+            }
+            // 경계 근처에서 오가지 않도록 되돌리는 기준은 절반으로
+            TaskKind next = profile.ratio > blockingRatio ? TaskKind.IO
+                    : profile.ratio < blockingRatio / 2 ? TaskKind.COMPUTE : profile.kind;
+            if (next != profile.kind) {
+                profile.kind = next;
+                reclassifiedCount.increment();
+            }
+        } finally {
+            profile.lock.unlock();
+        }
+    }
+
+    // ---- 풀 안에서의 블로킹 ----
+
+    // ForkJoinPool 워커에서 호출되면 ManagedBlocker 로 감싸서 실행한다
+    // (블로킹하는 동안 풀이 보상 스레드를 추가해 병렬성을 유지)
+    // 가상 스레드나 일반 스레드에서는 그대로 실행
+    public static <T> T blocking(Callable<T> call) throws Exception {
+        if (!(Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+            return call.call();
+        }
+        CallBlocker<T> blocker = new CallBlocker<>(call);
+        ForkJoinPool.managedBlock(blocker);
+        if (blocker.failure != null) {
+            throw blocker.failure;
+        }
+        return blocker.result;
+    }
+
+    private static final class CallBlocker<T> implements ForkJoinPool.ManagedBlocker {
+        private final Callable<T> call;
+        private T result;
+        private Exception failure;
+        private boolean done;
+
+        CallBlocker(Callable<T> call) {
+            this.call = call;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            try {
+                result = call.call();
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failure = e;
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
+    // ---- 상태 ----
+
+    public long computeCount() {
+        return computeCount.sum();
+    }
+
+    public long ioCount() {
+        return ioCount.sum();
+    }
+
+    // 자동 분류로 분류가 바뀐 횟수 (COMPUTE → IO, IO → COMPUTE 모두)
+    public long reclassifiedCount() {
+        return reclassifiedCount.sum();
+    }
+
+    // 보상 스레드를 포함한 풀의 현재 스레드 수
+    public int computePoolSize() {
+        return computePool.getPoolSize();
+    }
+
+    public int parallelism() {
+        return computePool.getParallelism();
+    }
+
+    @Override
+    public void close() {
+        computePool.close();
+        ioExecutor.close();
+    }
+}
@@ -0,0 +1,311 @@
+package practice.virtual.thread.footprint;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.management.ObjectName;
+
+// ThreadLocal / InheritableThreadLocal / ScopedValue 로 요청 맥락을 들고 있는
+// 가상 스레드를 대량으로(10만 ~ 100만) 띄워 놓고 비용을 잰다
+//
+// - heapPerThread : 스레드를 모두 park 시킨 뒤 GC 후 힙 사용량 증가분 / 스레드 수
+// - stackChunkPerThread : park 된 가상 스레드의 스택이 복사된 jdk.internal.vm.StackChunk 바이트 / 스레드 수
+//   (GC.class_histogram 진단 명령으로 읽는다)
+// - gcMillis / gcCount : 스레드가 살아 있는 동안 같은 양의 garbage 를 만들 때의 GC 시간과 횟수
+// - bindNanos / lookupNanos : 값 한 번 바인딩(set + remove / where.run) / 읽기 비용 (대략치)
+//
+// 같은 JVM 옵션으로 JDK 버전만 바꿔 돌린 결과를 비교할 수 있게 JDK, GC 이름을 함께 출력한다
+//
+//  ./gradlew footprint --args="--threads=100000,1000000"
+public final class ContextFootprint {
+
+    public enum Mechanism { NONE, THREAD_LOCAL, INHERITABLE_THREAD_LOCAL, SCOPED_VALUE }
+
+    // 요청마다 들고 다니는 맥락 (trace, 테넌트, 사용자)
+    record RequestContext(String txId, String tenant, String user) {}
+
+    public record Result(String jdk, String gc, Mechanism mechanism, int threads, long heapPerThread,
+            long stackChunkPerThread, long gcMillis, long gcCount, double bindNanos, double lookupNanos) {
+
+        public static String csvHeader() {
+            return "jdk,gc,mechanism,threads,heapPerThread,stackChunkPerThread,gcMillis,gcCount,bindNanos,lookupNanos";
+        }
+
+        // 소수는 Locale.ROOT 로 : 쉼표 소수점 locale 에서도 열이 늘어나지 않도록
+        public String csv() {
+            return String.join(",", jdk, gc, mechanism.name(), String.valueOf(threads),
+                    String.valueOf(heapPerThread), String.valueOf(stackChunkPerThread), String.valueOf(gcMillis),
+                    String.valueOf(gcCount), String.format(Locale.ROOT, "%.1f", bindNanos),
+                    String.format(Locale.ROOT, "%.1f", lookupNanos));
+        }
+    }
+
+    private static final ThreadLocal<RequestContext> THREAD_LOCAL = new ThreadLocal<>();
+    private static final InheritableThreadLocal<RequestContext> INHERITABLE = new InheritableThreadLocal<>();
+    private static final ScopedValue<RequestContext> SCOPED = ScopedValue.newInstance();
+
+    private static final Pattern HISTOGRAM_LINE = Pattern.compile("^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+).*$");
+    private static final String STACK_CHUNK = "jdk.internal.vm.StackChunk";
+
+    private final long garbageBytes;
+    private final int lookupIterations;
+
+    public ContextFootprint() {
+        this(512L << 20, 5_000_000);
+    }
+
+    // garbageBytes : GC 영향을 볼 때 만드는 garbage 양, lookupIterations : bind / lookup 반복 횟수
+    public ContextFootprint(long garbageBytes, int lookupIterations) {
+        this.garbageBytes = garbageBytes;
+        this.lookupIterations = lookupIterations;
+    }
+
+    public Result measure(Mechanism mechanism, int threads) throws Exception {
+        long baseline = usedHeapAfterGc();
+        long baselineChunks = stackChunkBytes();
+
+        CountDownLatch started = new CountDownLatch(threads);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> parked = new ArrayList<>(threads);
+
+        Runnable launch = () -> {
+            for (int i = 0; i < threads; i++) {
+                RequestContext context = new RequestContext("tx-" + i, "tenant-" + (i & 15), "user-" + i);
+                parked.add(Thread.ofVirtual().unstarted(() -> hold(mechanism, context, started, release)));
+            }
+            parked.forEach(Thread::start);
+        };
+        if (mechanism == Mechanism.INHERITABLE_THREAD_LOCAL) {
+            // 부모에 값이 있으면 자식 스레드를 만들 때마다 값 맵을 복사한다
+            INHERITABLE.set(new RequestContext("tx-parent", "tenant-parent", "user-parent"));
+            try {
+                launch.run();
+            } finally {
+                INHERITABLE.remove();
+            }
+        } else {
+            launch.run();
+        }
+
+        try {
+            started.await();
+            awaitParked(parked);
+            long retained = usedHeapAfterGc() - baseline;
+            long chunks = stackChunkBytes() - baselineChunks;
+            long[] gc = gcWhileParked();
+            double bind = bindNanos(mechanism);
+            double lookup = lookupNanos(mechanism);
+            return new Result(String.valueOf(Runtime.version()), gcName(), mechanism, threads,
+                    Math.max(0, retained / threads), Math.max(0, chunks / threads), gc[0], gc[1], bind, lookup);
+        } finally {
+            release.countDown();
+            for (Thread thread : parked) {
+                thread.join();
+            }
+        }
+    }
+
+    // 맥락을 바인딩하고 요청이 I/O 를 기다리는 것처럼 park 된다
+    private static void hold(Mechanism mechanism, RequestContext context, CountDownLatch started,
+            CountDownLatch release) {
+        switch (mechanism) {
+            case NONE -> await(context, started, release);
+            case THREAD_LOCAL -> {
+                THREAD_LOCAL.set(context);
+                try {
+                    await(THREAD_LOCAL.get(), started, release);
+                } finally {
+                    THREAD_LOCAL.remove();
+                }
+            }
+            case INHERITABLE_THREAD_LOCAL -> {
+                INHERITABLE.set(context);
+                try {
+                    await(INHERITABLE.get(), started, release);
+                } finally {
+                    INHERITABLE.remove();
+                }
+            }
+            case SCOPED_VALUE -> ScopedValue.where(SCOPED, context)
+                    .run(() -> await(SCOPED.get(), started, release));
+        }
+    }
+
+    private static void await(RequestContext context, CountDownLatch started, CountDownLatch release) {
+        started.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (context == null) {
+            throw new IllegalStateException("맥락이 바인딩되지 않았습니다");
+        }
+    }
+
+    // countDown 직후에는 아직 park 전이라 스택이 StackChunk 로 옮겨지지 않았을 수 있다
+    private static void awaitParked(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            while (thread.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    // ---- 측정 ----
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    // GC.class_histogram 진단 명령 결과에서 StackChunk 의 바이트 수 (실행하면 full GC 가 한 번 일어난다)
+    static long stackChunkBytes() throws Exception {
+        ObjectName name = new ObjectName("com.sun.management:type=DiagnosticCommand");
+        String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(name, "gcClassHistogram",
+                new Object[] {new String[0]}, new String[] {String[].class.getName()});
+        return stackChunkBytes(histogram);
+    }
+
+    static long stackChunkBytes(String histogram) {
+        long bytes = 0;
+        for (String line : histogram.split("\n")) {
+            Matcher matcher = HISTOGRAM_LINE.matcher(line);
+            if (matcher.matches() && matcher.group(3).equals(STACK_CHUNK)) {
+                bytes += Long.parseLong(matcher.group(2));
+            }
+        }
+        return bytes;
+    }
+
+    // 짧게 사는 garbage 를 만들면서 GC 시간 / 횟수 증가분을 잰다 (살아 있는 스택이 많을수록 root 스캔이 길어진다)
+    private long[] gcWhileParked() {
+        long[] before = gcTotals();
+        Object[] ring = new Object[1024]; // 배열에 잠깐 보관해서 escape analysis 로 할당이 사라지지 않게
+        for (long allocated = 0, i = 0; allocated < garbageBytes; allocated += 1024, i++) {
+            ring[(int) (i & 1023)] = new byte[1024];
+        }
+        long[] after = gcTotals();
+        return new long[] {after[0] - before[0], after[1] - before[1]};
+    }
+
+    private static long[] gcTotals() {
+        long millis = 0;
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, bean.getCollectionTime());
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return new long[] {millis, count};
+    }
+
+    private static String gcName() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().map(GarbageCollectorMXBean::getName)
+                .reduce((a, b) -> a + "+" + b).orElse("unknown").replace(',', ' ');
+    }
+
+    // 정밀한 비교가 필요하면 JMH 로 따로 잰다. 여기서는 같은 조건에서 mechanism 간 상대 비교용
+    private double bindNanos(Mechanism mechanism) {
+        RequestContext context = new RequestContext("tx", "tenant", "user");
+        long[] sink = new long[1];
+        Runnable body = () -> sink[0]++;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookupIterations; i++) {
+            switch (mechanism) {
+                case NONE -> body.run();
+                case THREAD_LOCAL -> {
+                    THREAD_LOCAL.set(context);
+                    body.run();
+                    THREAD_LOCAL.remove();
+                }
+                case INHERITABLE_THREAD_LOCAL -> {
+                    INHERITABLE.set(context);
+                    body.run();
+                    INHERITABLE.remove();
+                }
+                case SCOPED_VALUE -> ScopedValue.where(SCOPED, context).run(body);
+            }
+        }
+        return (double) (System.nanoTime() - start) / lookupIterations;
+    }
+
+    private double lookupNanos(Mechanism mechanism) {
+        RequestContext context = new RequestContext("tx", "tenant", "user");
+        double[] result = new double[1];
+        Runnable loop = () -> {
+            int hits = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < lookupIterations; i++) {
+                RequestContext current = switch (mechanism) {
+                    case NONE -> context;
+                    case THREAD_LOCAL -> THREAD_LOCAL.get();
+                    case INHERITABLE_THREAD_LOCAL -> INHERITABLE.get();
+                    case SCOPED_VALUE -> SCOPED.get();
+                };
+                hits += current.tenant().length();
+            }
+            result[0] = (double) (System.nanoTime() - start) / lookupIterations;
+            if (hits == 0) {
+                throw new IllegalStateException();
+            }
+        };
+        switch (mechanism) {
+            case THREAD_LOCAL -> {
+                THREAD_LOCAL.set(context);
+                try {
+                    loop.run();
+                } finally {
+                    THREAD_LOCAL.remove();
+                }
+            }
+            case INHERITABLE_THREAD_LOCAL -> {
+                INHERITABLE.set(context);
+                try {
+                    loop.run();
+                } finally {
+                    INHERITABLE.remove();
+                }
+            }
+            case SCOPED_VALUE -> ScopedValue.where(SCOPED, context).run(loop);
+            case NONE -> loop.run();
+        }
+        return result[0];
+    }
+
+    // --threads=100000,1000000 --mechanisms=NONE,THREAD_LOCAL,INHERITABLE_THREAD_LOCAL,SCOPED_VALUE
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = {100_000};
+        List<Mechanism> mechanisms = List.of(Mechanism.values());
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            switch (pair[0]) {
+                case "threads" -> threadCounts = Arrays.stream(pair[1].split(",")).mapToInt(Integer::parseInt)
+                        .toArray();
+                case "mechanisms" -> mechanisms = Arrays.stream(pair[1].split(",")).map(Mechanism::valueOf)
+                        .toList();
+                default -> throw new IllegalArgumentException("알 수 없는 옵션: " + arg);
+            }
+        }
+
+        ContextFootprint footprint = new ContextFootprint();
+        // 처음 실행하는 mechanism 은 인터프리터 프레임이라 스택이 더 크게 잡힌다 : 한 번씩 돌리고 버린다
+        for (Mechanism mechanism : mechanisms) {
+            footprint.measure(mechanism, 10_000);
+        }
+        System.out.println(Result.csvHeader());
+        for (int threads : threadCounts) {
+            for (Mechanism mechanism : mechanisms) {
+                System.out.println(footprint.measure(mechanism, threads).csv());
+            }
+        }
+    }
+}
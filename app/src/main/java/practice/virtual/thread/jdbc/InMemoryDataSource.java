@@ -0,0 +1,174 @@
+package practice.virtual.thread.jdbc;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+// 실제 DB 없이 커넥션 풀을 시험하기 위한 DataSource
+// - 연결(getConnection)과 쿼리(Statement.execute*) 에 지정한 만큼 sleep 해서 네트워크 대기를 흉내낸다
+// - 지금 열려 있는 물리 커넥션 수와 최대치를 센다
+// Statement 는 execute / executeUpdate / close 만 지원한다
+public final class InMemoryDataSource implements DataSource {
+
+    private final String name;
+    private final Duration connectLatency;
+    private final Duration queryLatency;
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger peakOpen = new AtomicInteger();
+    private final LongAdder queries = new LongAdder();
+
+    public InMemoryDataSource(String name, Duration connectLatency, Duration queryLatency) {
+        this.name = name;
+        this.connectLatency = connectLatency;
+        this.queryLatency = queryLatency;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        sleep(connectLatency);
+        peakOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new ConnectionHandler());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int openConnections() {
+        return open.get();
+    }
+
+    public int peakOpenConnections() {
+        return peakOpen.get();
+    }
+
+    public long queryCount() {
+        return queries.sum();
+    }
+
+    private static void sleep(Duration latency) throws SQLException {
+        if (latency.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("대기 중 인터럽트", e);
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        open.decrementAndGet();
+                    }
+                    yield null;
+                }
+                case "isClosed" -> closed;
+                case "isValid" -> !closed;
+                case "createStatement" -> {
+                    checkOpen();
+                    yield Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                            new Class<?>[] {Statement.class}, new StatementHandler());
+                }
+                case "getAutoCommit" -> true;
+                case "setAutoCommit", "commit", "rollback", "clearWarnings" -> null;
+                case "toString" -> name + "-connection@" + Integer.toHexString(hashCode());
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new SQLFeatureNotSupportedException(method.getName());
+            };
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed) {
+                throw new SQLException("닫힌 커넥션입니다");
+            }
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "execute" -> {
+                    query();
+                    yield true;
+                }
+                case "executeUpdate" -> {
+                    query();
+                    yield 1;
+                }
+                case "close" -> null;
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> name + "-statement";
+                default -> throw new SQLFeatureNotSupportedException(method.getName());
+            };
+        }
+
+        private void query() throws SQLException {
+            sleep(queryLatency);
+            queries.increment();
+        }
+    }
+
+    // ---- DataSource 의 나머지 메서드 ----
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {}
+
+    @Override
+    public void setLoginTimeout(int seconds) {}
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException(iface.getName() + " 로 unwrap 할 수 없습니다");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,445 @@
+package practice.virtual.thread.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import javax.sql.DataSource;
+import practice.virtual.thread.deadline.Deadline;
+import practice.virtual.thread.observation.LatencyHistogram;
+
+// 테넌트별 커넥션 풀
+// 가상 스레드가 수천 개여도 DB 커넥션 수는 정해져 있으므로 실제 동시성 제한은 이 풀에서 일어난다
+//
+// - getConnection() : 바인딩된 테넌트 ScopedValue 로 그 테넌트의 풀을 고른다
+// - 대기는 synchronized/wait 가 아닌 ReentrantLock/Condition 으로 (가상 스레드가 unmount 됨)
+// - 물리 커넥션 생성(네트워크 I/O)은 락 밖에서 한다
+// - acquireTimeout 안에 커넥션을 얻지 못하면 SQLTransientConnectionException
+//   (Deadline 이 바인딩되어 있으면 남은 예산과 acquireTimeout 중 짧은 쪽)
+// - 테넌트별 min/max, idleTimeout 이 지난 유휴 커넥션 정리 (min 개수는 유지)
+// - 대기 시간 히스토그램과 사용량 지표
+public final class TenantConnectionPool implements AutoCloseable {
+
+    public record Limits(int min, int max) {
+        public Limits {
+            if (min < 0 || max <= 0 || min > max) {
+                throw new IllegalArgumentException("0 <= min <= max, max > 0 이어야 합니다");
+            }
+        }
+    }
+
+    public record PoolStats(String tenant, int total, int idle, int inUse, int waiting,
+            long acquired, long timeouts, long created, long evicted, LatencyHistogram waitTime) {}
+
+    private final Function<String, DataSource> dataSources;
+    private final ScopedValue<String> tenantKey;
+    private final Limits defaultLimits;
+    private final Map<String, Limits> tenantLimits;
+    private final long acquireTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final ConcurrentHashMap<String, TenantPool> pools = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private TenantConnectionPool(Builder builder) {
+        this.dataSources = builder.dataSources;
+        this.tenantKey = builder.tenantKey;
+        this.defaultLimits = builder.defaultLimits;
+        this.tenantLimits = Map.copyOf(builder.tenantLimits);
+        this.acquireTimeoutNanos = builder.acquireTimeout.toNanos();
+        this.idleTimeoutNanos = builder.idleTimeout.toNanos();
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("connection-pool-housekeeper").factory());
+        // 나노초 단위로 넘겨야 1ms 미만 interval 이 주기 0 으로 잘리지 않는다
+        long interval = builder.housekeepingInterval.toNanos();
+        housekeeper.scheduleWithFixedDelay(this::housekeeping, interval, interval,
+                TimeUnit.NANOSECONDS);
+    }
+
+    public static Builder builder(Function<String, DataSource> dataSources) {
+        return new Builder(dataSources);
+    }
+
+    public static final class Builder {
+        private final Function<String, DataSource> dataSources;
+        private ScopedValue<String> tenantKey;
+        private Limits defaultLimits = new Limits(0, 10);
+        private final Map<String, Limits> tenantLimits = new HashMap<>();
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        private Duration housekeepingInterval = Duration.ofSeconds(30);
+
+        private Builder(Function<String, DataSource> dataSources) {
+            this.dataSources = dataSources;
+        }
+
+        // getConnection() 이 테넌트를 읽을 ScopedValue
+        public Builder tenantKey(ScopedValue<String> tenantKey) {
+            this.tenantKey = tenantKey;
+            return this;
+        }
+
+        public Builder limits(int min, int max) {
+            this.defaultLimits = new Limits(min, max);
+            return this;
+        }
+
+        public Builder limits(String tenant, int min, int max) {
+            tenantLimits.put(tenant, new Limits(min, max));
+            return this;
+        }
+
+        public Builder acquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        public Builder idleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        // 유휴 커넥션 정리와 min 채우기 주기
+        public Builder housekeepingInterval(Duration housekeepingInterval) {
+            if (housekeepingInterval.isZero() || housekeepingInterval.isNegative()) {
+                throw new IllegalArgumentException("housekeepingInterval 은 0 보다 커야 합니다: " + housekeepingInterval);
+            }
+            this.housekeepingInterval = housekeepingInterval;
+            return this;
+        }
+
+        public TenantConnectionPool build() {
+            return new TenantConnectionPool(this);
+        }
+    }
+
+    // ---- 획득 ----
+
+    public Connection getConnection() throws SQLException {
+        if (tenantKey == null || !tenantKey.isBound()) {
+            throw new SQLException("바인딩된 테넌트가 없습니다");
+        }
+        return getConnection(tenantKey.get());
+    }
+
+    public Connection getConnection(String tenant) throws SQLException {
+        if (closed) {
+            throw new SQLException("커넥션 풀이 종료되었습니다");
+        }
+        TenantPool pool = pools.computeIfAbsent(tenant, this::newTenantPool);
+        return pool.acquire();
+    }
+
+    private TenantPool newTenantPool(String tenant) {
+        DataSource dataSource = dataSources.apply(tenant);
+        if (dataSource == null) {
+            throw new IllegalArgumentException(tenant + " 테넌트의 DataSource 가 없습니다");
+        }
+        return new TenantPool(tenant, dataSource, tenantLimits.getOrDefault(tenant, defaultLimits));
+    }
+
+    // 커넥션을 min 개까지 미리 만든다
+    public void warmUp(String tenant) throws SQLException {
+        pools.computeIfAbsent(tenant, this::newTenantPool).fillToMin();
+    }
+
+    private final class TenantPool {
+        private final String tenant;
+        private final DataSource dataSource;
+        private final Limits limits;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition available = lock.newCondition();
+        private final ArrayDeque<Idle> idle = new ArrayDeque<>(); // 최근에 반납한 것이 앞
+        private int total; // 만들고 있는 것 포함
+        private int waiting;
+
+        private final LatencyHistogram waitTime = new LatencyHistogram();
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder created = new LongAdder();
+        private final LongAdder evicted = new LongAdder();
+
+        TenantPool(String tenant, DataSource dataSource, Limits limits) {
+            this.tenant = tenant;
+            this.dataSource = dataSource;
+            this.limits = limits;
+        }
+
+        Connection acquire() throws SQLException {
+            long start = System.nanoTime();
+            long remaining = Deadline.clamp(acquireTimeoutNanos); // 호출자의 남은 예산까지만 기다린다
+            boolean create = false;
+            Connection physical = null;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("커넥션 풀이 종료되었습니다");
+                    }
+                    Idle next = idle.pollFirst();
+                    if (next != null) {
+                        physical = next.connection;
+                        break;
+                    }
+                    if (total < limits.max()) {
+                        total++; // 자리를 먼저 잡고 생성은 락 밖에서
+                        create = true;
+                        break;
+                    }
+                    if (remaining <= 0) {
+                        timeouts.increment();
+                        throw new SQLTransientConnectionException(tenant + " 커넥션 대기 시간 초과 ("
+                                + limits.max() + "개 모두 사용 중)");
+                    }
+                    waiting++;
+                    try {
+                        remaining = available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("커넥션 대기 중 인터럽트", e);
+                    } finally {
+                        waiting--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                physical = create();
+            }
+            waitTime.record(System.nanoTime() - start);
+            acquired.increment();
+            return wrap(physical);
+        }
+
+        // total 은 이미 증가시켜 둔 상태에서 호출
+        private Connection create() throws SQLException {
+            try {
+                Connection connection = dataSource.getConnection();
+                created.increment();
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                discard();
+                throw e;
+            }
+        }
+
+        void release(Connection physical, boolean broken) {
+            lock.lock();
+            try {
+                if (!broken && !closed) {
+                    idle.addFirst(new Idle(physical, System.nanoTime()));
+                    available.signal();
+                    return;
+                }
+                total--;
+                available.signal(); // 빈 자리에 새로 만들 수 있다
+            } finally {
+                lock.unlock();
+            }
+            closeQuietly(physical);
+        }
+
+        private void discard() {
+            lock.lock();
+            try {
+                total--;
+                available.signal(); // 빈 자리에 새로 만들 수 있다
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void fillToMin() throws SQLException {
+            while (true) {
+                lock.lock();
+                try {
+                    if (closed || total >= limits.min()) {
+                        return;
+                    }
+                    total++;
+                } finally {
+                    lock.unlock();
+                }
+                release(create(), false);
+            }
+        }
+
+        // idleTimeout 보다 오래 쉰 커넥션을 닫는다 (min 개는 남김)
+        void evictIdle(long now) {
+            List<Connection> expired = new ArrayList<>();
+            lock.lock();
+            try {
+                // 오래된 것이 뒤에 있으므로 뒤에서부터 확인
+                Iterator<Idle> iterator = idle.descendingIterator();
+                while (iterator.hasNext() && total > limits.min()) {
+                    Idle next = iterator.next();
+                    if (now - next.since < idleTimeoutNanos) {
+                        break;
+                    }
+                    iterator.remove();
+                    total--;
+                    expired.add(next.connection);
+                }
+            } finally {
+                lock.unlock();
+            }
+            evicted.add(expired.size());
+            expired.forEach(TenantConnectionPool::closeQuietly);
+        }
+
+        void closeIdle() {
+            List<Idle> drained;
+            lock.lock();
+            try {
+                drained = new ArrayList<>(idle);
+                idle.clear();
+                total -= drained.size();
+                available.signalAll(); // 대기 중인 스레드는 closed 를 보고 빠져나간다
+            } finally {
+                lock.unlock();
+            }
+            drained.forEach(next -> closeQuietly(next.connection));
+        }
+
+        PoolStats stats() {
+            lock.lock();
+            try {
+                return new PoolStats(tenant, total, idle.size(), total - idle.size(), waiting,
+                        acquired.sum(), timeouts.sum(), created.sum(), evicted.sum(),
+                        waitTime.copy());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Connection wrap(Connection physical) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, new PooledHandler(this, physical));
+        }
+    }
+
+    private record Idle(Connection connection, long since) {}
+
+    // close() 를 가로채 물리 커넥션을 닫지 않고 풀에 반납한다
+    private static final class PooledHandler implements InvocationHandler {
+        private final TenantPool pool;
+        private final Connection physical;
+        private boolean returned;
+        private boolean broken;
+
+        PooledHandler(TenantPool pool, Connection physical) {
+            this.pool = pool;
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        pool.release(physical, broken || physical.isClosed());
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || physical.isClosed();
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "toString" -> {
+                    return "pooled(" + physical + ")";
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("이미 반납한 커넥션입니다");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        // 커넥션 수준 오류(08xxx)가 나면 반납하지 않고 버린다
+                        if (e.getCause() instanceof SQLException sql && sql.getSQLState() != null
+                                && sql.getSQLState().startsWith("08")) {
+                            broken = true;
+                        }
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+
+    // ---- 관리 ----
+
+    private void housekeeping() {
+        long now = System.nanoTime();
+        for (TenantPool pool : pools.values()) {
+            pool.evictIdle(now);
+            try {
+                pool.fillToMin();
+            } catch (SQLException | RuntimeException e) {
+                // 다음 주기에 다시 시도
+            }
+        }
+    }
+
+    // idleTimeout 이 지난 유휴 커넥션을 지금 정리 (주기를 기다리지 않음)
+    public void evictIdleNow() {
+        long now = System.nanoTime();
+        pools.values().forEach(pool -> pool.evictIdle(now));
+    }
+
+    public PoolStats stats(String tenant) {
+        TenantPool pool = pools.get(tenant);
+        if (pool == null) {
+            throw new IllegalArgumentException(tenant + " 테넌트의 풀이 없습니다");
+        }
+        return pool.stats();
+    }
+
+    public List<PoolStats> stats() {
+        return pools.values().stream().map(TenantPool::stats).toList();
+    }
+
+    // 유휴 커넥션은 바로 닫고, 사용 중인 커넥션은 반납될 때 닫는다
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        pools.values().forEach(TenantPool::closeIdle);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // 닫는 중 오류는 무시
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package practice.virtual.thread.loader;
+
+import java.util.Map;
+import java.util.Set;
+
+// 여러 key 를 한 번의 호출로 읽는 함수 (예: where id in (...))
+// 결과에 없는 key 는 null 로 완료된다
+@FunctionalInterface
+public interface BatchLoadFunction<K, V> {
+
+    Map<K, V> load(Set<K> keys) throws Exception;
+}
@@ -0,0 +1,223 @@
+package practice.virtual.thread.loader;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import practice.virtual.thread.deadline.Deadline;
+import practice.virtual.thread.deadline.DeadlineExceededException;
+import practice.virtual.thread.observation.LatencyHistogram;
+
+// DataLoader 방식의 요청 합치기
+// 같은 순간에 여러 가상 스레드가 같은 key / 가까운 key 를 요청하면 백엔드 호출을 줄인다
+//
+// - single-flight : 같은 key 를 이미 읽고 있으면 새로 요청하지 않고 그 결과를 함께 기다린다
+// - batching : window 동안(또는 maxBatchSize 개까지) 들어온 서로 다른 key 를 모아
+//   BatchLoadFunction 한 번으로 읽고 결과를 기다리던 스레드들에게 나눠준다
+// - 결과를 보관하지 않는다 (캐시가 아님). 읽기가 끝나면 다음 요청은 다시 읽는다
+public final class BatchLoader<K, V> {
+
+    private final BatchLoadFunction<K, V> loadFunction;
+    private final int maxBatchSize;
+    private final Duration window;
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private Batch<K, V> current; // lock 으로 보호
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder loadedKeys = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+
+    private static final class Batch<K, V> {
+        final Map<K, CompletableFuture<V>> entries = new LinkedHashMap<>();
+        // 아래는 lock 으로 보호
+        Thread collector;
+        boolean dispatching;
+    }
+
+    private BatchLoader(Builder<K, V> builder) {
+        this.loadFunction = builder.loadFunction;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.window = builder.window;
+    }
+
+    public static <K, V> Builder<K, V> builder(BatchLoadFunction<K, V> loadFunction) {
+        return new Builder<>(loadFunction);
+    }
+
+    public static final class Builder<K, V> {
+        private final BatchLoadFunction<K, V> loadFunction;
+        private int maxBatchSize = 100;
+        private Duration window = Duration.ofMillis(1);
+
+        private Builder(BatchLoadFunction<K, V> loadFunction) {
+            this.loadFunction = loadFunction;
+        }
+
+        public Builder<K, V> maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize 는 1 이상이어야 합니다");
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        // 첫 key 가 들어온 뒤 다른 key 를 모으는 시간
+        public Builder<K, V> window(Duration window) {
+            this.window = window;
+            return this;
+        }
+
+        public BatchLoader<K, V> build() {
+            return new BatchLoader<>(this);
+        }
+    }
+
+    // ---- 요청 ----
+
+    public CompletableFuture<V> loadAsync(K key) {
+        requests.increment();
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+        // 완료되면 in-flight 에서 빠진다 (다음 요청은 새로 읽음)
+        created.whenComplete((_, _) -> inFlight.remove(key, created));
+        enqueue(key, created);
+        return created;
+    }
+
+    public V load(K key) throws Exception {
+        return await(loadAsync(key));
+    }
+
+    // 여러 key 를 요청하고 모두 기다린다 (요청한 순서대로)
+    public Map<K, V> loadAll(Collection<K> keys) throws Exception {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            futures.computeIfAbsent(key, this::loadAsync);
+        }
+        Map<K, V> result = new LinkedHashMap<>();
+        for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+            result.put(entry.getKey(), await(entry.getValue()));
+        }
+        return result;
+    }
+
+    // Deadline 이 바인딩되어 있으면 남은 예산까지만 기다린다
+    // 읽기 자체는 같은 key 를 기다리는 다른 호출자와 공유하므로 취소하지 않는다
+    private static <V> V await(CompletableFuture<V> future) throws Exception {
+        try {
+            if (!Deadline.CURRENT.isBound()) {
+                return future.get();
+            }
+            return future.get(Deadline.CURRENT.get().remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("읽기를 기다리다 deadline 이 지났습니다");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // ---- 배치 ----
+
+    // 배치마다 가상 스레드 하나(collector)가 window 동안 기다렸다가 읽는다
+    // maxBatchSize 에 먼저 도달하면 collector 를 인터럽트해서 바로 읽게 한다
+    private void enqueue(K key, CompletableFuture<V> future) {
+        lock.lock();
+        try {
+            if (current == null) {
+                Batch<K, V> batch = new Batch<>();
+                current = batch;
+                batch.collector = Thread.ofVirtual().name("batch-loader").start(() -> collect(batch));
+            }
+            current.entries.put(key, future);
+            if (current.entries.size() >= maxBatchSize) {
+                Batch<K, V> full = current;
+                current = null;
+                if (!full.dispatching) {
+                    full.collector.interrupt();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void collect(Batch<K, V> batch) {
+        try {
+            Thread.sleep(window); // 가상 스레드라 sleep 비용이 작다
+        } catch (InterruptedException e) {
+            // maxBatchSize 에 도달 : window 를 기다리지 않는다
+        }
+        lock.lock();
+        try {
+            if (current == batch) {
+                current = null;
+            }
+            batch.dispatching = true; // 이후로는 인터럽트하지 않는다
+            Thread.interrupted(); // sleep 이 끝난 직후에 도착한 인터럽트는 지운다
+        } finally {
+            lock.unlock();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        batches.increment();
+        loadedKeys.add(batch.entries.size());
+        long start = System.nanoTime();
+        Map<K, V> values;
+        try {
+            values = loadFunction.load(Collections.unmodifiableSet(batch.entries.keySet()));
+        } catch (Throwable e) {
+            loadLatency.record(System.nanoTime() - start);
+            batch.entries.values().forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        loadLatency.record(System.nanoTime() - start);
+        for (Map.Entry<K, CompletableFuture<V>> entry : batch.entries.entrySet()) {
+            entry.getValue().complete(values == null ? null : values.get(entry.getKey()));
+        }
+    }
+
+    // ---- 상태 ----
+
+    public long requestCount() {
+        return requests.sum();
+    }
+
+    // 이미 읽고 있던 key 에 합쳐진 요청 수
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    // BatchLoadFunction 호출 수
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    public long loadedKeyCount() {
+        return loadedKeys.sum();
+    }
+
+    public LatencyHistogram loadLatency() {
+        return loadLatency;
+    }
+}
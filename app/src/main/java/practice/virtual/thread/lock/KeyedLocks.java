@@ -0,0 +1,268 @@
+package practice.virtual.thread.lock;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import practice.virtual.thread.deadline.Deadline;
+
+// key(문서 id, 계좌 번호 ...) 단위 상호 배제
+// synchronized (this) 하나로 모든 요청을 줄 세우지도, check-then-act 경쟁을 그대로 두지도 않도록 한다
+//
+// - 고정된 수(stripes, 2의 거듭제곱)의 ReentrantReadWriteLock 배열에 key 의 hash 로 나눠 담는다
+//   key 마다 lock 을 만들고 지우는 비용이 없고 메모리도 stripes 개로 고정
+//   (서로 다른 key 가 같은 stripe 에 걸리면 함께 기다린다 : stripes 는 동시 key 수보다 넉넉하게)
+// - withLock : 쓰기(배타) / withReadLock : 읽기(공유)
+// - 대기는 timeout 까지만 (Deadline 이 바인딩되어 있으면 남은 예산과 timeout 중 짧은 쪽)
+//   넘으면 LockTimeoutException
+// - stripe 별 획득 수, 경합 수(바로 얻지 못한 횟수), timeout 수, 누적 대기 시간
+// - ReentrantReadWriteLock 대기는 park 이므로 가상 스레드는 unmount 된다
+//
+// 주의 : 읽기 lock 을 가진 채로 같은 stripe 의 쓰기 lock 을 얻으려 하면 (upgrade) 풀리지 않고
+//        timeout 까지 기다린 뒤 LockTimeoutException 으로 끝난다
+//        여러 key 를 함께 잠글 때는 lockAll 로 stripe 순서대로 잡아야 교착이 없다
+public final class KeyedLocks {
+
+    public enum Mode { READ, WRITE }
+
+    public record StripeStats(int stripe, long acquired, long contended, long timedOut, Duration waitTime,
+            int queueLength) {
+
+        public double contentionRate() {
+            return acquired == 0 ? 0.0 : (double) contended / acquired;
+        }
+    }
+
+    // 획득한 lock. close 하면 푼다
+    public static final class Guard implements AutoCloseable {
+        private final List<Lock> locks;
+        private boolean released;
+
+        private Guard(List<Lock> locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (int i = locks.size() - 1; i >= 0; i--) {
+                locks.get(i).unlock();
+            }
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final long timeoutNanos;
+
+    private KeyedLocks(Builder builder) {
+        this.stripes = new Stripe[builder.stripes];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(i, builder.fair);
+        }
+        this.mask = builder.stripes - 1;
+        this.timeoutNanos = builder.timeout.toNanos();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private int stripes = 256;
+        private Duration timeout = Duration.ofSeconds(5);
+        private boolean fair;
+
+        private Builder() {}
+
+        // 2의 거듭제곱으로 올림
+        public Builder stripes(int stripes) {
+            if (stripes <= 0 || stripes > (1 << 30)) {
+                throw new IllegalArgumentException("stripes 는 1 이상 2^30 이하여야 합니다");
+            }
+            this.stripes = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+            return this;
+        }
+
+        public Builder timeout(Duration timeout) {
+            if (timeout.isNegative()) {
+                throw new IllegalArgumentException("timeout 은 0 이상이어야 합니다");
+            }
+            this.timeout = timeout;
+            return this;
+        }
+
+        // 공정 모드 : 오래 기다린 순서대로 (처리량은 조금 줄고 꼬리 지연은 줄어든다)
+        public Builder fair(boolean fair) {
+            this.fair = fair;
+            return this;
+        }
+
+        public KeyedLocks build() {
+            return new KeyedLocks(this);
+        }
+    }
+
+    private static final class Stripe {
+        final int index;
+        final ReentrantReadWriteLock lock;
+        final LongAdder acquired = new LongAdder();
+        final LongAdder contended = new LongAdder();
+        final LongAdder timedOut = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+
+        Stripe(int index, boolean fair) {
+            this.index = index;
+            this.lock = new ReentrantReadWriteLock(fair);
+        }
+
+        Lock lock(Mode mode) {
+            return mode == Mode.READ ? lock.readLock() : lock.writeLock();
+        }
+    }
+
+    // ---- 획득 ----
+
+    public void withLock(Object key, Runnable task) {
+        try (Guard _ = lock(key, Mode.WRITE)) {
+            task.run();
+        }
+    }
+
+    public <T> T withLock(Object key, Supplier<T> task) {
+        try (Guard _ = lock(key, Mode.WRITE)) {
+            return task.get();
+        }
+    }
+
+    public <T> T withReadLock(Object key, Supplier<T> task) {
+        try (Guard _ = lock(key, Mode.READ)) {
+            return task.get();
+        }
+    }
+
+    public Guard lock(Object key, Mode mode) {
+        return lock(key, mode, timeoutNanos);
+    }
+
+    public Guard lock(Object key, Mode mode, Duration timeout) {
+        return lock(key, mode, timeout.toNanos());
+    }
+
+    private Guard lock(Object key, Mode mode, long timeoutNanos) {
+        Stripe stripe = stripeOf(key);
+        acquire(stripe, mode, key, System.nanoTime() + Deadline.clamp(timeoutNanos));
+        return new Guard(List.of(stripe.lock(mode)));
+    }
+
+    // 여러 key 를 한 번에 쓰기 lock (송금처럼 두 엔티티를 함께 바꿀 때)
+    // stripe 번호 순서로 잡으므로 호출자끼리 순서가 달라도 교착이 없다. 같은 stripe 는 한 번만 잡는다
+    public Guard lockAll(Iterable<?> keys) {
+        List<Stripe> ordered = new ArrayList<>();
+        for (Object key : keys) {
+            Stripe stripe = stripeOf(key);
+            if (!ordered.contains(stripe)) {
+                ordered.add(stripe);
+            }
+        }
+        ordered.sort(Comparator.comparingInt(stripe -> stripe.index));
+
+        long deadline = System.nanoTime() + Deadline.clamp(timeoutNanos);
+        List<Lock> held = new ArrayList<>(ordered.size());
+        try {
+            for (Stripe stripe : ordered) {
+                acquire(stripe, Mode.WRITE, keys, deadline);
+                held.add(stripe.lock(Mode.WRITE));
+            }
+        } catch (RuntimeException e) {
+            new Guard(held).close();
+            throw e;
+        }
+        return new Guard(held);
+    }
+
+    private void acquire(Stripe stripe, Mode mode, Object key, long deadline) {
+        Lock lock = stripe.lock(mode);
+        if (lock.tryLock()) {
+            stripe.acquired.increment();
+            return;
+        }
+        stripe.contended.increment();
+        long start = System.nanoTime();
+        boolean locked;
+        try {
+            locked = lock.tryLock(deadline - start, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            stripe.waitNanos.add(System.nanoTime() - start);
+            stripe.timedOut.increment();
+            Thread.currentThread().interrupt();
+            throw new LockTimeoutException(key + " lock 대기 중 인터럽트");
+        }
+        stripe.waitNanos.add(System.nanoTime() - start);
+        if (!locked) {
+            stripe.timedOut.increment();
+            throw new LockTimeoutException(key + " lock 대기 시간 초과 (" + mode + ")");
+        }
+        stripe.acquired.increment();
+    }
+
+    private Stripe stripeOf(Object key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    // ---- 통계 ----
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    public int stripeIndex(Object key) {
+        return stripeOf(key).index;
+    }
+
+    public StripeStats stats(int stripe) {
+        Stripe s = stripes[stripe];
+        return new StripeStats(s.index, s.acquired.sum(), s.contended.sum(), s.timedOut.sum(),
+                Duration.ofNanos(s.waitNanos.sum()), s.lock.getQueueLength());
+    }
+
+    public List<StripeStats> stats() {
+        List<StripeStats> result = new ArrayList<>(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            result.add(stats(i));
+        }
+        return result;
+    }
+
+    // 누적 대기 시간이 가장 긴 stripe (한 key 에 쓰기가 몰리는지, stripes 가 부족한지 확인)
+    public Optional<StripeStats> hottest() {
+        return stats().stream().filter(stats -> stats.contended() > 0)
+                .max(Comparator.comparing(StripeStats::waitTime));
+    }
+
+    public long contendedCount() {
+        long sum = 0;
+        for (Stripe stripe : stripes) {
+            sum += stripe.contended.sum();
+        }
+        return sum;
+    }
+
+    public long timedOutCount() {
+        long sum = 0;
+        for (Stripe stripe : stripes) {
+            sum += stripe.timedOut.sum();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,9 @@
+package practice.virtual.thread.lock;
+
+// 정해진 시간 안에 key 의 lock 을 얻지 못했다 (대기 중 인터럽트 포함)
+public class LockTimeoutException extends RuntimeException {
+
+    public LockTimeoutException(String message) {
+        super(message);
+    }
+}
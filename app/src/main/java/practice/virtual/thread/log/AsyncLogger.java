@@ -0,0 +1,378 @@
+package practice.virtual.thread.log;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// System.out.println 은 PrintStream 락을 잡고 호출한 스레드에서 바로 쓴다
+// 가상 스레드 수천 개가 로그를 남기면 모든 요청이 그 락 하나에 줄을 선다
+//
+// AsyncLogger 는 호출한 스레드에서는 링 버퍼 슬롯에 (템플릿, 인자, 태그) 만 기록하고
+// 소비자 스레드 하나가 모아서 포맷팅한 뒤 FileChannel 로 한 번에 쓴다
+// - 여러 생산자 / 한 소비자 링 버퍼 (슬롯마다 시퀀스 번호, 락 없음)
+// - 태그로 등록한 ScopedValue(TX_ID, TENANT_ID 등)는 바인딩되어 있으면 자동으로 붙는다
+// - 버퍼가 가득 찼을 때 : DROP(버리고 개수만 셈) / BLOCK(자리가 날 때까지 대기)
+// - 포맷팅 중 예외(인자의 toString 등)는 그 줄만 대체 문구로 남기고 센다 : 소비자가 죽으면 BLOCK 생산자가 모두 멈춘다
+// - close 이후의 로그는 버린 것으로 세고, close 는 이미 자리를 잡은 로그까지 모두 쓴 뒤 끝난다
+public final class AsyncLogger implements AutoCloseable {
+
+    public enum WhenFull { DROP, BLOCK }
+
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // 소비자 스레드만 사용
+
+    private final long[] timestamps;
+    private final long[] threadIds;
+    private final String[] templates;
+    private final Object[] args0;
+    private final Object[] args1;
+    private final Object[] args2;
+    private final Object[][] moreArgs;
+    private final Object[] tagValues;
+
+    private final String[] tagNames;
+    private final ScopedValue<?>[] tagKeys;
+    private final WhenFull whenFull;
+    private final int batchSize;
+    private final FileChannel channel;
+    private final boolean closeChannel;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder formatErrors = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+    // closed 를 확인하고 슬롯을 공개하기까지 진행 중인 생산자 수 (소비자는 0 이 된 뒤에 끝낸다)
+    private final AtomicInteger publishing = new AtomicInteger();
+    private final AtomicLong written = new AtomicLong();
+    private final Thread consumer;
+    private volatile boolean closed;
+
+    private AsyncLogger(Builder builder) {
+        int size = Integer.highestOneBit(Math.max(2, builder.capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.timestamps = new long[size];
+        this.threadIds = new long[size];
+        this.templates = new String[size];
+        this.args0 = new Object[size];
+        this.args1 = new Object[size];
+        this.args2 = new Object[size];
+        this.moreArgs = new Object[size][];
+        this.tagNames = builder.tagNames.toArray(String[]::new);
+        this.tagKeys = builder.tagKeys.toArray(ScopedValue<?>[]::new);
+        this.tagValues = new Object[size * tagKeys.length];
+        this.whenFull = builder.whenFull;
+        this.batchSize = builder.batchSize;
+        this.channel = builder.channel;
+        this.closeChannel = builder.closeChannel;
+        this.consumer = Thread.ofPlatform().daemon().name("async-logger").start(this::drainLoop);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private int capacity = 8192;
+        private int batchSize = 256;
+        private WhenFull whenFull = WhenFull.BLOCK;
+        private final List<String> tagNames = new ArrayList<>();
+        private final List<ScopedValue<?>> tagKeys = new ArrayList<>();
+        private FileChannel channel;
+        private boolean closeChannel;
+
+        private Builder() {}
+
+        public Builder capacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder whenFull(WhenFull whenFull) {
+            this.whenFull = whenFull;
+            return this;
+        }
+
+        public Builder tag(String name, ScopedValue<?> key) {
+            tagNames.add(name);
+            tagKeys.add(key);
+            return this;
+        }
+
+        public Builder stdout() {
+            this.channel = new FileOutputStream(FileDescriptor.out).getChannel();
+            this.closeChannel = false;
+            return this;
+        }
+
+        public Builder file(Path path) {
+            try {
+                this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.closeChannel = true;
+            return this;
+        }
+
+        public Builder channel(FileChannel channel) {
+            this.channel = channel;
+            this.closeChannel = false;
+            return this;
+        }
+
+        public AsyncLogger build() {
+            if (channel == null) {
+                stdout();
+            }
+            return new AsyncLogger(this);
+        }
+    }
+
+    // ---- 생산자 (호출한 스레드) : 인자 3개까지는 가변 인자 배열을 만들지 않는다 ----
+
+    public void log(String template) {
+        publish(template, null, null, null, null);
+    }
+
+    public void log(String template, Object arg0) {
+        publish(template, arg0, null, null, null);
+    }
+
+    public void log(String template, Object arg0, Object arg1) {
+        publish(template, arg0, arg1, null, null);
+    }
+
+    public void log(String template, Object arg0, Object arg1, Object arg2) {
+        publish(template, arg0, arg1, arg2, null);
+    }
+
+    public void log(String template, Object... args) {
+        publish(template, null, null, null, args);
+    }
+
+    private void publish(String template, Object arg0, Object arg1, Object arg2, Object[] more) {
+        if (template == null) {
+            throw new IllegalArgumentException("로그 템플릿이 null 입니다");
+        }
+        publishing.incrementAndGet(); // closed 보다 먼저 : 종료하는 소비자가 이 로그를 놓치지 않도록
+        try {
+            long position = claim();
+            if (position < 0) {
+                dropped.increment();
+                return;
+            }
+            fill(position, template, arg0, arg1, arg2, more);
+        } finally {
+            publishing.decrementAndGet();
+        }
+    }
+
+    private void fill(long position, String template, Object arg0, Object arg1, Object arg2, Object[] more) {
+        int slot = (int) (position & mask);
+        timestamps[slot] = System.currentTimeMillis();
+        threadIds[slot] = Thread.currentThread().threadId();
+        templates[slot] = template;
+        args0[slot] = arg0;
+        args1[slot] = arg1;
+        args2[slot] = arg2;
+        moreArgs[slot] = more;
+        int base = slot * tagKeys.length;
+        for (int i = 0; i < tagKeys.length; i++) {
+            // ScopedValue.orElse 는 null 을 받지 않으므로 isBound 로 확인
+            tagValues[base + i] = tagKeys[i].isBound() ? tagKeys[i].get() : null;
+        }
+        sequences.set(slot, position + 1); // 소비자에게 공개
+    }
+
+    // 자리를 잡으면 position, 종료되었거나 DROP 정책에서 가득 찼으면 -1
+    private long claim() {
+        while (true) {
+            if (closed) {
+                return -1;
+            }
+            long position = tail.get();
+            int slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (difference < 0) { // 한 바퀴 앞선 슬롯을 소비자가 아직 비우지 못함
+                if (whenFull == WhenFull.DROP || Thread.currentThread().isInterrupted()) {
+                    return -1;
+                }
+                LockSupport.parkNanos(50_000); // 가상 스레드는 unmount 된다
+            }
+        }
+    }
+
+    // ---- 소비자 스레드 ----
+
+    private void drainLoop() {
+        StringBuilder batch = new StringBuilder(16 * 1024);
+        while (true) {
+            int count = drain(batch);
+            if (count > 0) {
+                write(batch, count);
+                continue;
+            }
+            // 진행 중인 생산자가 없고 자리를 잡은 로그를 모두 썼을 때만 끝낸다
+            if (closed && publishing.get() == 0 && head == tail.get()) {
+                return;
+            }
+            LockSupport.parkNanos(closed ? 50_000 : 1_000_000);
+        }
+    }
+
+    private int drain(StringBuilder batch) {
+        int count = 0;
+        while (count < batchSize) {
+            int slot = (int) (head & mask);
+            if (sequences.get(slot) != head + 1) {
+                break;
+            }
+            int mark = batch.length();
+            try {
+                format(slot, batch);
+            } catch (RuntimeException e) {
+                // 이 줄만 대체 문구로 : 슬롯은 아래에서 항상 돌려준다
+                batch.setLength(mark);
+                batch.append(Instant.ofEpochMilli(timestamps[slot])).append(" [#").append(threadIds[slot])
+                        .append("] (로그 포맷 실패: ").append(e.getClass().getName()).append(") ")
+                        .append(templates[slot]).append('\n');
+                formatErrors.increment();
+            }
+            clear(slot);
+            sequences.set(slot, head + mask + 1); // 다음 바퀴의 생산자에게 돌려줌
+            head++;
+            count++;
+        }
+        return count;
+    }
+
+    private void format(int slot, StringBuilder sb) {
+        sb.append(Instant.ofEpochMilli(timestamps[slot])).append(" [#").append(threadIds[slot])
+                .append(']');
+        int base = slot * tagKeys.length;
+        for (int i = 0; i < tagKeys.length; i++) {
+            Object value = tagValues[base + i];
+            if (value != null) {
+                sb.append(' ').append(tagNames[i]).append('=').append(value);
+            }
+        }
+        sb.append(' ');
+        String template = templates[slot];
+        Object[] more = moreArgs[slot];
+        int argIndex = 0;
+        int from = 0;
+        int placeholder;
+        while ((placeholder = template.indexOf("{}", from)) >= 0) {
+            sb.append(template, from, placeholder);
+            sb.append(more != null ? (argIndex < more.length ? more[argIndex] : "{}")
+                    : switch (argIndex) {
+                        case 0 -> args0[slot];
+                        case 1 -> args1[slot];
+                        case 2 -> args2[slot];
+                        default -> "{}";
+                    });
+            argIndex++;
+            from = placeholder + 2;
+        }
+        sb.append(template, from, template.length()).append('\n');
+    }
+
+    private void clear(int slot) {
+        templates[slot] = null;
+        args0[slot] = null;
+        args1[slot] = null;
+        args2[slot] = null;
+        moreArgs[slot] = null;
+        int base = slot * tagKeys.length;
+        for (int i = 0; i < tagKeys.length; i++) {
+            tagValues[base + i] = null;
+        }
+    }
+
+    private void write(StringBuilder batch, int count) {
+        ByteBuffer bytes = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+        batch.setLength(0);
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            writeFailures.increment();
+            dropped.add(count); // 쓰기에 실패한 배치는 버린 것으로 센다
+        }
+        written.set(head);
+    }
+
+    // ---- 상태 ----
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public long writtenCount() {
+        return written.get();
+    }
+
+    // 인자의 toString 등이 실패해서 대체 문구로 남긴 로그 수
+    public long formatErrorCount() {
+        return formatErrors.sum();
+    }
+
+    // 쓰기에 실패한 배치 수 (배치 안의 로그는 droppedCount 에 더해진다)
+    public long writeFailureCount() {
+        return writeFailures.sum();
+    }
+
+    // 지금까지 기록된 로그가 모두 쓰일 때까지 대기
+    public void flush() {
+        long target = tail.get();
+        while (written.get() < target && consumer.isAlive()) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+            if (closeChannel) {
+                channel.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package practice.virtual.thread.monitor;
+
+import java.time.Duration;
+
+// 같은 스택에서 발생한 pinning 을 모은 결과
+public record PinnedSite(String stackTrace, String reason, long count, long totalNanos,
+        long maxNanos) {
+
+    public Duration total() {
+        return Duration.ofNanos(totalNanos);
+    }
+
+    public Duration max() {
+        return Duration.ofNanos(maxNanos);
+    }
+}
@@ -0,0 +1,170 @@
+package practice.virtual.thread.monitor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+// JFR 이벤트를 프로세스 안에서 구독해 가상 스레드 pinning 을 실시간으로 찾는다
+// (외부 프로파일러 없이 동작)
+//
+// - jdk.VirtualThreadPinned : pin 된 채로 블로킹한 구간 (스택별로 시간 합산)
+// - jdk.VirtualThreadSubmitFailed : 스케줄러가 가상 스레드를 받지 못함
+// - jdk.VirtualThreadStart / End : 살아있는 가상 스레드 수 (기본으로 꺼져 있고 비용이 있으므로 선택)
+//
+// JDK 24 부터 synchronized 는 pin 되지 않지만 native 프레임, 클래스 초기화(<clinit>) 중
+// 블로킹은 여전히 캐리어 스레드를 점유한다
+public final class PinningMonitor implements AutoCloseable {
+
+    private static final int MAX_FRAMES = 16;
+
+    private final RecordingStream stream = new RecordingStream();
+    private final PinningStats stats;
+    private final LongAdder submitFailed = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder ended = new LongAdder();
+    private final AtomicLong peakLive = new AtomicLong();
+    private final boolean trackLifecycle;
+    private ScheduledExecutorService reporter;
+
+    private PinningMonitor(Duration threshold, boolean trackLifecycle) {
+        this.trackLifecycle = trackLifecycle;
+        this.stats = new PinningStats(Integer.getInteger("jdk.virtualThreadScheduler.parallelism",
+                Runtime.getRuntime().availableProcessors()));
+
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(threshold).withStackTrace();
+        stream.enable("jdk.VirtualThreadSubmitFailed").withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.onEvent("jdk.VirtualThreadSubmitFailed", _ -> submitFailed.increment());
+        if (trackLifecycle) {
+            stream.enable("jdk.VirtualThreadStart");
+            stream.enable("jdk.VirtualThreadEnd");
+            stream.onEvent("jdk.VirtualThreadStart", _ -> {
+                started.increment();
+                peakLive.accumulateAndGet(started.sum() - ended.sum(), Math::max);
+            });
+            stream.onEvent("jdk.VirtualThreadEnd", _ -> ended.increment());
+        }
+        // 디스크에 남는 JFR 청크는 짧게 유지
+        stream.setMaxAge(Duration.ofSeconds(30));
+    }
+
+    public static PinningMonitor start() {
+        return start(Duration.ofMillis(20), false);
+    }
+
+    public static PinningMonitor start(Duration threshold, boolean trackLifecycle) {
+        PinningMonitor monitor = new PinningMonitor(threshold, trackLifecycle);
+        monitor.stream.startAsync();
+        return monitor;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String reason = event.hasField("pinnedReason") ? event.getString("pinnedReason") : null;
+        stats.record(stackKey(event.getStackTrace()), reason, epochNanos(event.getStartTime()),
+                event.getDuration().toNanos());
+    }
+
+    static String stackKey(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "(스택 없음)";
+        }
+        return stackTrace.getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .limit(MAX_FRAMES)
+                .map(frame -> frame.getMethod().getType().getName() + "."
+                        + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n\tat ", "\tat ", ""));
+    }
+
+    private static long epochNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    // ---- 조회 API ----
+
+    // pin 된 시간 합계가 큰 순서
+    public List<PinnedSite> topOffenders(int limit) {
+        return stats.top(limit);
+    }
+
+    public long pinnedCount() {
+        return stats.pinnedCount();
+    }
+
+    public Duration pinnedTotal() {
+        return Duration.ofNanos(stats.pinnedNanos());
+    }
+
+    // 동시에 pin 된 가상 스레드 수가 캐리어 수 이상이었던 횟수
+    public long saturationCount() {
+        return stats.saturationCount();
+    }
+
+    public long submitFailedCount() {
+        return submitFailed.sum();
+    }
+
+    public long liveVirtualThreads() {
+        return started.sum() - ended.sum();
+    }
+
+    public long peakLiveVirtualThreads() {
+        return peakLive.get();
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder()
+                .append("[pinning] count=").append(pinnedCount())
+                .append(" total=").append(pinnedTotal().toMillis()).append("ms")
+                .append(" saturation=").append(saturationCount())
+                .append(" carriers=").append(stats.carriers())
+                .append(" submitFailed=").append(submitFailedCount());
+        if (trackLifecycle) {
+            sb.append(" live=").append(liveVirtualThreads())
+                    .append(" peakLive=").append(peakLiveVirtualThreads());
+        }
+        for (PinnedSite site : topOffenders(5)) {
+            sb.append("\n  ").append(site.total().toMillis()).append("ms / ")
+                    .append(site.count()).append("회 (max ").append(site.max().toMillis())
+                    .append("ms)");
+            if (site.reason() != null) {
+                sb.append(" reason=").append(site.reason());
+            }
+            sb.append('\n').append(site.stackTrace());
+        }
+        return sb.toString();
+    }
+
+    // 주기적으로 report() 를 sink 로 내보낸다
+    public synchronized void reportEvery(Duration interval, Consumer<String> sink) {
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("interval 은 0 보다 커야 합니다: " + interval);
+        }
+        if (reporter == null) {
+            reporter = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().daemon().name("pinning-report").factory());
+        }
+        // 나노초 단위로 넘겨야 1ms 미만 interval 이 주기 0 으로 잘리지 않는다
+        reporter.scheduleAtFixedRate(() -> sink.accept(report()), interval.toNanos(),
+                interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        stream.close();
+    }
+}
@@ -0,0 +1,97 @@
+package practice.virtual.thread.monitor;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// pinning 이벤트를 스택별로 집계하고, 동시에 pin 된 캐리어 수로 포화 여부를 센다
+// 이벤트는 RecordingStream 스레드 하나에서 들어오고 조회는 어느 스레드에서나 할 수 있다
+final class PinningStats {
+
+    // 포화 판정을 위해 최근 pinning 구간을 보관하는 개수
+    private static final int RECENT = 1024;
+
+    private final int carriers;
+    private final ConcurrentHashMap<String, Site> sites = new ConcurrentHashMap<>();
+    private final LongAdder pinned = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final LongAdder saturated = new LongAdder();
+    private final long[] recentStart = new long[RECENT];
+    private final long[] recentEnd = new long[RECENT];
+    private final ReentrantLock recentLock = new ReentrantLock();
+    private int recentCursor;
+
+    PinningStats(int carriers) {
+        this.carriers = carriers;
+    }
+
+    private static final class Site {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+        volatile String reason;
+    }
+
+    void record(String stackTrace, String reason, long startNanos, long durationNanos) {
+        Site site = sites.computeIfAbsent(stackTrace, _ -> new Site());
+        site.count.increment();
+        site.totalNanos.add(durationNanos);
+        site.maxNanos.accumulateAndGet(durationNanos, Math::max);
+        if (reason != null) {
+            site.reason = reason;
+        }
+        pinned.increment();
+        pinnedNanos.add(durationNanos);
+        trackSaturation(startNanos, startNanos + durationNanos);
+    }
+
+    // 이번 구간과 겹치는 최근 pinning 이 캐리어 수 이상이면 모든 캐리어가 묶였던 것으로 본다
+    private void trackSaturation(long start, long end) {
+        recentLock.lock();
+        try {
+            int overlapping = 1;
+            for (int i = 0; i < RECENT; i++) {
+                if (recentEnd[i] != 0 && recentStart[i] < end && start < recentEnd[i]) {
+                    overlapping++;
+                }
+            }
+            if (overlapping >= carriers) {
+                saturated.increment();
+            }
+            recentStart[recentCursor] = start;
+            recentEnd[recentCursor] = end;
+            recentCursor = (recentCursor + 1) % RECENT;
+        } finally {
+            recentLock.unlock();
+        }
+    }
+
+    List<PinnedSite> top(int limit) {
+        return sites.entrySet().stream()
+                .map(e -> new PinnedSite(e.getKey(), e.getValue().reason,
+                        e.getValue().count.sum(), e.getValue().totalNanos.sum(),
+                        e.getValue().maxNanos.get()))
+                .sorted(Comparator.comparingLong(PinnedSite::totalNanos).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    long pinnedCount() {
+        return pinned.sum();
+    }
+
+    long pinnedNanos() {
+        return pinnedNanos.sum();
+    }
+
+    long saturationCount() {
+        return saturated.sum();
+    }
+
+    int carriers() {
+        return carriers;
+    }
+}
@@ -0,0 +1,202 @@
+package practice.virtual.thread.observation;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// span 의 시작/종료 시각(nanoTime)을 미리 할당한 링 버퍼에 기록하고
+// span 이름별 지연시간을 LatencyHistogram 으로 모은다
+//
+// - span(name, task) : CURRENT ScopedValue 로 부모-자식 관계를 이어준다
+// - start() / end(name, start) : 자식이 없는 구간을 할당 없이 기록한다 (부모는 CURRENT 에서 읽음)
+// - span id 는 0 이 아닌 TraceIds.id64() (parentId 0 은 최상위 span)
+// - 링 버퍼가 한 바퀴 돌면 오래된 span 부터 덮어쓴다 (histogram 에는 모두 남는다)
+//   슬롯은 CAS 로 WRITING 을 걸고 쓴다. 한 바퀴 차이 나는 writer 가 같은 슬롯을 쓰고 있으면
+//   뒤에 온 쪽은 링 버퍼 기록을 건너뛴다 (두 기록이 섞이지 않도록)
+public final class SpanRecorder {
+
+    public static final ScopedValue<SpanContext> CURRENT = ScopedValue.newInstance();
+
+    public record SpanContext(long spanId, long parentId, int depth) {}
+
+    public record SpanRecord(String name, long spanId, long parentId, long startNanos,
+            long endNanos) {
+        public long durationNanos() {
+            return endNanos - startNanos;
+        }
+    }
+
+    // register 로 미리 받아 두면 기록할 때 이름으로 map 을 찾지 않는다
+    public static final class SpanName {
+        private final int id;
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private SpanName(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public LatencyHistogram histogram() {
+            return histogram;
+        }
+    }
+
+    private final ConcurrentHashMap<String, SpanName> names = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<SpanName> namesById;
+    private final AtomicLong nextNameId = new AtomicLong();
+
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    private final int[] nameIds;
+    private final long[] spanIds;
+    private final long[] parentIds;
+    private final long[] starts;
+    private final long[] ends;
+    // 슬롯에 기록을 마친 시퀀스 번호 (읽는 쪽에서 덮어쓰기 중인 슬롯을 걸러낸다)
+    private static final long EMPTY = -1;
+    private static final long WRITING = -2;
+    private final AtomicLongArray published;
+
+    public SpanRecorder(int capacity) {
+        this(capacity, 1024);
+    }
+
+    public SpanRecorder(int capacity, int maxNames) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.nameIds = new int[size];
+        this.spanIds = new long[size];
+        this.parentIds = new long[size];
+        this.starts = new long[size];
+        this.ends = new long[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, EMPTY);
+        }
+        this.namesById = new AtomicReferenceArray<>(maxNames);
+    }
+
+    public SpanName register(String name) {
+        return names.computeIfAbsent(name, n -> {
+            int id = (int) nextNameId.getAndIncrement();
+            if (id >= namesById.length()) {
+                throw new IllegalStateException(
+                        "span 이름은 " + namesById.length() + "개까지 등록할 수 있습니다");
+            }
+            SpanName spanName = new SpanName(id, n);
+            namesById.set(id, spanName);
+            return spanName;
+        });
+    }
+
+    // ---- 기록 ----
+
+    public void span(SpanName name, Runnable task) {
+        SpanContext context = child();
+        long start = System.nanoTime();
+        try {
+            ScopedValue.where(CURRENT, context).run(task);
+        } finally {
+            record(name, context.spanId(), context.parentId(), start, System.nanoTime());
+        }
+    }
+
+    public <T> T call(SpanName name, Callable<T> task) throws Exception {
+        SpanContext context = child();
+        long start = System.nanoTime();
+        try {
+            return ScopedValue.where(CURRENT, context).call(task::call);
+        } finally {
+            record(name, context.spanId(), context.parentId(), start, System.nanoTime());
+        }
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void end(SpanName name, long startNanos) {
+        long parentId = CURRENT.isBound() ? CURRENT.get().spanId() : 0;
+        record(name, TraceIds.id64(), parentId, startNanos,
+                System.nanoTime());
+    }
+
+    private SpanContext child() {
+        long spanId = TraceIds.id64();
+        if (CURRENT.isBound()) {
+            SpanContext parent = CURRENT.get();
+            return new SpanContext(spanId, parent.spanId(), parent.depth() + 1);
+        }
+        return new SpanContext(spanId, 0, 0);
+    }
+
+    private void record(SpanName name, long spanId, long parentId, long start, long end) {
+        name.histogram.record(end - start);
+
+        long sequence = cursor.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        long previous = published.get(slot);
+        if (previous == WRITING || previous > sequence || !published.compareAndSet(slot, previous, WRITING)) {
+            return; // 다른 writer 가 쓰는 중이거나 이미 더 최근 기록이 있다
+        }
+        // CAS 뒤의 필드 쓰기가 WRITING 보다 먼저 보이지 않도록 (읽는 쪽이 옛 시퀀스와 새 필드를 함께 보지 않게)
+        VarHandle.storeStoreFence();
+        nameIds[slot] = name.id;
+        spanIds[slot] = spanId;
+        parentIds[slot] = parentId;
+        starts[slot] = start;
+        ends[slot] = end;
+        published.set(slot, sequence);
+    }
+
+    // ---- 조회 (조회하는 쪽에서만 할당) ----
+
+    public LatencyHistogram histogram(String name) {
+        SpanName spanName = names.get(name);
+        return spanName == null ? new LatencyHistogram() : spanName.histogram;
+    }
+
+    // 이름별 히스토그램 복사본 (다른 recorder 의 결과와 merge 할 때 사용)
+    public Map<String, LatencyHistogram> histograms() {
+        Map<String, LatencyHistogram> result = new LinkedHashMap<>();
+        for (int i = 0; i < nextNameId.get() && i < namesById.length(); i++) {
+            SpanName spanName = namesById.get(i);
+            if (spanName != null) {
+                result.put(spanName.name, spanName.histogram.copy());
+            }
+        }
+        return result;
+    }
+
+    // 가장 최근에 기록된 span 부터 최대 limit 개
+    public List<SpanRecord> recent(int limit) {
+        List<SpanRecord> result = new ArrayList<>();
+        long last = cursor.get() - 1;
+        for (long sequence = last; sequence >= 0 && sequence > last - mask - 1
+                && result.size() < limit; sequence--) {
+            int slot = (int) (sequence & mask);
+            if (published.get(slot) != sequence) {
+                continue; // 덮어쓰는 중이거나 이미 덮어쓴 슬롯
+            }
+            SpanRecord record = new SpanRecord(namesById.get(nameIds[slot]).name, spanIds[slot],
+                    parentIds[slot], starts[slot], ends[slot]);
+            VarHandle.loadLoadFence(); // 필드를 다 읽은 뒤에 다시 확인 : 그 사이 덮어쓰기가 시작됐으면 버린다
+            if (published.get(slot) == sequence) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+package practice.virtual.thread.observation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 추적(trace) / 트랜잭션 ID 생성기
+// UUID.randomUUID() 는 공유 SecureRandom 을 거치고 여러 객체를 만든다
+// 여기서는 스레드마다 따로 가진 ThreadLocalRandom 상태(가상 스레드 포함)를 쓰므로 락이 없다
+//
+// - id64 : 0 이 아닌 64bit 난수 (span / parent id)
+// - UUIDv7 : 앞 48bit 가 unix ms 인 시간순 정렬 가능한 128bit ID
+// - traceparent : W3C Trace Context 형식 "00-<32 hex trace-id>-<16 hex parent-id>-<2 hex flags>"
+// - encode* : 호출한 쪽이 준 byte[] 에 ASCII 로 기록 (할당 없음)
+public final class TraceIds {
+
+    public static final int UUID_LENGTH = 36;
+    public static final int TRACE_ID_LENGTH = 32;
+    public static final int TRACEPARENT_LENGTH = 55;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private TraceIds() {}
+
+    public static long id64() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0); // W3C: 모두 0 인 ID 는 사용할 수 없다
+        return id;
+    }
+
+    // ---- UUIDv7 (RFC 9562) ----
+
+    public static long uuidV7Msb(long epochMillis) {
+        long randA = ThreadLocalRandom.current().nextLong() & 0xFFFL;
+        return (epochMillis << 16) | 0x7000L | randA;
+    }
+
+    public static long uuidV7Lsb() {
+        return (ThreadLocalRandom.current().nextLong() & 0x3FFF_FFFF_FFFF_FFFFL)
+                | 0x8000_0000_0000_0000L;
+    }
+
+    public static UUID uuidV7() {
+        return new UUID(uuidV7Msb(System.currentTimeMillis()), uuidV7Lsb());
+    }
+
+    public static String uuidV7String() {
+        byte[] buffer = new byte[UUID_LENGTH];
+        encodeUuid(uuidV7Msb(System.currentTimeMillis()), uuidV7Lsb(), buffer, 0);
+        return new String(buffer, StandardCharsets.ISO_8859_1);
+    }
+
+    // ---- W3C traceparent ----
+
+    // 128bit trace-id 를 32자리 hex 로 (UUIDv7 과 같은 배치라 시간순으로 정렬된다)
+    public static String traceIdHex() {
+        byte[] buffer = new byte[TRACE_ID_LENGTH];
+        int offset = encodeHex(uuidV7Msb(System.currentTimeMillis()), buffer, 0);
+        encodeHex(uuidV7Lsb(), buffer, offset);
+        return new String(buffer, StandardCharsets.ISO_8859_1);
+    }
+
+    public static String traceparent(boolean sampled) {
+        byte[] buffer = new byte[TRACEPARENT_LENGTH];
+        encodeTraceparent(uuidV7Msb(System.currentTimeMillis()), uuidV7Lsb(), id64(), sampled,
+                buffer, 0);
+        return new String(buffer, StandardCharsets.ISO_8859_1);
+    }
+
+    // ---- 할당 없는 인코딩 (반환값은 다음에 쓸 offset) ----
+
+    public static int encodeUuid(long msb, long lsb, byte[] dst, int offset) {
+        int i = offset;
+        i = encodeHex(msb >>> 32, 8, dst, i);
+        dst[i++] = '-';
+        i = encodeHex(msb >>> 16, 4, dst, i);
+        dst[i++] = '-';
+        i = encodeHex(msb, 4, dst, i);
+        dst[i++] = '-';
+        i = encodeHex(lsb >>> 48, 4, dst, i);
+        dst[i++] = '-';
+        return encodeHex(lsb, 12, dst, i);
+    }
+
+    public static int encodeTraceparent(long traceIdHigh, long traceIdLow, long parentId,
+            boolean sampled, byte[] dst, int offset) {
+        int i = offset;
+        dst[i++] = '0';
+        dst[i++] = '0';
+        dst[i++] = '-';
+        i = encodeHex(traceIdHigh, dst, i);
+        i = encodeHex(traceIdLow, dst, i);
+        dst[i++] = '-';
+        i = encodeHex(parentId, dst, i);
+        dst[i++] = '-';
+        dst[i++] = '0';
+        dst[i++] = sampled ? (byte) '1' : (byte) '0';
+        return i;
+    }
+
+    public static int encodeHex(long value, byte[] dst, int offset) {
+        return encodeHex(value, 16, dst, offset);
+    }
+
+    // value 의 하위 digits 자리(4bit 씩)를 소문자 hex 로 기록
+    private static int encodeHex(long value, int digits, byte[] dst, int offset) {
+        for (int i = digits - 1; i >= 0; i--) {
+            dst[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return offset + digits;
+    }
+}
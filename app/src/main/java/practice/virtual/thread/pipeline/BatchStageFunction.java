@@ -0,0 +1,11 @@
+package practice.virtual.thread.pipeline;
+
+import java.util.List;
+
+// 모인 항목을 한 번에 처리하는 단계
+// 결과는 items 와 같은 순서, 같은 개수로 반환한다
+@FunctionalInterface
+public interface BatchStageFunction<T, R> {
+
+    List<R> apply(List<T> items) throws Exception;
+}
@@ -0,0 +1,409 @@
+package practice.virtual.thread.pipeline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import practice.virtual.thread.context.ContextPropagator;
+import practice.virtual.thread.context.ContextSnapshot;
+import practice.virtual.thread.deadline.Deadline;
+import practice.virtual.thread.deadline.DeadlineExceededException;
+import practice.virtual.thread.observation.LatencyHistogram;
+
+// 여러 단계(validate → enrich → price → persist)를 이어서 처리하는 파이프라인
+// 요청마다 단계를 순서대로 호출하는 대신 단계마다 워커를 두면 서로 다른 요청의 단계가 겹쳐서 처리된다
+//
+// - 단계마다 가상 스레드 워커 concurrency 개. 단계 코드는 평범한 블로킹 코드
+// - 단계 사이는 크기가 정해진 큐 : 뒤 단계가 느리면 앞 단계의 put 이 막히고 결국 submit 이 막힌다 (backpressure)
+// - batchStage : maxBatchSize 개 또는 linger 동안 모아서 한 번에 처리 (예: persist 를 한 번의 insert 로)
+// - submit 한 스레드의 ScopedValue(TX_ID, TENANT_ID 등)는 항목과 함께 이동하고 단계마다 다시 바인딩된다
+//   batchStage 의 함수는 여러 요청의 항목을 함께 다루므로 맥락 없이 실행되고, 다음 단계에서 다시 바인딩된다
+// - concurrency 가 1 보다 크면 결과 순서는 submit 순서와 다를 수 있다
+// - submit 한 스레드에 Deadline 이 바인딩되어 있으면
+//   지난 항목은 받지 않고, 첫 단계 큐의 자리와 process 의 결과는 남은 예산까지만 기다린다
+//   단계마다 시작 전에 지났으면 처리하지 않고 DeadlineExceededException 으로 끝내며, 단계 함수에는 같은 Deadline 을 바인딩한다
+//
+//  Pipeline<Order, Receipt> pipeline = Pipeline.<Order>builder(propagator)
+//          .stage("validate", 4, this::validate)
+//          .stage("price", 8, this::price)
+//          .batchStage("persist", 2, 50, Duration.ofMillis(5), repository::saveAll)
+//          .build();
+public final class Pipeline<I, O> implements AutoCloseable {
+
+    // 단계 사이를 이동하는 항목 : 값 + 맥락 + 최종 결과
+    private static final class Envelope {
+        Object value;
+        final ContextSnapshot context;
+        final Deadline deadline; // 없으면 null
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Envelope(Object value, ContextSnapshot context, Deadline deadline) {
+            this.value = value;
+            this.context = context;
+            this.deadline = deadline;
+        }
+
+        boolean isExpired() {
+            return deadline != null && deadline.isExpired();
+        }
+    }
+
+    // close 가 단계마다 워커 수만큼 넣는 종료 신호. 앞 단계가 모두 끝난 뒤에 넣으므로 남은 항목보다 뒤에 선다
+    private static final Envelope POISON = new Envelope(null, null, null);
+
+    private final ContextPropagator propagator;
+    private final List<Stage> stages;
+    // submit 은 읽기 lock 을 잡고 closed 확인 + 첫 단계 큐에 넣기를 한 번에 한다
+    // close 는 쓰기 lock 으로 closed 를 바꾸므로, 그 뒤에 큐에 들어오는 항목은 없다
+    private final ReentrantReadWriteLock submitLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    private Pipeline(ContextPropagator propagator, List<StageSpec> specs) {
+        this.propagator = propagator;
+        List<Stage> built = new ArrayList<>(specs.size());
+        for (StageSpec spec : specs) {
+            built.add(new Stage(spec));
+        }
+        for (int i = 0; i < built.size() - 1; i++) {
+            built.get(i).next = built.get(i + 1);
+        }
+        this.stages = List.copyOf(built);
+        stages.forEach(Stage::start);
+    }
+
+    public static <I> Builder<I, I> builder() {
+        return builder(ContextPropagator.of());
+    }
+
+    // propagator 에 등록한 ScopedValue 가 항목과 함께 이동한다
+    public static <I> Builder<I, I> builder(ContextPropagator propagator) {
+        return new Builder<>(propagator, new ArrayList<>(), 256);
+    }
+
+    private record StageSpec(String name, int concurrency, int queueCapacity, StageFunction<Object, Object> function,
+            BatchStageFunction<Object, Object> batchFunction, int maxBatchSize, long lingerNanos) {}
+
+    // 단계를 추가할 때마다 출력 타입(T)이 바뀐다
+    public static final class Builder<I, T> {
+        private final ContextPropagator propagator;
+        private final List<StageSpec> specs;
+        private int queueCapacity;
+
+        private Builder(ContextPropagator propagator, List<StageSpec> specs, int queueCapacity) {
+            this.propagator = propagator;
+            this.specs = specs;
+            this.queueCapacity = queueCapacity;
+        }
+
+        // 이후에 추가하는 단계의 입력 큐 크기 (기본 256)
+        public Builder<I, T> queueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("queueCapacity 는 1 이상이어야 합니다");
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <R> Builder<I, R> stage(String name, int concurrency, StageFunction<? super T, ? extends R> function) {
+            checkConcurrency(concurrency);
+            specs.add(new StageSpec(name, concurrency, queueCapacity, (StageFunction<Object, Object>) function,
+                    null, 1, 0));
+            return new Builder<>(propagator, specs, queueCapacity);
+        }
+
+        @SuppressWarnings("unchecked")
+        public <R> Builder<I, R> batchStage(String name, int concurrency, int maxBatchSize, Duration linger,
+                BatchStageFunction<T, R> function) {
+            checkConcurrency(concurrency);
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize 는 1 이상이어야 합니다");
+            }
+            specs.add(new StageSpec(name, concurrency, queueCapacity, null,
+                    (BatchStageFunction<Object, Object>) (BatchStageFunction<?, ?>) function, maxBatchSize,
+                    linger.toNanos()));
+            return new Builder<>(propagator, specs, queueCapacity);
+        }
+
+        private static void checkConcurrency(int concurrency) {
+            if (concurrency <= 0) {
+                throw new IllegalArgumentException("concurrency 는 1 이상이어야 합니다");
+            }
+        }
+
+        public Pipeline<I, T> build() {
+            if (specs.isEmpty()) {
+                throw new IllegalArgumentException("단계가 하나 이상 있어야 합니다");
+            }
+            return new Pipeline<>(propagator, List.copyOf(specs));
+        }
+    }
+
+    // ---- 제출 ----
+
+    // 첫 단계의 큐가 가득 차 있으면 자리가 날 때까지 기다린다 (가상 스레드는 unmount 됨)
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<O> submit(I item) {
+        Envelope envelope = new Envelope(item, propagator.capture(), Deadline.current().orElse(null));
+        if (envelope.isExpired()) {
+            throw new RejectedExecutionException("deadline 이 지나 항목을 받지 않습니다");
+        }
+        submitLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("pipeline 이 종료되었습니다");
+            }
+            if (envelope.deadline == null) {
+                stages.getFirst().queue.put(envelope);
+            } else if (!stages.getFirst().queue.offer(envelope, envelope.deadline.remainingNanos(),
+                    TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("deadline 안에 첫 단계 큐에 자리가 나지 않았습니다");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("대기 중 인터럽트", e);
+        } finally {
+            submitLock.readLock().unlock();
+        }
+        return (CompletableFuture<O>) (CompletableFuture<?>) envelope.result;
+    }
+
+    // 모든 단계를 통과할 때까지 기다린다 (Deadline 이 바인딩되어 있으면 남은 예산까지만)
+    public O process(I item) throws Exception {
+        CompletableFuture<O> result = submit(item);
+        try {
+            if (!Deadline.CURRENT.isBound()) {
+                return result.get();
+            }
+            return result.get(Deadline.clamp(Long.MAX_VALUE), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("pipeline 처리가 deadline 안에 끝나지 않았습니다");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // ---- 단계 ----
+
+    private static final class Stage {
+        final StageSpec spec;
+        final BlockingQueue<Envelope> queue;
+        final List<Thread> workers = new ArrayList<>();
+        Stage next;
+
+        final LongAdder processed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder busyNanos = new LongAdder();
+        final LatencyHistogram serviceTime = new LatencyHistogram();
+        long startNanos;
+
+        Stage(StageSpec spec) {
+            this.spec = spec;
+            this.queue = new ArrayBlockingQueue<>(spec.queueCapacity());
+        }
+
+        void start() {
+            startNanos = System.nanoTime();
+            for (int i = 0; i < spec.concurrency(); i++) {
+                workers.add(Thread.ofVirtual().name("pipeline-" + spec.name() + "-" + i).start(this::work));
+            }
+        }
+
+        private void work() {
+            List<Envelope> batch = new ArrayList<>(spec.maxBatchSize());
+            while (true) {
+                try {
+                    Envelope first = queue.take();
+                    if (first == POISON) {
+                        return;
+                    }
+                    batch.add(first);
+                    if (spec.batchFunction() == null) {
+                        handle(first);
+                    } else {
+                        boolean stop = fill(batch);
+                        handle(batch);
+                        if (stop) {
+                            return;
+                        }
+                    }
+                    batch.clear();
+                } catch (InterruptedException e) {
+                    // close 를 기다리지 않고 중단된 경우 : 들고 있던 항목은 실패로 끝낸다
+                    batch.forEach(envelope -> envelope.result.completeExceptionally(e));
+                    return;
+                }
+            }
+        }
+
+        // 이미 쌓여 있는 것은 기다리지 않고 가져오고, 모자라면 linger 까지 기다린다
+        // 종료 신호를 만나면 true : 모은 것까지 처리하고 끝낸다 (워커마다 신호 하나씩만 가져가도록 drainTo 는 쓰지 않는다)
+        private boolean fill(List<Envelope> batch) throws InterruptedException {
+            long deadline = System.nanoTime() + spec.lingerNanos();
+            while (batch.size() < spec.maxBatchSize()) {
+                Envelope next = queue.poll();
+                if (next == null) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        return false;
+                    }
+                }
+                if (next == POISON) {
+                    return true;
+                }
+                batch.add(next);
+            }
+            return false;
+        }
+
+        private void handle(Envelope envelope) throws InterruptedException {
+            if (expire(envelope)) {
+                return;
+            }
+            long start = System.nanoTime();
+            Object output;
+            try {
+                output = envelope.context.call(() -> envelope.deadline == null
+                        ? spec.function().apply(envelope.value)
+                        : envelope.deadline.call(() -> spec.function().apply(envelope.value)));
+            } catch (Exception e) {
+                record(start, 1, 1);
+                envelope.result.completeExceptionally(e);
+                return;
+            }
+            record(start, 1, 0);
+            envelope.value = output;
+            forward(envelope);
+        }
+
+        private void handle(List<Envelope> batch) throws InterruptedException {
+            batch.removeIf(this::expire);
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Object> values = new ArrayList<>(batch.size());
+            for (Envelope envelope : batch) {
+                values.add(envelope.value);
+            }
+            long start = System.nanoTime();
+            List<Object> outputs;
+            try {
+                outputs = spec.batchFunction().apply(values);
+                if (outputs == null || outputs.size() != batch.size()) {
+                    throw new IllegalStateException(spec.name() + " 단계는 항목 수(" + batch.size()
+                            + ")만큼 결과를 반환해야 합니다");
+                }
+            } catch (Exception e) {
+                record(start, batch.size(), batch.size());
+                batch.forEach(envelope -> envelope.result.completeExceptionally(e));
+                return;
+            }
+            record(start, batch.size(), 0);
+            for (int i = 0; i < batch.size(); i++) {
+                Envelope envelope = batch.get(i);
+                envelope.value = outputs.get(i);
+                forward(envelope);
+            }
+        }
+
+        // 단계를 시작하기 전에 deadline 이 지난 항목은 처리하지 않고 끝낸다
+        private boolean expire(Envelope envelope) {
+            if (!envelope.isExpired()) {
+                return false;
+            }
+            processed.increment();
+            failed.increment();
+            envelope.result.completeExceptionally(
+                    new DeadlineExceededException(spec.name() + " 단계 시작 전에 deadline 이 지났습니다"));
+            return true;
+        }
+
+        private void record(long start, int items, int failures) {
+            long elapsed = System.nanoTime() - start;
+            busyNanos.add(elapsed);
+            serviceTime.record(elapsed);
+            processed.add(items);
+            failed.add(failures);
+        }
+
+        // 다음 단계 큐가 가득 차 있으면 여기서 기다린다 : backpressure 가 앞 단계로 전달된다
+        private void forward(Envelope envelope) throws InterruptedException {
+            if (next == null) {
+                envelope.result.complete(envelope.value);
+            } else {
+                next.queue.put(envelope);
+            }
+        }
+
+        StageStats stats() {
+            long elapsed = Math.max(1, System.nanoTime() - startNanos);
+            double utilization = Math.min(1.0, (double) busyNanos.sum() / ((double) elapsed * spec.concurrency()));
+            return new StageStats(spec.name(), spec.concurrency(), queue.size(), spec.queueCapacity(),
+                    processed.sum(), failed.sum(), utilization, serviceTime);
+        }
+    }
+
+    // ---- 상태 ----
+
+    public List<StageStats> stats() {
+        return stages.stream().map(Stage::stats).toList();
+    }
+
+    // utilization 이 가장 높은 단계
+    public StageStats bottleneck() {
+        return stats().stream().max(Comparator.comparingDouble(StageStats::utilization)).orElseThrow();
+    }
+
+    // 더 받지 않고, 앞 단계부터 순서대로 남은 항목을 모두 처리한 뒤 끝낸다
+    @Override
+    public void close() {
+        submitLock.writeLock().lock(); // 큐에 넣는 중인 submit 이 끝날 때까지 (워커는 아직 돌고 있으므로 곧 끝난다)
+        try {
+            closed = true;
+        } finally {
+            submitLock.writeLock().unlock();
+        }
+        for (Stage stage : stages) {
+            try {
+                // 앞 단계 워커가 모두 끝났으므로 이 단계에 더 들어올 항목은 없다
+                // 신호는 어느 워커가 가져갈지 모르므로 워커 수만큼 모두 넣은 뒤에 기다린다
+                for (int i = 0; i < stage.workers.size(); i++) {
+                    stage.queue.put(POISON);
+                }
+                for (Thread worker : stage.workers) {
+                    worker.join();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stages.forEach(s -> s.workers.forEach(Thread::interrupt));
+                return;
+            }
+        }
+        // 워커가 인터럽트로 먼저 끝난 경우에 남은 항목
+        for (Stage stage : stages) {
+            Envelope late;
+            while ((late = stage.queue.poll()) != null) {
+                if (late == POISON) {
+                    continue;
+                }
+                late.result.completeExceptionally(new RejectedExecutionException("pipeline 이 종료되었습니다"));
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package practice.virtual.thread.pipeline;
+
+// 항목 하나를 처리하는 단계 (블로킹 코드를 그대로 써도 된다 : 가상 스레드에서 호출)
+@FunctionalInterface
+public interface StageFunction<T, R> {
+
+    R apply(T item) throws Exception;
+}
@@ -0,0 +1,8 @@
+package practice.virtual.thread.pipeline;
+
+import practice.virtual.thread.observation.LatencyHistogram;
+
+// utilization : 시작 이후 워커들이 처리 중이던 시간의 비율 (1.0 이면 모든 워커가 쉬지 않음)
+// queueDepth 가 차 있고 utilization 이 1 에 가까운 단계가 병목이다
+public record StageStats(String name, int concurrency, int queueDepth, int queueCapacity, long processed,
+        long failed, double utilization, LatencyHistogram serviceTime) {}
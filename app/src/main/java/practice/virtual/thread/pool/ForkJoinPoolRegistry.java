@@ -0,0 +1,178 @@
+package practice.virtual.thread.pool;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import practice.virtual.thread.deadline.Deadline;
+import practice.virtual.thread.deadline.DeadlineExceededException;
+
+// 병렬 스트림을 commonPool 이 아닌 이름 붙은 전용 ForkJoinPool 에서 실행한다
+// (리포트 작업 하나가 commonPool 을 차지하면 JVM 안의 모든 parallel() 이 함께 느려진다)
+//
+// - define(name, parallelism) 으로 크기를 정해 두거나, 처음 사용할 때 기본 크기로 만든다
+// - runParallel(name, () -> stream.parallel()...) : ForkJoinPool 안에서 시작한 병렬 스트림은 그 풀을 사용한다
+//   호출자에게 Deadline 이 바인딩되어 있으면 지난 뒤에는 제출하지 않고, 결과는 남은 예산까지만 기다린다
+//   (넘으면 작업을 취소하고 DeadlineExceededException). 워커에는 같은 Deadline 을 다시 바인딩한다
+// - stats(name) : steal / 대기 작업 / 활성 스레드 수
+// - shutdown(timeout) : timeout 안에 끝나지 않은 풀은 shutdownNow
+public final class ForkJoinPoolRegistry implements AutoCloseable {
+
+    public record PoolStats(String name, int parallelism, int poolSize, int activeThreads,
+            int runningThreads, long queuedTasks, int queuedSubmissions, long stealCount) {}
+
+    private final int defaultParallelism;
+    private final Map<String, Integer> sizes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ForkJoinPool> pools = new ConcurrentHashMap<>();
+    private volatile boolean shutdown;
+
+    public ForkJoinPoolRegistry() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ForkJoinPoolRegistry(int defaultParallelism) {
+        if (defaultParallelism <= 0) {
+            throw new IllegalArgumentException("defaultParallelism 은 1 이상이어야 합니다");
+        }
+        this.defaultParallelism = defaultParallelism;
+    }
+
+    // 풀을 만들기 전에 크기를 지정 (이미 만들어진 풀의 크기는 바꾸지 않는다)
+    public ForkJoinPoolRegistry define(String name, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism 은 1 이상이어야 합니다");
+        }
+        if (pools.containsKey(name)) {
+            throw new IllegalStateException(name + " 풀은 이미 만들어졌습니다");
+        }
+        sizes.put(name, parallelism);
+        return this;
+    }
+
+    public ForkJoinPool pool(String name) {
+        if (shutdown) {
+            throw new RejectedExecutionException("registry 가 종료되었습니다");
+        }
+        return pools.computeIfAbsent(name, n -> new ForkJoinPool(sizes.getOrDefault(n, defaultParallelism),
+                workerFactory(n), null, false));
+    }
+
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory workerFactory(String name) {
+        AtomicInteger index = new AtomicInteger();
+        return pool -> {
+            ForkJoinWorkerThread worker =
+                    ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName(name + "-worker-" + index.getAndIncrement());
+            return worker;
+        };
+    }
+
+    // ---- 실행 ----
+
+    // task 를 name 풀에서 실행하고 결과를 기다린다
+    // 이미 그 풀의 워커에서 호출했다면 제출하지 않고 바로 실행 (워커가 자기 자신을 기다리지 않도록)
+    public <T> T runParallel(String name, Supplier<T> task) {
+        Deadline.checkpoint();
+        ForkJoinPool pool = pool(name);
+        if (Thread.currentThread() instanceof ForkJoinWorkerThread worker
+                && worker.getPool() == pool) {
+            return task.get();
+        }
+        Deadline deadline = Deadline.current().orElse(null);
+        if (deadline == null) {
+            return pool.submit(task::get).join();
+        }
+        ForkJoinTask<T> submitted = pool.submit(() -> deadline.call(task::get));
+        try {
+            return submitted.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            submitted.cancel(true);
+            throw new DeadlineExceededException(name + " 풀 작업이 deadline 안에 끝나지 않았습니다");
+        } catch (InterruptedException e) {
+            submitted.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("대기 중 인터럽트");
+        } catch (ExecutionException e) {
+            // join 과 같이 작업의 unchecked 예외는 그대로 던진다
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    public void runParallel(String name, Runnable task) {
+        runParallel(name, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    // ---- 상태 ----
+
+    public PoolStats stats(String name) {
+        ForkJoinPool pool = pools.get(name);
+        if (pool == null) {
+            throw new IllegalArgumentException(name + " 풀이 없습니다");
+        }
+        return stats(name, pool);
+    }
+
+    public List<PoolStats> stats() {
+        List<PoolStats> result = new ArrayList<>();
+        pools.forEach((name, pool) -> result.add(stats(name, pool)));
+        return result;
+    }
+
+    private static PoolStats stats(String name, ForkJoinPool pool) {
+        return new PoolStats(name, pool.getParallelism(), pool.getPoolSize(),
+                pool.getActiveThreadCount(), pool.getRunningThreadCount(),
+                pool.getQueuedTaskCount(), pool.getQueuedSubmissionCount(), pool.getStealCount());
+    }
+
+    // ---- 종료 ----
+
+    // 모든 풀에 shutdown 을 보내고 timeout 까지 기다린다
+    // timeout 안에 끝나지 않은 풀은 shutdownNow 로 중단하고 false 를 반환
+    public boolean shutdown(Duration timeout) {
+        shutdown = true;
+        pools.values().forEach(ForkJoinPool::shutdown);
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean terminated = true;
+        for (ForkJoinPool pool : pools.values()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (!pool.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                    pool.shutdownNow();
+                    terminated = false;
+                }
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+                terminated = false;
+            }
+        }
+        return terminated;
+    }
+
+    @Override
+    public void close() {
+        shutdown(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,445 @@
+package practice.virtual.thread.profiler;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// 가상 스레드까지 포함한 스레드 상태 샘플링 프로파일러
+// "처리량이 떨어졌을 때 가상 스레드들이 어디서 park 되어 있나?" 에 답한다
+//
+// - HotSpotDiagnosticMXBean.dumpThreads(JSON) 로 주기적으로 전체 스레드 덤프를 뜬다
+//   (ThreadMXBean 은 플랫폼 스레드만 보여준다)
+// - 상태별 스레드 수, 상태별 leaf frame 히스토그램
+// - collapsed stack : "상태;root;...;leaf 횟수" 한 줄씩 (flamegraph.pl, speedscope 에 그대로 사용)
+// - blocking site : 대기 중인 스레드에서 JDK 가 아닌 첫 frame (어느 코드가 기다리는지) 상위 N 개
+//
+// 오버헤드 제한
+// - 덤프 비용은 스레드 수에 비례한다. 샘플 한 번에 걸린 시간이 c 이면 다음 샘플까지 c / maxOverhead 이상 쉰다
+//   (maxOverhead = 0.02 이면 샘플링에 쓰는 시간은 전체의 2% 이하)
+// - stack 깊이(maxDepth)와 서로 다른 stack 수(maxStacks)를 제한해서 메모리도 제한한다
+//
+// JDK 25 의 JSON 덤프에는 스레드마다 state 가 있다. 없으면(JDK 21) 맨 위 frame 으로 추정한다
+public final class ThreadStateSampler implements AutoCloseable {
+
+    public record FrameCount(String frame, long count) {}
+
+    public record BlockingSite(String frame, Thread.State state, long count) {}
+
+    private static final String OTHER_STACKS = "[other]";
+
+    private final long intervalNanos;
+    private final double maxOverhead;
+    private final int maxDepth;
+    private final int maxStacks;
+    private final HotSpotDiagnosticMXBean diagnostic =
+            ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // 아래는 lock 으로 보호
+    private final Map<Thread.State, Long> states = new EnumMap<>(Thread.State.class);
+    private final Map<Thread.State, Map<String, Long>> leafFrames = new EnumMap<>(Thread.State.class);
+    private final Map<String, Long> collapsed = new HashMap<>();
+    private final Map<String, Long> sites = new HashMap<>();
+    private long samples;
+    private long threadSamples;
+
+    private final AtomicLong samplingNanos = new AtomicLong();
+    private volatile long startNanos = System.nanoTime();
+    private volatile long lastSampleNanos;
+    private volatile Thread sampler;
+    private volatile Path directory; // lock 안에서 한 번만 만든다
+    // sampleOnce 를 직접 부르는 스레드와 백그라운드 샘플러가 같은 파일 이름을 쓰지 않도록
+    private final AtomicLong dumpSequence = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile Throwable lastFailure;
+
+    private ThreadStateSampler(Builder builder) {
+        this.intervalNanos = builder.interval.toNanos();
+        this.maxOverhead = builder.maxOverhead;
+        this.maxDepth = builder.maxDepth;
+        this.maxStacks = builder.maxStacks;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private Duration interval = Duration.ofMillis(100);
+        private double maxOverhead = 0.02;
+        private int maxDepth = 64;
+        private int maxStacks = 10_000;
+
+        private Builder() {}
+
+        // 샘플 사이 최소 간격
+        public Builder interval(Duration interval) {
+            this.interval = interval;
+            return this;
+        }
+
+        // 샘플링에 쓸 수 있는 시간 비율 (0 ~ 1)
+        public Builder maxOverhead(double maxOverhead) {
+            if (maxOverhead <= 0 || maxOverhead > 1) {
+                throw new IllegalArgumentException("maxOverhead 는 0 보다 크고 1 이하여야 합니다");
+            }
+            this.maxOverhead = maxOverhead;
+            return this;
+        }
+
+        // leaf 에서부터 몇 frame 까지 볼지
+        public Builder maxDepth(int maxDepth) {
+            if (maxDepth <= 0) {
+                throw new IllegalArgumentException("maxDepth 는 1 이상이어야 합니다");
+            }
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        // 서로 다른 collapsed stack 수 제한 (넘으면 [other] 로 합친다)
+        public Builder maxStacks(int maxStacks) {
+            if (maxStacks <= 0) {
+                throw new IllegalArgumentException("maxStacks 는 1 이상이어야 합니다");
+            }
+            this.maxStacks = maxStacks;
+            return this;
+        }
+
+        public ThreadStateSampler build() {
+            return new ThreadStateSampler(this);
+        }
+    }
+
+    // ---- 샘플링 ----
+
+    public void start() {
+        lock.lock();
+        try {
+            if (sampler != null) {
+                return;
+            }
+            startNanos = System.nanoTime();
+            sampler = Thread.ofPlatform().daemon().name("thread-state-sampler").start(this::loop);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 샘플 하나가 실패해도(덤프 파일, JSON 형식 등) 멈추지 않고 실패를 기록한 뒤 다음 샘플로 넘어간다
+    private void loop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long cost;
+            try {
+                cost = sampleOnce();
+            } catch (IOException | RuntimeException e) {
+                failures.incrementAndGet();
+                lastFailure = e;
+                cost = 0;
+            }
+            long pause = Math.max(intervalNanos, (long) (cost / maxOverhead) - cost);
+            try {
+                Thread.sleep(Duration.ofNanos(pause));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    // 덤프 한 번을 떠서 누적한다. 걸린 시간(nanos)을 반환
+    public long sampleOnce() throws IOException {
+        long start = System.nanoTime();
+        String dump = dump();
+        long self = Thread.currentThread().threadId();
+        List<ThreadSample> threads = parse(dump, self);
+
+        lock.lock();
+        try {
+            samples++;
+            for (ThreadSample thread : threads) {
+                accumulate(thread);
+            }
+        } finally {
+            lock.unlock();
+        }
+        long cost = System.nanoTime() - start;
+        samplingNanos.addAndGet(cost);
+        lastSampleNanos = cost;
+        return cost;
+    }
+
+    private String dump() throws IOException {
+        Path file = directory().resolve("dump-" + dumpSequence.getAndIncrement() + ".json"); // 이미 있는 파일에는 쓰지 못한다
+        try {
+            diagnostic.dumpThreads(file.toAbsolutePath().toString(), HotSpotDiagnosticMXBean.ThreadDumpFormat.JSON);
+            return Files.readString(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path directory() throws IOException {
+        Path dir = directory;
+        if (dir != null) {
+            return dir;
+        }
+        lock.lock();
+        try {
+            if (directory == null) {
+                Path created = Files.createTempDirectory("thread-state-sampler");
+                created.toFile().deleteOnExit();
+                directory = created;
+            }
+            return directory;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    record ThreadSample(String name, Thread.State state, List<String> stack) {}
+
+    // threadDump.threadContainers[].threads[] 의 tid, name, state, stack (leaf 가 먼저)
+    @SuppressWarnings("unchecked")
+    static List<ThreadSample> parse(String json, long excludeTid) {
+        Map<String, Object> root = (Map<String, Object>) Json.parse(json);
+        Map<String, Object> threadDump = (Map<String, Object>) root.get("threadDump");
+        List<ThreadSample> result = new ArrayList<>();
+        for (Object container : (List<Object>) threadDump.get("threadContainers")) {
+            List<Object> threads = (List<Object>) ((Map<String, Object>) container).get("threads");
+            if (threads == null) {
+                continue;
+            }
+            for (Object element : threads) {
+                Map<String, Object> thread = (Map<String, Object>) element;
+                if (String.valueOf(excludeTid).equals(String.valueOf(thread.get("tid")))) {
+                    continue;
+                }
+                List<String> stack = new ArrayList<>();
+                for (Object frame : (List<Object>) thread.getOrDefault("stack", List.of())) {
+                    stack.add(normalize((String) frame));
+                }
+                Object state = thread.get("state");
+                result.add(new ThreadSample(String.valueOf(thread.get("name")),
+                        state != null ? Thread.State.valueOf((String) state) : inferState(stack), stack));
+            }
+        }
+        return result;
+    }
+
+    // "java.base/java.lang.Thread.sleep(Thread.java:507)" → "java.lang.Thread.sleep(Thread.java:507)"
+    private static String normalize(String frame) {
+        int paren = frame.indexOf('(');
+        int slash = frame.lastIndexOf('/', paren < 0 ? frame.length() : paren);
+        return slash < 0 ? frame : frame.substring(slash + 1);
+    }
+
+    // state 가 없는 덤프(JDK 21)용 : JDK 내부 frame 만 보고 추정 (BLOCKED 는 구분하지 못한다)
+    static Thread.State inferState(List<String> stack) {
+        boolean parked = false;
+        for (String frame : stack) {
+            if (!isJdkFrame(frame)) {
+                break;
+            }
+            String method = method(frame);
+            if (method.endsWith("parkNanos") || method.endsWith("parkUntil") || method.endsWith(".sleep")
+                    || method.endsWith("sleepNanos") || method.endsWith("awaitNanos")
+                    || method.endsWith("tryAcquireNanos")) {
+                return Thread.State.TIMED_WAITING;
+            }
+            if (method.endsWith(".park") || method.endsWith(".wait0") || method.endsWith(".await")
+                    || method.endsWith("waitForReferencePendingList")) {
+                parked = true;
+            }
+        }
+        return parked ? Thread.State.WAITING : Thread.State.RUNNABLE;
+    }
+
+    private static boolean isJdkFrame(String frame) {
+        return frame.startsWith("java.") || frame.startsWith("jdk.") || frame.startsWith("sun.")
+                || frame.startsWith("com.sun.");
+    }
+
+    // 줄 번호를 뺀 메서드 이름 (collapsed stack 은 메서드 단위로 합친다)
+    private static String method(String frame) {
+        int paren = frame.indexOf('(');
+        return paren < 0 ? frame : frame.substring(0, paren);
+    }
+
+    private void accumulate(ThreadSample thread) {
+        threadSamples++;
+        states.merge(thread.state(), 1L, Long::sum);
+        List<String> stack = thread.stack().size() > maxDepth ? thread.stack().subList(0, maxDepth) : thread.stack();
+
+        String leaf = stack.isEmpty() ? "[no frames]" : method(stack.getFirst());
+        leafFrames.computeIfAbsent(thread.state(), _ -> new HashMap<>()).merge(leaf, 1L, Long::sum);
+
+        StringBuilder folded = new StringBuilder(thread.state().name());
+        for (int i = stack.size() - 1; i >= 0; i--) {
+            folded.append(';').append(method(stack.get(i)));
+        }
+        String key = folded.toString();
+        if (collapsed.containsKey(key) || collapsed.size() < maxStacks) {
+            collapsed.merge(key, 1L, Long::sum);
+        } else {
+            collapsed.merge(thread.state().name() + ";" + OTHER_STACKS, 1L, Long::sum);
+        }
+
+        if (thread.state() != Thread.State.RUNNABLE) {
+            for (String frame : stack) {
+                if (!isJdkFrame(frame)) {
+                    sites.merge(thread.state().name() + " " + frame, 1L, Long::sum);
+                    break;
+                }
+            }
+        }
+    }
+
+    // ---- 결과 ----
+
+    public Map<Thread.State, Long> stateHistogram() {
+        lock.lock();
+        try {
+            return new EnumMap<>(states);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 해당 상태의 스레드가 가장 많이 머물러 있던 leaf frame 상위 n 개
+    public List<FrameCount> topFrames(Thread.State state, int n) {
+        lock.lock();
+        try {
+            return leafFrames.getOrDefault(state, Map.of()).entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(n)
+                    .map(entry -> new FrameCount(entry.getKey(), entry.getValue())).toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // WAITING / TIMED_WAITING / BLOCKED 스레드가 기다리고 있던 애플리케이션 코드 위치 상위 n 개
+    public List<BlockingSite> topBlockingSites(int n) {
+        lock.lock();
+        try {
+            return sites.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(n)
+                    .map(entry -> {
+                        int space = entry.getKey().indexOf(' ');
+                        return new BlockingSite(entry.getKey().substring(space + 1),
+                                Thread.State.valueOf(entry.getKey().substring(0, space)), entry.getValue());
+                    }).toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // flamegraph 입력 형식 : "TIMED_WAITING;java.lang.VirtualThread.run;...;java.lang.Thread.sleep 1234"
+    public String collapsedStacks() {
+        lock.lock();
+        try {
+            StringBuilder builder = new StringBuilder();
+            collapsed.entrySet().stream().sorted(Map.Entry.comparingByKey())
+                    .forEach(entry -> builder.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n'));
+            return builder.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String report(int n) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("samples=%d threads/sample=%.0f overhead=%.2f%% failures=%d%n", sampleCount(),
+                sampleCount() == 0 ? 0.0 : (double) threadSampleCount() / sampleCount(), overhead() * 100,
+                failureCount()));
+        stateHistogram().forEach((state, count) -> builder.append(String.format("  %-13s %d%n", state, count)));
+        builder.append("top blocking sites\n");
+        topBlockingSites(n).forEach(site -> builder.append(String.format("  %-13s %6d  %s%n", site.state(),
+                site.count(), site.frame())));
+        return builder.toString();
+    }
+
+    public void reset() {
+        lock.lock();
+        try {
+            states.clear();
+            leafFrames.clear();
+            collapsed.clear();
+            sites.clear();
+            samples = 0;
+            threadSamples = 0;
+            samplingNanos.set(0);
+            startNanos = System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long sampleCount() {
+        lock.lock();
+        try {
+            return samples;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 누적된 스레드 샘플 수 (샘플마다 살아 있던 스레드 수의 합)
+    public long threadSampleCount() {
+        lock.lock();
+        try {
+            return threadSamples;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 백그라운드 샘플링에서 실패한 샘플 수와 마지막 실패
+    public long failureCount() {
+        return failures.get();
+    }
+
+    public Optional<Throwable> lastFailure() {
+        return Optional.ofNullable(lastFailure);
+    }
+
+    public Duration lastSampleDuration() {
+        return Duration.ofNanos(lastSampleNanos);
+    }
+
+    // 시작 이후 샘플링에 쓴 시간 비율
+    public double overhead() {
+        long elapsed = Math.max(1, System.nanoTime() - startNanos);
+        return (double) samplingNanos.get() / elapsed;
+    }
+
+    @Override
+    public void close() {
+        Thread thread;
+        lock.lock();
+        try {
+            thread = sampler;
+            sampler = null;
+        } finally {
+            lock.unlock();
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
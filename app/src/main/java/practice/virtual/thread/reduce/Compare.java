@@ -0,0 +1,41 @@
+package practice.virtual.thread.reduce;
+
+import jdk.incubator.vector.VectorOperators;
+
+// countIf 에 사용하는 비교 연산 (element <op> operand)
+public enum Compare {
+    LT(VectorOperators.LT),
+    LE(VectorOperators.LE),
+    GT(VectorOperators.GT),
+    GE(VectorOperators.GE),
+    EQ(VectorOperators.EQ),
+    NE(VectorOperators.NE);
+
+    final VectorOperators.Comparison vectorOp;
+
+    Compare(VectorOperators.Comparison vectorOp) {
+        this.vectorOp = vectorOp;
+    }
+
+    boolean test(long element, long operand) {
+        return switch (this) {
+            case LT -> element < operand;
+            case LE -> element <= operand;
+            case GT -> element > operand;
+            case GE -> element >= operand;
+            case EQ -> element == operand;
+            case NE -> element != operand;
+        };
+    }
+
+    boolean test(double element, double operand) {
+        return switch (this) {
+            case LT -> element < operand;
+            case LE -> element <= operand;
+            case GT -> element > operand;
+            case GE -> element >= operand;
+            case EQ -> element == operand;
+            case NE -> element != operand;
+        };
+    }
+}
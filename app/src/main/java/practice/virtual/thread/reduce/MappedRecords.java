@@ -0,0 +1,67 @@
+package practice.virtual.thread.reduce;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 고정 길이 레코드가 연속으로 저장된 MemorySegment
+// map() 으로 만든 경우 파일을 힙에 올리지 않고 OS 페이지 캐시를 그대로 읽는다 (close 시 unmap)
+public final class MappedRecords implements AutoCloseable {
+
+    private final MemorySegment segment;
+    private final long recordSize;
+    private final Arena arena;
+
+    private MappedRecords(MemorySegment segment, long recordSize, Arena arena) {
+        if (recordSize <= 0) {
+            throw new IllegalArgumentException("recordSize 는 1 이상이어야 합니다: " + recordSize);
+        }
+        if (segment.byteSize() % recordSize != 0) {
+            throw new IllegalArgumentException(
+                    "크기(" + segment.byteSize() + ")가 레코드 크기(" + recordSize + ")의 배수가 아닙니다");
+        }
+        this.segment = segment;
+        this.recordSize = recordSize;
+        this.arena = arena;
+    }
+
+    // 여러 ForkJoin 워커가 동시에 읽어야 하므로 shared arena 로 매핑
+    public static MappedRecords map(Path file, long recordSize) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment segment =
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return new MappedRecords(segment, recordSize, arena);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    // 이미 가지고 있는 segment 를 레코드 단위로 본다 (수명은 호출한 쪽이 관리)
+    public static MappedRecords of(MemorySegment segment, long recordSize) {
+        return new MappedRecords(segment, recordSize, null);
+    }
+
+    public MemorySegment segment() {
+        return segment;
+    }
+
+    public long recordSize() {
+        return recordSize;
+    }
+
+    public long recordCount() {
+        return segment.byteSize() / recordSize;
+    }
+
+    @Override
+    public void close() {
+        if (arena != null) {
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package practice.virtual.thread.reduce;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import practice.virtual.thread.reduce.ReduceTask.Op;
+
+// int / long / double 배열에 대한 병렬 집계(sum, min, max, countIf)
+// - 부분 결과는 primitive 필드로 전달 (박싱 없음)
+// - leaf 루프는 Vector API 사용 (--add-modules jdk.incubator.vector 필요)
+// - 분할 기준(threshold)은 고정값 대신 배열 크기와 풀의 병렬도로 계산
+// - MappedRecords 를 넘기면 힙에 복사하지 않고 매핑된 파일을 제자리에서 집계
+public final class ParallelReducer {
+
+    // leaf 하나가 너무 작으면 fork/join 비용이 계산보다 커진다
+    static final int MIN_LEAF = 1 << 12;
+    // 워커 하나당 leaf 를 몇 개 정도 만들지 (work stealing 여지를 남김)
+    static final int LEAVES_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+
+    public ParallelReducer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelReducer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public long sum(int[] array) {
+        return invokeLong(new ReduceTask.OfInt(array, Op.SUM, null, 0, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public long sum(long[] array) {
+        return invokeLong(new ReduceTask.OfLong(array, Op.SUM, null, 0, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public double sum(double[] array) {
+        return invokeDouble(new ReduceTask.OfDouble(array, Op.SUM, null, 0, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public int min(int[] array) {
+        requireNotEmpty(array.length);
+        return (int) invokeLong(new ReduceTask.OfInt(array, Op.MIN, null, 0, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public long min(long[] array) {
+        requireNotEmpty(array.length);
+        return invokeLong(new ReduceTask.OfLong(array, Op.MIN, null, 0, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public double min(double[] array) {
+        requireNotEmpty(array.length);
+        return invokeDouble(new ReduceTask.OfDouble(array, Op.MIN, null, 0, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public int max(int[] array) {
+        requireNotEmpty(array.length);
+        return (int) invokeLong(new ReduceTask.OfInt(array, Op.MAX, null, 0, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public long max(long[] array) {
+        requireNotEmpty(array.length);
+        return invokeLong(new ReduceTask.OfLong(array, Op.MAX, null, 0, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public double max(double[] array) {
+        requireNotEmpty(array.length);
+        return invokeDouble(new ReduceTask.OfDouble(array, Op.MAX, null, 0, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public long countIf(int[] array, Compare cmp, int operand) {
+        return invokeLong(new ReduceTask.OfInt(array, Op.COUNT, cmp, operand, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public long countIf(long[] array, Compare cmp, long operand) {
+        return invokeLong(new ReduceTask.OfLong(array, Op.COUNT, cmp, operand, 0, array.length,
+                threshold(array.length)));
+    }
+
+    public long countIf(double[] array, Compare cmp, double operand) {
+        return invokeLong(new ReduceTask.OfDouble(array, Op.COUNT, cmp, operand, 0,
+                array.length, threshold(array.length)));
+    }
+
+    // ---- MappedRecords : 파일을 힙에 올리지 않고 매핑된 segment 를 제자리에서 집계 ----
+
+    public long sum(MappedRecords records, RecordField field) {
+        return invokeLong(integralTask(records, field, Op.SUM, null, 0));
+    }
+
+    public long min(MappedRecords records, RecordField field) {
+        requireNotEmpty(records.recordCount());
+        return invokeLong(integralTask(records, field, Op.MIN, null, 0));
+    }
+
+    public long max(MappedRecords records, RecordField field) {
+        requireNotEmpty(records.recordCount());
+        return invokeLong(integralTask(records, field, Op.MAX, null, 0));
+    }
+
+    public long countIf(MappedRecords records, RecordField field, Compare cmp, long operand) {
+        return invokeLong(integralTask(records, field, Op.COUNT, cmp, operand));
+    }
+
+    public double sumDouble(MappedRecords records, RecordField field) {
+        return invokeDouble(doubleTask(records, field, Op.SUM, null, 0));
+    }
+
+    public double minDouble(MappedRecords records, RecordField field) {
+        requireNotEmpty(records.recordCount());
+        return invokeDouble(doubleTask(records, field, Op.MIN, null, 0));
+    }
+
+    public double maxDouble(MappedRecords records, RecordField field) {
+        requireNotEmpty(records.recordCount());
+        return invokeDouble(doubleTask(records, field, Op.MAX, null, 0));
+    }
+
+    public long countIf(MappedRecords records, RecordField field, Compare cmp, double operand) {
+        return invokeLong(doubleTask(records, field, Op.COUNT, cmp, operand));
+    }
+
+    private SegmentReduceTask integralTask(MappedRecords records, RecordField field, Op op,
+            Compare cmp, long operand) {
+        requireFits(records, field);
+        if (field.type() == RecordField.Type.DOUBLE) {
+            throw new IllegalArgumentException("double 필드는 sumDouble/minDouble/maxDouble 을 사용하세요");
+        }
+        return new SegmentReduceTask(records, field, op, cmp, operand, 0,
+                threshold(records.recordCount()));
+    }
+
+    private SegmentReduceTask doubleTask(MappedRecords records, RecordField field, Op op,
+            Compare cmp, double operand) {
+        requireFits(records, field);
+        if (field.type() != RecordField.Type.DOUBLE) {
+            throw new IllegalArgumentException("정수 필드는 sum/min/max 를 사용하세요");
+        }
+        return new SegmentReduceTask(records, field, op, cmp, 0, operand,
+                threshold(records.recordCount()));
+    }
+
+    private static void requireFits(MappedRecords records, RecordField field) {
+        if (field.offset() + field.type().byteSize > records.recordSize()) {
+            throw new IllegalArgumentException("필드가 레코드 크기를 벗어납니다: " + field);
+        }
+    }
+
+    long threshold(long recordCount) {
+        return Math.max(MIN_LEAF, recordCount / (pool.getParallelism() * LEAVES_PER_WORKER));
+    }
+
+    int threshold(int length) {
+        return threshold(length, pool.getParallelism());
+    }
+
+    // 워커당 LEAVES_PER_WORKER 개의 leaf 가 나오도록 나누되 MIN_LEAF 보다 작게는 나누지 않는다
+    static int threshold(int length, int parallelism) {
+        return Math.max(MIN_LEAF, length / (parallelism * LEAVES_PER_WORKER));
+    }
+
+    private long invokeLong(ReduceTask task) {
+        invoke(task);
+        return task.longResult;
+    }
+
+    private double invokeDouble(ReduceTask task) {
+        invoke(task);
+        return task.doubleResult;
+    }
+
+    private long invokeLong(SegmentReduceTask task) {
+        invoke(task);
+        return task.longResult;
+    }
+
+    private double invokeDouble(SegmentReduceTask task) {
+        invoke(task);
+        return task.doubleResult;
+    }
+
+    private void invoke(SegmentReduceTask task) {
+        if (task.to - task.from <= task.threshold) {
+            task.leaf();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    private void invoke(ReduceTask task) {
+        // 한 번에 끝나는 크기라면 풀에 넘기지 않고 호출한 스레드에서 바로 계산
+        if (task.to - task.from <= task.threshold) {
+            task.leaf();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    private static void requireNotEmpty(long length) {
+        if (length == 0) {
+            throw new NoSuchElementException("빈 배열에는 min/max 가 없습니다");
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package practice.virtual.thread.reduce;
+
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+// 고정 길이 레코드 안에서 집계할 필드 (레코드 시작 기준 offset, 타입, 바이트 순서)
+public record RecordField(Type type, long offset, ByteOrder order) {
+
+    public enum Type {
+        INT(Integer.BYTES), LONG(Long.BYTES), DOUBLE(Double.BYTES);
+
+        final int byteSize;
+
+        Type(int byteSize) {
+            this.byteSize = byteSize;
+        }
+    }
+
+    public RecordField {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset 은 0 이상이어야 합니다: " + offset);
+        }
+    }
+
+    public static RecordField ofInt(long offset, ByteOrder order) {
+        return new RecordField(Type.INT, offset, order);
+    }
+
+    public static RecordField ofLong(long offset, ByteOrder order) {
+        return new RecordField(Type.LONG, offset, order);
+    }
+
+    public static RecordField ofDouble(long offset, ByteOrder order) {
+        return new RecordField(Type.DOUBLE, offset, order);
+    }
+
+    ValueLayout.OfInt intLayout() {
+        return ValueLayout.JAVA_INT_UNALIGNED.withOrder(order);
+    }
+
+    ValueLayout.OfLong longLayout() {
+        return ValueLayout.JAVA_LONG_UNALIGNED.withOrder(order);
+    }
+
+    ValueLayout.OfDouble doubleLayout() {
+        return ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(order);
+    }
+}
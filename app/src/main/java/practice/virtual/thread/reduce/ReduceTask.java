@@ -0,0 +1,162 @@
+package practice.virtual.thread.reduce;
+
+import java.util.concurrent.RecursiveAction;
+
+// CThreadPoolTest.SumTask 의 분할 정복 구조를 그대로 따르되
+// RecursiveTask<Long> 대신 RecursiveAction + primitive 필드로 부분 결과를 전달해 박싱을 없앤다
+abstract class ReduceTask extends RecursiveAction {
+
+    enum Op { SUM, MIN, MAX, COUNT }
+
+    final Op op;
+    final int from;
+    final int to;
+    final int threshold;
+
+    long longResult;
+    double doubleResult;
+
+    ReduceTask(Op op, int from, int to, int threshold) {
+        this.op = op;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+    }
+
+    abstract ReduceTask split(int from, int to);
+
+    abstract void leaf();
+
+    abstract void combine(ReduceTask left, ReduceTask right);
+
+    @Override
+    protected void compute() {
+        if (to - from <= threshold) {
+            leaf();
+            return;
+        }
+        // 64 의 배수 위치에서 잘라 마지막 leaf 외에는 벡터 루프의 꼬리가 생기지 않게 한다
+        int middle = ((from + to) >>> 1) & ~63;
+        ReduceTask leftTask = split(from, middle);
+        ReduceTask rightTask = split(middle, to);
+
+        leftTask.fork();
+        rightTask.compute();
+        leftTask.join();
+
+        combine(leftTask, rightTask);
+    }
+
+    static final class OfInt extends ReduceTask {
+        private final int[] array;
+        private final Compare cmp;
+        private final int operand;
+
+        OfInt(int[] array, Op op, Compare cmp, int operand, int from, int to, int threshold) {
+            super(op, from, to, threshold);
+            this.array = array;
+            this.cmp = cmp;
+            this.operand = operand;
+        }
+
+        @Override
+        ReduceTask split(int from, int to) {
+            return new OfInt(array, op, cmp, operand, from, to, threshold);
+        }
+
+        @Override
+        void leaf() {
+            longResult = switch (op) {
+                case SUM -> VectorKernels.sum(array, from, to);
+                case MIN -> VectorKernels.min(array, from, to);
+                case MAX -> VectorKernels.max(array, from, to);
+                case COUNT -> VectorKernels.countIf(array, from, to, cmp, operand);
+            };
+        }
+
+        @Override
+        void combine(ReduceTask left, ReduceTask right) {
+            longResult = combineLong(op, left.longResult, right.longResult);
+        }
+    }
+
+    static final class OfLong extends ReduceTask {
+        private final long[] array;
+        private final Compare cmp;
+        private final long operand;
+
+        OfLong(long[] array, Op op, Compare cmp, long operand, int from, int to, int threshold) {
+            super(op, from, to, threshold);
+            this.array = array;
+            this.cmp = cmp;
+            this.operand = operand;
+        }
+
+        @Override
+        ReduceTask split(int from, int to) {
+            return new OfLong(array, op, cmp, operand, from, to, threshold);
+        }
+
+        @Override
+        void leaf() {
+            longResult = switch (op) {
+                case SUM -> VectorKernels.sum(array, from, to);
+                case MIN -> VectorKernels.min(array, from, to);
+                case MAX -> VectorKernels.max(array, from, to);
+                case COUNT -> VectorKernels.countIf(array, from, to, cmp, operand);
+            };
+        }
+
+        @Override
+        void combine(ReduceTask left, ReduceTask right) {
+            longResult = combineLong(op, left.longResult, right.longResult);
+        }
+    }
+
+    static final class OfDouble extends ReduceTask {
+        private final double[] array;
+        private final Compare cmp;
+        private final double operand;
+
+        OfDouble(double[] array, Op op, Compare cmp, double operand, int from, int to,
+                int threshold) {
+            super(op, from, to, threshold);
+            this.array = array;
+            this.cmp = cmp;
+            this.operand = operand;
+        }
+
+        @Override
+        ReduceTask split(int from, int to) {
+            return new OfDouble(array, op, cmp, operand, from, to, threshold);
+        }
+
+        @Override
+        void leaf() {
+            switch (op) {
+                case SUM -> doubleResult = VectorKernels.sum(array, from, to);
+                case MIN -> doubleResult = VectorKernels.min(array, from, to);
+                case MAX -> doubleResult = VectorKernels.max(array, from, to);
+                case COUNT -> longResult = VectorKernels.countIf(array, from, to, cmp, operand);
+            }
+        }
+
+        @Override
+        void combine(ReduceTask left, ReduceTask right) {
+            switch (op) {
+                case SUM -> doubleResult = left.doubleResult + right.doubleResult;
+                case MIN -> doubleResult = Math.min(left.doubleResult, right.doubleResult);
+                case MAX -> doubleResult = Math.max(left.doubleResult, right.doubleResult);
+                case COUNT -> longResult = left.longResult + right.longResult;
+            }
+        }
+    }
+
+    static long combineLong(Op op, long left, long right) {
+        return switch (op) {
+            case SUM, COUNT -> left + right;
+            case MIN -> Math.min(left, right);
+            case MAX -> Math.max(left, right);
+        };
+    }
+}
@@ -0,0 +1,186 @@
+package practice.virtual.thread.reduce;
+
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.RecursiveAction;
+import practice.virtual.thread.reduce.ReduceTask.Op;
+
+// MappedRecords 를 레코드 인덱스(long) 구간으로 나누어 제자리에서 집계한다
+// long[] 로 복사하지 않고 segment 에서 직접 읽는다
+final class SegmentReduceTask extends RecursiveAction {
+
+    private final MemorySegment segment;
+    private final long recordSize;
+    private final RecordField field;
+    private final Op op;
+    private final Compare cmp;
+    private final long longOperand;
+    private final double doubleOperand;
+    final long from;
+    final long to;
+    final long threshold;
+
+    long longResult;
+    double doubleResult;
+
+    SegmentReduceTask(MappedRecords records, RecordField field, Op op, Compare cmp,
+            long longOperand, double doubleOperand, long threshold) {
+        this(records.segment(), records.recordSize(), field, op, cmp, longOperand,
+                doubleOperand, 0, records.recordCount(), threshold);
+    }
+
+    private SegmentReduceTask(MemorySegment segment, long recordSize, RecordField field, Op op,
+            Compare cmp, long longOperand, double doubleOperand, long from, long to,
+            long threshold) {
+        this.segment = segment;
+        this.recordSize = recordSize;
+        this.field = field;
+        this.op = op;
+        this.cmp = cmp;
+        this.longOperand = longOperand;
+        this.doubleOperand = doubleOperand;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+    }
+
+    private SegmentReduceTask split(long from, long to) {
+        return new SegmentReduceTask(segment, recordSize, field, op, cmp, longOperand,
+                doubleOperand, from, to, threshold);
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= threshold) {
+            leaf();
+            return;
+        }
+        long middle = ((from + to) >>> 1) & ~63L;
+        SegmentReduceTask leftTask = split(from, middle);
+        SegmentReduceTask rightTask = split(middle, to);
+
+        leftTask.fork();
+        rightTask.compute();
+        leftTask.join();
+
+        if (field.type() == RecordField.Type.DOUBLE && op != Op.COUNT) {
+            doubleResult = switch (op) {
+                case MIN -> Math.min(leftTask.doubleResult, rightTask.doubleResult);
+                case MAX -> Math.max(leftTask.doubleResult, rightTask.doubleResult);
+                default -> leftTask.doubleResult + rightTask.doubleResult;
+            };
+        } else {
+            longResult = ReduceTask.combineLong(op, leftTask.longResult, rightTask.longResult);
+        }
+    }
+
+    void leaf() {
+        // 레코드가 필드 하나로만 이루어져 있으면 연속된 배열과 같으므로 벡터로 읽는다
+        if (recordSize == field.type().byteSize && field.offset() == 0) {
+            denseLeaf();
+        } else {
+            stridedLeaf();
+        }
+    }
+
+    private void denseLeaf() {
+        long offset = from * recordSize;
+        long count = to - from;
+        var order = field.order();
+        switch (field.type()) {
+            case INT -> longResult = switch (op) {
+                case SUM -> VectorKernels.sumInts(segment, offset, count, order);
+                case MIN -> VectorKernels.minInts(segment, offset, count, order);
+                case MAX -> VectorKernels.maxInts(segment, offset, count, order);
+                case COUNT -> VectorKernels.countInts(segment, offset, count, order, cmp,
+                        longOperand);
+            };
+            case LONG -> longResult = switch (op) {
+                case SUM -> VectorKernels.sumLongs(segment, offset, count, order);
+                case MIN -> VectorKernels.minLongs(segment, offset, count, order);
+                case MAX -> VectorKernels.maxLongs(segment, offset, count, order);
+                case COUNT -> VectorKernels.countLongs(segment, offset, count, order, cmp,
+                        longOperand);
+            };
+            case DOUBLE -> {
+                switch (op) {
+                    case SUM -> doubleResult =
+                            VectorKernels.sumDoubles(segment, offset, count, order);
+                    case MIN -> doubleResult =
+                            VectorKernels.minDoubles(segment, offset, count, order);
+                    case MAX -> doubleResult =
+                            VectorKernels.maxDoubles(segment, offset, count, order);
+                    case COUNT -> longResult = VectorKernels.countDoubles(segment, offset, count,
+                            order, cmp, doubleOperand);
+                }
+            }
+        }
+    }
+
+    // 레코드 사이에 다른 필드가 끼어 있는 경우: 레코드 크기만큼 건너뛰며 스칼라로 읽는다
+    private void stridedLeaf() {
+        long position = from * recordSize + field.offset();
+        long end = to * recordSize;
+        switch (field.type()) {
+            case INT -> {
+                var layout = field.intLayout();
+                long acc = identity();
+                for (; position < end; position += recordSize) {
+                    acc = accumulate(acc, segment.get(layout, position));
+                }
+                longResult = acc;
+            }
+            case LONG -> {
+                var layout = field.longLayout();
+                long acc = identity();
+                for (; position < end; position += recordSize) {
+                    acc = accumulate(acc, segment.get(layout, position));
+                }
+                longResult = acc;
+            }
+            case DOUBLE -> {
+                var layout = field.doubleLayout();
+                if (op == Op.COUNT) {
+                    long matched = 0;
+                    for (; position < end; position += recordSize) {
+                        if (cmp.test(segment.get(layout, position), doubleOperand)) {
+                            matched++;
+                        }
+                    }
+                    longResult = matched;
+                    return;
+                }
+                double acc = switch (op) {
+                    case MIN -> Double.POSITIVE_INFINITY;
+                    case MAX -> Double.NEGATIVE_INFINITY;
+                    default -> 0.0;
+                };
+                for (; position < end; position += recordSize) {
+                    double value = segment.get(layout, position);
+                    acc = switch (op) {
+                        case MIN -> Math.min(acc, value);
+                        case MAX -> Math.max(acc, value);
+                        default -> acc + value;
+                    };
+                }
+                doubleResult = acc;
+            }
+        }
+    }
+
+    private long identity() {
+        return switch (op) {
+            case MIN -> Long.MAX_VALUE;
+            case MAX -> Long.MIN_VALUE;
+            case SUM, COUNT -> 0L;
+        };
+    }
+
+    private long accumulate(long acc, long value) {
+        return switch (op) {
+            case SUM -> acc + value;
+            case MIN -> Math.min(acc, value);
+            case MAX -> Math.max(acc, value);
+            case COUNT -> cmp.test(value, longOperand) ? acc + 1 : acc;
+        };
+    }
+}
@@ -0,0 +1,395 @@
+package practice.virtual.thread.reduce;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// 분할이 끝난 leaf 구간을 Vector API 로 계산한다
+// 벡터 폭으로 나누어 떨어지지 않는 꼬리 부분은 스칼라 루프로 처리
+final class VectorKernels {
+
+    static final VectorSpecies<Integer> INT = IntVector.SPECIES_PREFERRED;
+    static final VectorSpecies<Long> LONG = LongVector.SPECIES_PREFERRED;
+    static final VectorSpecies<Double> DOUBLE = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {}
+
+    // int 합계는 lane 안에서 오버플로가 나지 않도록 long lane 으로 넓혀서 누적
+    static long sum(int[] a, int from, int to) {
+        LongVector acc = LongVector.zero(LONG);
+        int i = from;
+        int bound = from + INT.loopBound(to - from);
+        for (; i < bound; i += INT.length()) {
+            IntVector v = IntVector.fromArray(INT, a, i);
+            acc = acc.add((LongVector) v.convertShape(VectorOperators.I2L, LONG, 0))
+                    .add((LongVector) v.convertShape(VectorOperators.I2L, LONG, 1));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    static long sum(long[] a, int from, int to) {
+        LongVector acc = LongVector.zero(LONG);
+        int i = from;
+        int bound = from + LONG.loopBound(to - from);
+        for (; i < bound; i += LONG.length()) {
+            acc = acc.add(LongVector.fromArray(LONG, a, i));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    static double sum(double[] a, int from, int to) {
+        DoubleVector acc = DoubleVector.zero(DOUBLE);
+        int i = from;
+        int bound = from + DOUBLE.loopBound(to - from);
+        for (; i < bound; i += DOUBLE.length()) {
+            acc = acc.add(DoubleVector.fromArray(DOUBLE, a, i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < to; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    static int min(int[] a, int from, int to) {
+        IntVector acc = IntVector.broadcast(INT, Integer.MAX_VALUE);
+        int i = from;
+        int bound = from + INT.loopBound(to - from);
+        for (; i < bound; i += INT.length()) {
+            acc = acc.min(IntVector.fromArray(INT, a, i));
+        }
+        int min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < to; i++) {
+            min = Math.min(min, a[i]);
+        }
+        return min;
+    }
+
+    static long min(long[] a, int from, int to) {
+        LongVector acc = LongVector.broadcast(LONG, Long.MAX_VALUE);
+        int i = from;
+        int bound = from + LONG.loopBound(to - from);
+        for (; i < bound; i += LONG.length()) {
+            acc = acc.min(LongVector.fromArray(LONG, a, i));
+        }
+        long min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < to; i++) {
+            min = Math.min(min, a[i]);
+        }
+        return min;
+    }
+
+    static double min(double[] a, int from, int to) {
+        DoubleVector acc = DoubleVector.broadcast(DOUBLE, Double.POSITIVE_INFINITY);
+        int i = from;
+        int bound = from + DOUBLE.loopBound(to - from);
+        for (; i < bound; i += DOUBLE.length()) {
+            acc = acc.min(DoubleVector.fromArray(DOUBLE, a, i));
+        }
+        double min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < to; i++) {
+            min = Math.min(min, a[i]);
+        }
+        return min;
+    }
+
+    static int max(int[] a, int from, int to) {
+        IntVector acc = IntVector.broadcast(INT, Integer.MIN_VALUE);
+        int i = from;
+        int bound = from + INT.loopBound(to - from);
+        for (; i < bound; i += INT.length()) {
+            acc = acc.max(IntVector.fromArray(INT, a, i));
+        }
+        int max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+
+    static long max(long[] a, int from, int to) {
+        LongVector acc = LongVector.broadcast(LONG, Long.MIN_VALUE);
+        int i = from;
+        int bound = from + LONG.loopBound(to - from);
+        for (; i < bound; i += LONG.length()) {
+            acc = acc.max(LongVector.fromArray(LONG, a, i));
+        }
+        long max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+
+    static double max(double[] a, int from, int to) {
+        DoubleVector acc = DoubleVector.broadcast(DOUBLE, Double.NEGATIVE_INFINITY);
+        int i = from;
+        int bound = from + DOUBLE.loopBound(to - from);
+        for (; i < bound; i += DOUBLE.length()) {
+            acc = acc.max(DoubleVector.fromArray(DOUBLE, a, i));
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+
+    static long countIf(int[] a, int from, int to, Compare cmp, int operand) {
+        long count = 0;
+        int i = from;
+        int bound = from + INT.loopBound(to - from);
+        for (; i < bound; i += INT.length()) {
+            count += IntVector.fromArray(INT, a, i).compare(cmp.vectorOp, operand).trueCount();
+        }
+        for (; i < to; i++) {
+            if (cmp.test(a[i], operand)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static long countIf(long[] a, int from, int to, Compare cmp, long operand) {
+        long count = 0;
+        int i = from;
+        int bound = from + LONG.loopBound(to - from);
+        for (; i < bound; i += LONG.length()) {
+            count += LongVector.fromArray(LONG, a, i).compare(cmp.vectorOp, operand).trueCount();
+        }
+        for (; i < to; i++) {
+            if (cmp.test(a[i], operand)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static long countIf(double[] a, int from, int to, Compare cmp, double operand) {
+        long count = 0;
+        int i = from;
+        int bound = from + DOUBLE.loopBound(to - from);
+        for (; i < bound; i += DOUBLE.length()) {
+            count += DoubleVector.fromArray(DOUBLE, a, i).compare(cmp.vectorOp, operand)
+                    .trueCount();
+        }
+        for (; i < to; i++) {
+            if (cmp.test(a[i], operand)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ---- MemorySegment (레코드 크기 == 필드 크기인 조밀한 배열) ----
+    // offset 은 바이트 단위, count 는 원소 개수
+
+    static long sumInts(MemorySegment s, long offset, long count, ByteOrder order) {
+        LongVector acc = LongVector.zero(LONG);
+        long bound = count - count % INT.length();
+        long i = 0;
+        for (; i < bound; i += INT.length()) {
+            IntVector v = IntVector.fromMemorySegment(INT, s, offset + i * Integer.BYTES, order);
+            acc = acc.add((LongVector) v.convertShape(VectorOperators.I2L, LONG, 0))
+                    .add((LongVector) v.convertShape(VectorOperators.I2L, LONG, 1));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < count; i++) {
+            sum += s.get(intLayout(order), offset + i * Integer.BYTES);
+        }
+        return sum;
+    }
+
+    static long minInts(MemorySegment s, long offset, long count, ByteOrder order) {
+        IntVector acc = IntVector.broadcast(INT, Integer.MAX_VALUE);
+        long bound = count - count % INT.length();
+        long i = 0;
+        for (; i < bound; i += INT.length()) {
+            acc = acc.min(IntVector.fromMemorySegment(INT, s, offset + i * Integer.BYTES, order));
+        }
+        int min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < count; i++) {
+            min = Math.min(min, s.get(intLayout(order), offset + i * Integer.BYTES));
+        }
+        return min;
+    }
+
+    static long maxInts(MemorySegment s, long offset, long count, ByteOrder order) {
+        IntVector acc = IntVector.broadcast(INT, Integer.MIN_VALUE);
+        long bound = count - count % INT.length();
+        long i = 0;
+        for (; i < bound; i += INT.length()) {
+            acc = acc.max(IntVector.fromMemorySegment(INT, s, offset + i * Integer.BYTES, order));
+        }
+        int max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < count; i++) {
+            max = Math.max(max, s.get(intLayout(order), offset + i * Integer.BYTES));
+        }
+        return max;
+    }
+
+    static long countInts(MemorySegment s, long offset, long count, ByteOrder order,
+            Compare cmp, long operand) {
+        // int 범위를 벗어난 비교값은 벡터로 표현할 수 없으므로 스칼라로 처리
+        boolean vectorizable = operand == (int) operand;
+        long bound = vectorizable ? count - count % INT.length() : 0;
+        long matched = 0;
+        long i = 0;
+        for (; i < bound; i += INT.length()) {
+            matched += IntVector.fromMemorySegment(INT, s, offset + i * Integer.BYTES, order)
+                    .compare(cmp.vectorOp, (int) operand).trueCount();
+        }
+        for (; i < count; i++) {
+            if (cmp.test(s.get(intLayout(order), offset + i * Integer.BYTES), operand)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    static long sumLongs(MemorySegment s, long offset, long count, ByteOrder order) {
+        LongVector acc = LongVector.zero(LONG);
+        long bound = count - count % LONG.length();
+        long i = 0;
+        for (; i < bound; i += LONG.length()) {
+            acc = acc.add(LongVector.fromMemorySegment(LONG, s, offset + i * Long.BYTES, order));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < count; i++) {
+            sum += s.get(longLayout(order), offset + i * Long.BYTES);
+        }
+        return sum;
+    }
+
+    static long minLongs(MemorySegment s, long offset, long count, ByteOrder order) {
+        LongVector acc = LongVector.broadcast(LONG, Long.MAX_VALUE);
+        long bound = count - count % LONG.length();
+        long i = 0;
+        for (; i < bound; i += LONG.length()) {
+            acc = acc.min(LongVector.fromMemorySegment(LONG, s, offset + i * Long.BYTES, order));
+        }
+        long min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < count; i++) {
+            min = Math.min(min, s.get(longLayout(order), offset + i * Long.BYTES));
+        }
+        return min;
+    }
+
+    static long maxLongs(MemorySegment s, long offset, long count, ByteOrder order) {
+        LongVector acc = LongVector.broadcast(LONG, Long.MIN_VALUE);
+        long bound = count - count % LONG.length();
+        long i = 0;
+        for (; i < bound; i += LONG.length()) {
+            acc = acc.max(LongVector.fromMemorySegment(LONG, s, offset + i * Long.BYTES, order));
+        }
+        long max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < count; i++) {
+            max = Math.max(max, s.get(longLayout(order), offset + i * Long.BYTES));
+        }
+        return max;
+    }
+
+    static long countLongs(MemorySegment s, long offset, long count, ByteOrder order,
+            Compare cmp, long operand) {
+        long bound = count - count % LONG.length();
+        long matched = 0;
+        long i = 0;
+        for (; i < bound; i += LONG.length()) {
+            matched += LongVector.fromMemorySegment(LONG, s, offset + i * Long.BYTES, order)
+                    .compare(cmp.vectorOp, operand).trueCount();
+        }
+        for (; i < count; i++) {
+            if (cmp.test(s.get(longLayout(order), offset + i * Long.BYTES), operand)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    static double sumDoubles(MemorySegment s, long offset, long count, ByteOrder order) {
+        DoubleVector acc = DoubleVector.zero(DOUBLE);
+        long bound = count - count % DOUBLE.length();
+        long i = 0;
+        for (; i < bound; i += DOUBLE.length()) {
+            acc = acc.add(
+                    DoubleVector.fromMemorySegment(DOUBLE, s, offset + i * Double.BYTES, order));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < count; i++) {
+            sum += s.get(doubleLayout(order), offset + i * Double.BYTES);
+        }
+        return sum;
+    }
+
+    static double minDoubles(MemorySegment s, long offset, long count, ByteOrder order) {
+        DoubleVector acc = DoubleVector.broadcast(DOUBLE, Double.POSITIVE_INFINITY);
+        long bound = count - count % DOUBLE.length();
+        long i = 0;
+        for (; i < bound; i += DOUBLE.length()) {
+            acc = acc.min(
+                    DoubleVector.fromMemorySegment(DOUBLE, s, offset + i * Double.BYTES, order));
+        }
+        double min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < count; i++) {
+            min = Math.min(min, s.get(doubleLayout(order), offset + i * Double.BYTES));
+        }
+        return min;
+    }
+
+    static double maxDoubles(MemorySegment s, long offset, long count, ByteOrder order) {
+        DoubleVector acc = DoubleVector.broadcast(DOUBLE, Double.NEGATIVE_INFINITY);
+        long bound = count - count % DOUBLE.length();
+        long i = 0;
+        for (; i < bound; i += DOUBLE.length()) {
+            acc = acc.max(
+                    DoubleVector.fromMemorySegment(DOUBLE, s, offset + i * Double.BYTES, order));
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < count; i++) {
+            max = Math.max(max, s.get(doubleLayout(order), offset + i * Double.BYTES));
+        }
+        return max;
+    }
+
+    static long countDoubles(MemorySegment s, long offset, long count, ByteOrder order,
+            Compare cmp, double operand) {
+        long bound = count - count % DOUBLE.length();
+        long matched = 0;
+        long i = 0;
+        for (; i < bound; i += DOUBLE.length()) {
+            matched += DoubleVector.fromMemorySegment(DOUBLE, s, offset + i * Double.BYTES, order)
+                    .compare(cmp.vectorOp, operand).trueCount();
+        }
+        for (; i < count; i++) {
+            if (cmp.test(s.get(doubleLayout(order), offset + i * Double.BYTES), operand)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    private static ValueLayout.OfInt intLayout(ByteOrder order) {
+        return ValueLayout.JAVA_INT_UNALIGNED.withOrder(order);
+    }
+
+    private static ValueLayout.OfLong longLayout(ByteOrder order) {
+        return ValueLayout.JAVA_LONG_UNALIGNED.withOrder(order);
+    }
+
+    private static ValueLayout.OfDouble doubleLayout(ByteOrder order) {
+        return ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(order);
+    }
+}
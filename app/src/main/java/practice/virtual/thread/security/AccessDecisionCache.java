@@ -0,0 +1,52 @@
+package practice.virtual.thread.security;
+
+import java.time.Duration;
+import java.util.Objects;
+import practice.virtual.thread.cache.CacheStats;
+import practice.virtual.thread.cache.LoadingCache;
+
+// 리소스 단위 권한 결정((사용자, 리소스, 행위) -> 허용 여부) 캐시
+// 문서 소유자, 공유 설정처럼 PermissionSet 만으로 알 수 없는 결정은 조회 비용이 크므로 결과를 보관한다
+//
+// - 결정 자체는 Policy 가 내리고, 캐시는 LoadingCache(W-TinyLFU) 에 맡긴다
+// - 권한이나 공유 설정이 바뀌면 invalidatePrincipal / invalidateResource 로 지운다
+// - ttl 이 지나면 다시 결정 (invalidate 를 놓쳐도 오래 남지 않도록)
+public final class AccessDecisionCache {
+
+    public record Key(String principal, String tenant, String resource, Permission action) {}
+
+    @FunctionalInterface
+    public interface Policy {
+        boolean decide(Key key) throws Exception;
+    }
+
+    private final LoadingCache<Key, Boolean> cache;
+
+    public AccessDecisionCache(long maximumSize, Duration ttl, Policy policy) {
+        this.cache = LoadingCache.builder(maximumSize).expireAfterWrite(ttl).build(policy::decide);
+    }
+
+    public boolean isAllowed(String principal, String tenant, String resource, Permission action) {
+        return cache.get(new Key(principal, tenant, resource, action));
+    }
+
+    public void invalidatePrincipal(String principal) {
+        cache.invalidateIf(key -> key.principal().equals(principal));
+    }
+
+    public void invalidateResource(String resource) {
+        cache.invalidateIf(key -> key.resource().equals(resource));
+    }
+
+    public void invalidateTenant(String tenant) {
+        cache.invalidateIf(key -> Objects.equals(key.tenant(), tenant));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
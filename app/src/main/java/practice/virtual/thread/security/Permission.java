@@ -0,0 +1,18 @@
+package practice.virtual.thread.security;
+
+// 권한 하나 = PermissionSet 의 bit 하나 (ordinal 순서, 최대 64개)
+// 순서를 바꾸면 저장된 bit 값의 의미가 달라지므로 새 권한은 끝에 추가한다
+public enum Permission {
+    DOCUMENT_READ,
+    DOCUMENT_WRITE,
+    DOCUMENT_DELETE,
+    REPORT_READ,
+    REPORT_EXPORT,
+    ORDER_CREATE,
+    ORDER_CANCEL,
+    TENANT_ADMIN;
+
+    final long mask() {
+        return 1L << ordinal();
+    }
+}
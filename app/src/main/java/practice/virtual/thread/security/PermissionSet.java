@@ -0,0 +1,73 @@
+package practice.virtual.thread.security;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// 요청마다 한 번 계산해서 ScopedValue 로 넘기는 불변 권한 집합
+// 권한 확인은 bit 연산 한 번 (EnumSet / Set<String> 조회 없음)
+public final class PermissionSet {
+
+    public static final PermissionSet NONE = new PermissionSet(0L);
+    public static final PermissionSet ALL = of(Permission.values());
+
+    private final long bits;
+
+    private PermissionSet(long bits) {
+        this.bits = bits;
+    }
+
+    public static PermissionSet of(Permission... permissions) {
+        long bits = 0;
+        for (Permission permission : permissions) {
+            bits |= permission.mask();
+        }
+        return fromBits(bits);
+    }
+
+    public static PermissionSet fromBits(long bits) {
+        return bits == 0 ? NONE : new PermissionSet(bits);
+    }
+
+    public boolean has(Permission permission) {
+        return (bits & permission.mask()) != 0;
+    }
+
+    public boolean hasAll(PermissionSet required) {
+        return (bits & required.bits) == required.bits;
+    }
+
+    public PermissionSet union(PermissionSet other) {
+        long merged = bits | other.bits;
+        return merged == bits ? this : fromBits(merged);
+    }
+
+    public long bits() {
+        return bits;
+    }
+
+    // 조회/로그 용도 (권한 확인에는 사용하지 않는다)
+    public Set<Permission> toSet() {
+        EnumSet<Permission> result = EnumSet.noneOf(Permission.class);
+        for (Permission permission : Permission.values()) {
+            if (has(permission)) {
+                result.add(permission);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PermissionSet set && set.bits == bits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits);
+    }
+
+    @Override
+    public String toString() {
+        return toSet().toString();
+    }
+}
@@ -0,0 +1,44 @@
+package practice.virtual.thread.security;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// 역할 이름 -> 권한 집합
+// 요청이 들어올 때 한 번 resolve 해서 PermissionSet 으로 만들어 둔다
+// 등록되지 않은 역할은 아무 권한도 주지 않는다
+public final class RoleRegistry {
+
+    private final Map<String, PermissionSet> roles;
+
+    private RoleRegistry(Map<String, PermissionSet> roles) {
+        this.roles = Map.copyOf(roles);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private final Map<String, PermissionSet> roles = new HashMap<>();
+
+        private Builder() {}
+
+        public Builder role(String name, Permission... permissions) {
+            roles.merge(name, PermissionSet.of(permissions), PermissionSet::union);
+            return this;
+        }
+
+        public RoleRegistry build() {
+            return new RoleRegistry(roles);
+        }
+    }
+
+    public PermissionSet resolve(Collection<String> roleNames) {
+        PermissionSet result = PermissionSet.NONE;
+        for (String roleName : roleNames) {
+            result = result.union(roles.getOrDefault(roleName, PermissionSet.NONE));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package practice.virtual.thread.structured;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Joiner;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.atomic.AtomicInteger;
+import practice.virtual.thread.deadline.Deadline;
+
+// deadline 까지 성공한 결과만 모은다 (실패한 subtask 는 건너뜀)
+// scope 의 withTimeout 으로 deadline 을 걸면 시간이 지났을 때 나머지는 취소되고
+// join() 은 TimeoutException 을 던지므로, 그때는 partialResults() 로 모은 만큼 읽는다
+public final class DeadlineJoiner<T> implements Joiner<T, List<T>> {
+
+    // timedOut 이면 results 는 deadline 까지 성공한 것만
+    public record Partial<T>(List<T> results, int failed, int cancelled, boolean timedOut) {}
+
+    private final JoinerStats stats;
+    private final ConcurrentLinkedQueue<T> results = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger forked = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public DeadlineJoiner(JoinerStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public boolean onFork(Subtask<? extends T> subtask) {
+        forked.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public boolean onComplete(Subtask<? extends T> subtask) {
+        if (subtask.state() == Subtask.State.SUCCESS) {
+            results.add(subtask.get());
+        } else {
+            failed.incrementAndGet();
+        }
+        completed.incrementAndGet();
+        return false;
+    }
+
+    // 모든 subtask 가 deadline 전에 끝난 경우
+    @Override
+    public List<T> result() {
+        stats.win();
+        return List.copyOf(results);
+    }
+
+    public List<T> partialResults() {
+        return List.copyOf(results);
+    }
+
+    public int unfinished() {
+        return forked.get() - completed.get();
+    }
+
+    // tasks 를 모두 fork 하고 timeout 까지 기다린 뒤 그때까지의 결과를 돌려준다
+    // 호출자에게 Deadline 이 바인딩되어 있으면 남은 예산을 넘겨 기다리지 않는다 (subtask 에도 상속됨)
+    public static <T> Partial<T> invokeAll(Duration timeout, List<? extends Callable<? extends T>> tasks,
+            JoinerStats stats) throws InterruptedException {
+        DeadlineJoiner<T> joiner = new DeadlineJoiner<>(stats);
+        Duration budget = Duration.ofNanos(Deadline.clamp(timeout.toNanos()));
+        try (var scope = StructuredTaskScope.open(joiner, config -> config.withTimeout(budget))) {
+            for (Callable<? extends T> task : tasks) {
+                scope.fork(task);
+            }
+            try {
+                List<T> all = scope.join();
+                return new Partial<>(all, joiner.failed.get(), 0, false);
+            } catch (StructuredTaskScope.TimeoutException e) {
+                int cancelled = joiner.unfinished();
+                stats.cancelled(cancelled);
+                return new Partial<>(joiner.partialResults(), joiner.failed.get(), cancelled, true);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package practice.virtual.thread.structured;
+
+import java.util.concurrent.StructuredTaskScope.Joiner;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// 가장 먼저 성공한 subtask 의 결과를 사용하고 나머지는 취소 (hedging 용)
+// 모두 실패하면 처음 실패한 예외를 던진다
+public final class FirstSuccessJoiner<T> implements Joiner<T, T> {
+
+    private final JoinerStats stats;
+    private final AtomicReference<Subtask<? extends T>> winner = new AtomicReference<>();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    private final AtomicInteger forked = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+
+    public FirstSuccessJoiner(JoinerStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public boolean onFork(Subtask<? extends T> subtask) {
+        forked.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public boolean onComplete(Subtask<? extends T> subtask) {
+        completed.incrementAndGet();
+        if (subtask.state() == Subtask.State.SUCCESS) {
+            return winner.compareAndSet(null, subtask); // true 면 scope 취소
+        }
+        firstFailure.compareAndSet(null, subtask.exception());
+        return false;
+    }
+
+    @Override
+    public T result() throws Throwable {
+        stats.cancelled(forked.get() - completed.get());
+        Subtask<? extends T> first = winner.get();
+        if (first == null) {
+            stats.failure();
+            Throwable failure = firstFailure.get();
+            throw failure != null ? failure : new IllegalStateException("성공한 subtask 가 없습니다");
+        }
+        stats.win();
+        return first.get();
+    }
+}
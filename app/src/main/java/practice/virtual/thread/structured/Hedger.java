@@ -0,0 +1,78 @@
+package practice.virtual.thread.structured;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.StructuredTaskScope;
+import practice.virtual.thread.observation.LatencyHistogram;
+
+// hedged request : 첫 요청이 p95 시간 안에 끝나지 않으면 다른 복제본에 백업 요청을 보내고
+// 먼저 성공한 쪽을 사용한다. 느린 복제본 하나가 p99 를 결정하는 상황을 줄인다
+//
+// - 백업 subtask 는 hedge 지연만큼 잠들었다가 시작한다.
+//   그 전에 첫 요청이 성공하면 scope 가 취소되어 백업 요청은 보내지 않는다
+// - hedge 지연 = 지금까지 관찰한 첫 요청 응답 시간의 p95 (표본이 적을 때는 initialDelay)
+//   hedge 된 호출 전체 시간(≤ hedge 지연 + 백업 응답 시간)을 기록하면 hedge 할수록 p95 가 내려가고
+//   지연이 짧아져 더 많이 hedge 하게 된다. 그래서 첫 요청만 기록하고, 백업이 이겨 취소된 첫 요청은
+//   취소될 때까지의 시간(실제 응답 시간의 하한)을 기록한다
+// - 첫 요청 응답 시간 분포가 유지되면 백업 요청 비율은 대략 (100 - percentile)% 이다
+public final class Hedger {
+
+    private record Attempt<V>(V value, boolean hedged) {}
+
+    private final Duration initialDelay;
+    private final double percentile;
+    private final long minSamples;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final JoinerStats stats = new JoinerStats();
+
+    public Hedger(Duration initialDelay) {
+        this(initialDelay, 95.0, 100);
+    }
+
+    public Hedger(Duration initialDelay, double percentile, long minSamples) {
+        this.initialDelay = initialDelay;
+        this.percentile = percentile;
+        this.minSamples = minSamples;
+    }
+
+    public Duration hedgeDelay() {
+        if (latency.count() < minSamples) {
+            return initialDelay;
+        }
+        return Duration.ofNanos(latency.valueAtPercentile(percentile));
+    }
+
+    public <V> V call(Callable<? extends V> primary, Callable<? extends V> backup)
+            throws InterruptedException {
+        Duration delay = hedgeDelay();
+        try (var scope = StructuredTaskScope.open(new FirstSuccessJoiner<Attempt<V>>(stats))) {
+            scope.fork(() -> {
+                long start = System.nanoTime();
+                try {
+                    return new Attempt<V>(primary.call(), false);
+                } finally {
+                    latency.record(System.nanoTime() - start); // 취소되었으면 그때까지의 시간
+                }
+            });
+            scope.fork(() -> {
+                Thread.sleep(delay); // 첫 요청이 먼저 성공하면 여기서 인터럽트되어 끝난다
+                stats.hedge();
+                return new Attempt<V>(backup.call(), true);
+            });
+            Attempt<V> winner = scope.join();
+            if (winner.hedged()) {
+                stats.hedgeWin();
+            }
+            return winner.value();
+        }
+    }
+
+    public JoinerStats stats() {
+        return stats;
+    }
+
+    // 첫 요청 응답 시간 분포 (nanos)
+    public LatencyHistogram latency() {
+        return latency;
+    }
+}
@@ -0,0 +1,60 @@
+package practice.virtual.thread.structured;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Joiner 는 scope 마다 새로 만들지만 통계는 여러 scope 에 걸쳐 모은다
+public final class JoinerStats {
+
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    void win() {
+        wins.increment();
+    }
+
+    void hedge() {
+        hedges.increment();
+    }
+
+    void hedgeWin() {
+        hedgeWins.increment();
+    }
+
+    void cancelled(long count) {
+        if (count > 0) {
+            cancelled.add(count);
+        }
+    }
+
+    void failure() {
+        failures.increment();
+    }
+
+    // 원하는 결과를 얻고 끝난 scope 수
+    public long winCount() {
+        return wins.sum();
+    }
+
+    // 지연 후 실제로 시작한 백업 요청 수
+    public long hedgeCount() {
+        return hedges.sum();
+    }
+
+    // 백업 요청이 먼저 성공한 횟수
+    public long hedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    // scope 가 먼저 끝나서 취소된 subtask 수
+    public long cancelCount() {
+        return cancelled.sum();
+    }
+
+    // 원하는 결과를 얻지 못한 scope 수
+    public long failureCount() {
+        return failures.sum();
+    }
+}
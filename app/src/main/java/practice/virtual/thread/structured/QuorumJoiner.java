@@ -0,0 +1,67 @@
+package practice.virtual.thread.structured;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.StructuredTaskScope.Joiner;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// n 개 중 k 개가 성공하면 그 결과로 끝내고 나머지는 취소 (복제본 k-of-n 읽기/쓰기)
+// 모든 subtask 가 끝났는데 k 개에 못 미치면 예외
+public final class QuorumJoiner<T> implements Joiner<T, List<T>> {
+
+    private final int quorum;
+    private final JoinerStats stats;
+    private final ConcurrentLinkedQueue<T> results = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger successes = new AtomicInteger();
+    private final AtomicInteger forked = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+
+    public QuorumJoiner(int quorum, JoinerStats stats) {
+        if (quorum <= 0) {
+            throw new IllegalArgumentException("quorum 은 1 이상이어야 합니다");
+        }
+        this.quorum = quorum;
+        this.stats = stats;
+    }
+
+    @Override
+    public boolean onFork(Subtask<? extends T> subtask) {
+        forked.incrementAndGet();
+        return false;
+    }
+
+    @Override
+    public boolean onComplete(Subtask<? extends T> subtask) {
+        completed.incrementAndGet();
+        if (subtask.state() == Subtask.State.SUCCESS) {
+            results.add(subtask.get());
+            return successes.incrementAndGet() == quorum;
+        }
+        failures.add(subtask.exception());
+        return false;
+    }
+
+    @Override
+    public List<T> result() {
+        stats.cancelled(forked.get() - completed.get());
+        if (successes.get() < quorum) {
+            stats.failure();
+            IllegalStateException exception = new IllegalStateException(
+                    "quorum 미달: " + successes.get() + " / " + quorum);
+            failures.forEach(exception::addSuppressed);
+            throw exception;
+        }
+        stats.win();
+        List<T> first = new ArrayList<>(quorum);
+        for (T result : results) {
+            if (first.size() == quorum) {
+                break;
+            }
+            first.add(result);
+        }
+        return first;
+    }
+}
@@ -0,0 +1,269 @@
+package practice.virtual.thread.tenant;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import practice.virtual.thread.deadline.Deadline;
+
+// 테넌트별 동시 실행 제한(bulkhead)과 가중치 공정 대기열
+// 한 테넌트가 몰려도 다른 테넌트의 지연시간이 함께 올라가지 않도록 한다
+//
+// - 전체 동시 실행 수(totalConcurrency) 와 테넌트별 동시 실행 수(maxConcurrent) 를 모두 지켜야 입장
+// - 자리가 없으면 테넌트별 대기열에 줄을 서고, 자리가 나면 deficit round-robin 으로
+//   가중치(weight) 비율만큼 번갈아 입장시킨다 (weight 3 : 1 이면 3번 : 1번)
+// - 대기열이 maxQueue 를 넘거나 queueTimeout 안에 입장하지 못하면 RejectedExecutionException
+//   (Deadline 이 바인딩되어 있으면 남은 예산과 queueTimeout 중 짧은 쪽)
+// - 대기는 ReentrantLock/Condition 으로 하므로 가상 스레드는 unmount 된다
+public final class TenantBulkheads {
+
+    public record Limits(int maxConcurrent, int weight, int maxQueue) {
+        public Limits {
+            if (maxConcurrent <= 0 || weight <= 0 || maxQueue < 0) {
+                throw new IllegalArgumentException(
+                        "maxConcurrent, weight 는 1 이상, maxQueue 는 0 이상이어야 합니다");
+            }
+        }
+    }
+
+    public record TenantStats(String tenant, int inFlight, int queueDepth, long admitted,
+            long queued, long rejected) {}
+
+    // 입장 허가. close 하면 자리를 반납한다
+    public final class Permit implements AutoCloseable {
+        private final TenantState tenant;
+        private boolean released;
+
+        private Permit(TenantState tenant) {
+            this.tenant = tenant;
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                released = true;
+                tenant.inFlight--;
+                inFlight--;
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final int totalConcurrency;
+    private final Limits defaultLimits;
+    private final Map<String, Limits> tenantLimits;
+    private final long queueTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, TenantState> tenants = new HashMap<>();
+    // 대기자가 있는 테넌트의 순환 목록 (deficit round-robin)
+    private final ArrayDeque<TenantState> active = new ArrayDeque<>();
+    private int inFlight;
+
+    private TenantBulkheads(Builder builder) {
+        this.totalConcurrency = builder.totalConcurrency;
+        this.defaultLimits = builder.defaultLimits;
+        this.tenantLimits = Map.copyOf(builder.tenantLimits);
+        this.queueTimeoutNanos = builder.queueTimeout.toNanos();
+    }
+
+    public static Builder builder(int totalConcurrency) {
+        return new Builder(totalConcurrency);
+    }
+
+    public static final class Builder {
+        private final int totalConcurrency;
+        private Limits defaultLimits;
+        private final Map<String, Limits> tenantLimits = new HashMap<>();
+        private Duration queueTimeout = Duration.ofSeconds(30);
+
+        private Builder(int totalConcurrency) {
+            if (totalConcurrency <= 0) {
+                throw new IllegalArgumentException("totalConcurrency 는 1 이상이어야 합니다");
+            }
+            this.totalConcurrency = totalConcurrency;
+            this.defaultLimits = new Limits(totalConcurrency, 1, Integer.MAX_VALUE);
+        }
+
+        public Builder defaults(int maxConcurrent, int weight, int maxQueue) {
+            this.defaultLimits = new Limits(maxConcurrent, weight, maxQueue);
+            return this;
+        }
+
+        public Builder tenant(String tenant, int maxConcurrent, int weight, int maxQueue) {
+            tenantLimits.put(tenant, new Limits(maxConcurrent, weight, maxQueue));
+            return this;
+        }
+
+        public Builder queueTimeout(Duration queueTimeout) {
+            this.queueTimeout = queueTimeout;
+            return this;
+        }
+
+        public TenantBulkheads build() {
+            return new TenantBulkheads(this);
+        }
+    }
+
+    private static final class TenantState {
+        final String name;
+        final Limits limits;
+        final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        int inFlight;
+        int deficit;
+        long admitted;
+        long queued;
+        long rejected;
+
+        TenantState(String name, Limits limits) {
+            this.name = name;
+            this.limits = limits;
+        }
+    }
+
+    private static final class Waiter {
+        final Condition admittedSignal;
+        boolean admitted;
+
+        Waiter(Condition admittedSignal) {
+            this.admittedSignal = admittedSignal;
+        }
+    }
+
+    // ---- 입장 ----
+
+    public Permit admit(String tenantId) {
+        lock.lock();
+        try {
+            TenantState tenant = tenants.computeIfAbsent(tenantId,
+                    id -> new TenantState(id, tenantLimits.getOrDefault(id, defaultLimits)));
+
+            // 대기자가 없고 자리가 있으면 바로 입장
+            if (tenant.queue.isEmpty() && inFlight < totalConcurrency
+                    && tenant.inFlight < tenant.limits.maxConcurrent()) {
+                return enter(tenant);
+            }
+            if (tenant.queue.size() >= tenant.limits.maxQueue()) {
+                tenant.rejected++;
+                throw new RejectedExecutionException(tenantId + " 대기열이 가득 찼습니다");
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition());
+            if (tenant.queue.isEmpty()) {
+                active.addLast(tenant);
+            }
+            tenant.queue.addLast(waiter);
+            tenant.queued++;
+
+            long remaining = Deadline.clamp(queueTimeoutNanos);
+            boolean interrupted = false;
+            while (!waiter.admitted && remaining > 0 && !interrupted) {
+                try {
+                    remaining = waiter.admittedSignal.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (waiter.admitted) {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Permit(tenant);
+            }
+
+            tenant.queue.remove(waiter);
+            if (tenant.queue.isEmpty()) {
+                active.remove(tenant);
+                tenant.deficit = 0;
+            }
+            tenant.rejected++;
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(tenantId + " 대기 중 인터럽트");
+            }
+            throw new RejectedExecutionException(tenantId + " 대기 시간 초과");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void run(String tenantId, Runnable task) {
+        try (Permit _ = admit(tenantId)) {
+            task.run();
+        }
+    }
+
+    private Permit enter(TenantState tenant) {
+        tenant.inFlight++;
+        tenant.admitted++;
+        inFlight++;
+        return new Permit(tenant);
+    }
+
+    // 락을 잡은 상태에서 호출: 빈 자리를 deficit round-robin 순서로 대기자에게 넘긴다
+    private void dispatch() {
+        int skipped = 0;
+        while (inFlight < totalConcurrency && !active.isEmpty() && skipped < active.size()) {
+            TenantState tenant = active.peekFirst();
+            if (tenant.inFlight >= tenant.limits.maxConcurrent()) {
+                active.addLast(active.pollFirst()); // bulkhead 가 찬 테넌트는 건너뜀
+                skipped++;
+                continue;
+            }
+            if (tenant.deficit < 1) {
+                tenant.deficit += tenant.limits.weight();
+            }
+            while (tenant.deficit >= 1 && !tenant.queue.isEmpty() && inFlight < totalConcurrency
+                    && tenant.inFlight < tenant.limits.maxConcurrent()) {
+                Waiter waiter = tenant.queue.pollFirst();
+                tenant.deficit--;
+                enter(tenant);
+                waiter.admitted = true;
+                waiter.admittedSignal.signal();
+            }
+            skipped = 0;
+            if (tenant.queue.isEmpty()) {
+                active.pollFirst();
+                tenant.deficit = 0;
+            } else if (tenant.deficit >= 1 && inFlight >= totalConcurrency) {
+                return; // 전체 자리가 찼다. 남은 deficit 은 다음 자리가 날 때 사용
+            } else {
+                active.addLast(active.pollFirst()); // 몫을 다 썼거나 bulkhead 가 찼다
+            }
+        }
+    }
+
+    // ---- 상태 ----
+
+    public TenantStats stats(String tenantId) {
+        lock.lock();
+        try {
+            TenantState tenant = tenants.get(tenantId);
+            if (tenant == null) {
+                return new TenantStats(tenantId, 0, 0, 0, 0, 0);
+            }
+            return new TenantStats(tenantId, tenant.inFlight, tenant.queue.size(),
+                    tenant.admitted, tenant.queued, tenant.rejected);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
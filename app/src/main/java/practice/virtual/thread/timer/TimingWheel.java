@@ -0,0 +1,366 @@
+package practice.virtual.thread.timer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import practice.virtual.thread.observation.LatencyHistogram;
+
+// 계층형 hashed timing wheel
+// 요청마다 timeout 을 걸고 대부분은 응답이 와서 취소하는 패턴을 위한 타이머
+// ScheduledThreadPoolExecutor 는 heap(O(log n)) + 락 하나라서 대기 중인 타이머가 수십만 개면
+// 등록/취소가 서로 경합한다
+//
+// - schedule / cancel : 락 없는 큐에 넣고 CAS 한 번 (O(1)). 바퀴 구조는 worker 스레드 하나만 만진다
+// - 바퀴는 LEVELS 단계. 0 단계 칸 하나 = tick, 한 단계 위 칸 하나 = 아래 단계 한 바퀴
+//   먼 timeout 은 위 단계에 넣었다가 그 칸 차례가 오면 아래 단계로 내려 보낸다 (cascade)
+// - 정밀도는 tick 단위 : 예정 시각보다 최대 tick 만큼 늦게 실행된다 (일찍 실행되지는 않음)
+// - 만료된 작업은 executor 에서 실행 (기본: 작업마다 가상 스레드)
+//   worker 는 정확한 간격으로 깨어나야 하므로 플랫폼 데몬 스레드
+// - Deadline 은 적용하지 않는다 : timeout 자체가 deadline 을 지키는 수단이고, 만료 작업은 요청이 포기된 뒤에 돌아야 하는 경우가 많다
+public final class TimingWheel implements AutoCloseable {
+
+    private static final int LEVELS = 4;
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final int wheelBits;
+    private final int mask;
+    private final Executor executor;
+    private final Bucket[][] wheels;
+    private final long startNanos;
+    private final Thread worker;
+    private volatile boolean closed;
+    // closed 를 확인하고 scheduled 에 넣는 중인 schedule 수 (worker 는 0 이 된 뒤에 남은 것을 정리한다)
+    private final AtomicInteger scheduling = new AtomicInteger();
+    private long currentTick; // worker 전용
+
+    // schedule / cancel 은 큐에만 넣고 worker 가 다음 tick 에 바퀴에 반영한다
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder pending = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder cancelledCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LatencyHistogram drift = new LatencyHistogram();
+
+    // 예약한 작업의 핸들. cancel() 은 어느 스레드에서 불러도 된다
+    public static final class Timeout {
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                STATE = MethodHandles.lookup().findVarHandle(Timeout.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile int state;
+        // 아래는 worker 전용
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadlineNanos) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        // 이미 실행됐거나 취소됐으면 false
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.pending.decrement();
+            wheel.cancelledCount.increment();
+            wheel.cancelled.add(this); // 바퀴에서 떼어내는 것은 worker 가 한다
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        public Duration remaining() {
+            return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+        }
+    }
+
+    // 한 칸 = Timeout 의 이중 연결 리스트 (중간 삭제 O(1))
+    private static final class Bucket {
+        private Timeout head;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        // 리스트를 통째로 떼어낸다
+        Timeout detach() {
+            Timeout first = head;
+            head = null;
+            return first;
+        }
+    }
+
+    private TimingWheel(Builder builder) {
+        this.tickNanos = builder.tick.toNanos();
+        this.wheelBits = Integer.numberOfTrailingZeros(builder.wheelSize);
+        this.mask = builder.wheelSize - 1;
+        this.executor = builder.executor;
+        this.wheels = new Bucket[LEVELS][builder.wheelSize];
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = Thread.ofPlatform().daemon().name("timing-wheel").start(this::run);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private Duration tick = Duration.ofMillis(1);
+        private int wheelSize = 256;
+        private Executor executor = task -> Thread.ofVirtual().name("timing-wheel-task").start(task);
+
+        private Builder() {}
+
+        // 정밀도. 짧을수록 정확하지만 worker 가 자주 깨어난다
+        public Builder tick(Duration tick) {
+            if (tick.toNanos() < TimeUnit.MICROSECONDS.toNanos(100)) {
+                throw new IllegalArgumentException("tick 은 100us 이상이어야 합니다");
+            }
+            this.tick = tick;
+            return this;
+        }
+
+        // 단계마다 칸 수 (2의 거듭제곱). 기본 256 칸 x 4 단계 = 2^32 tick
+        public Builder wheelSize(int wheelSize) {
+            if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+                throw new IllegalArgumentException("wheelSize 는 2 이상의 2의 거듭제곱이어야 합니다");
+            }
+            this.wheelSize = wheelSize;
+            return this;
+        }
+
+        // 만료된 작업을 실행할 곳. 아주 짧은 작업이면 Runnable::run (worker 에서 바로 실행)
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public TimingWheel build() {
+            return new TimingWheel(this);
+        }
+    }
+
+    // ---- 예약 ----
+
+    public Timeout schedule(Runnable task, Duration delay) {
+        scheduling.incrementAndGet(); // closed 보다 먼저 : 종료하는 worker 가 이 schedule 을 놓치지 않도록
+        try {
+            if (closed) {
+                throw new RejectedExecutionException("timing wheel 이 종료되었습니다");
+            }
+            Timeout timeout = new Timeout(this, task, System.nanoTime() + Math.max(0, delay.toNanos()));
+            pending.increment();
+            scheduled.add(timeout);
+            return timeout;
+        } finally {
+            scheduling.decrementAndGet();
+        }
+    }
+
+    // ---- worker ----
+
+    private void run() {
+        while (!closed) {
+            long tickStart = startNanos + (currentTick + 1) * tickNanos;
+            long sleep = tickStart - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep); // 늦었으면 쉬지 않고 밀린 tick 을 처리
+                continue;
+            }
+            currentTick++;
+            transferCancelled();
+            transferScheduled();
+            cascade();
+            expire(wheels[0][(int) (currentTick & mask)]);
+        }
+        // close 와 겹친 schedule 이 큐에 넣기를 마칠 때까지 (넣기만 하므로 금방 끝난다)
+        while (scheduling.get() != 0) {
+            Thread.onSpinWait();
+        }
+        abandonAll();
+    }
+
+    private void transferCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferScheduled() {
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.state == PENDING) {
+                place(timeout);
+            }
+        }
+    }
+
+    // 남은 tick 수로 단계를 고르고, 만료 tick 의 해당 단계 자리수로 칸을 고른다
+    private void place(Timeout timeout) {
+        long deadlineTick = Math.max(currentTick, Math.ceilDiv(timeout.deadlineNanos - startNanos, tickNanos));
+        long delta = deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (wheelBits * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((deadlineTick >>> (wheelBits * level)) & mask);
+        wheels[level][slot].add(timeout);
+    }
+
+    // 아래 단계가 한 바퀴 돌 때마다 위 단계의 다음 칸을 풀어서 다시 배치한다
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = wheelBits * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            Timeout timeout = wheels[level][(int) ((currentTick >>> shift) & mask)].detach();
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.bucket = null;
+                timeout.prev = null;
+                timeout.next = null;
+                if (timeout.state == PENDING) {
+                    place(timeout);
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.detach();
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+            if (Timeout.STATE.compareAndSet(timeout, PENDING, EXPIRED)) {
+                pending.decrement();
+                expiredCount.increment();
+                drift.record(Math.max(0, System.nanoTime() - timeout.deadlineNanos));
+                try {
+                    executor.execute(timeout.task);
+                } catch (RuntimeException e) {
+                    rejectedCount.increment(); // executor 가 거절해도 다른 timeout 은 계속 처리
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    // 종료 시 실행되지 않은 timeout 은 취소 상태로 남긴다
+    private void abandonAll() {
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                for (Timeout timeout = bucket.detach(); timeout != null; timeout = timeout.next) {
+                    timeout.cancel();
+                }
+            }
+        }
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            timeout.cancel();
+        }
+        cancelled.clear();
+    }
+
+    // ---- 상태 ----
+
+    // 실행도 취소도 되지 않은 timeout 수
+    public long pendingCount() {
+        return pending.sum();
+    }
+
+    public long expiredCount() {
+        return expiredCount.sum();
+    }
+
+    public long cancelledCount() {
+        return cancelledCount.sum();
+    }
+
+    // 만료됐지만 executor 가 거절해서 실행하지 못한 작업 수
+    public long rejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    // 예정 시각 대비 실제 만료 시각의 지연 (nanos). 대부분 tick 이하여야 한다
+    public LatencyHistogram drift() {
+        return drift;
+    }
+
+    public Duration tick() {
+        return Duration.ofNanos(tickNanos);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
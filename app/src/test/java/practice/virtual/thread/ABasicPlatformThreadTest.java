@@ -12,6 +12,7 @@ import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import org.junit.jupiter.api.Test;
+import practice.virtual.thread.observation.TraceIds;
 
 class ABasicPlatformThreadTest {
 
@@ -55,7 +56,7 @@ class ABasicPlatformThreadTest {
     void threadLocalTest() {
 
         Function<String, Runnable> request = (String user) -> () -> {
-            transactionId.set(UUID.randomUUID());
+            transactionId.set(TraceIds.uuidV7());
             System.out.println("transactionId: " + transactionId.get());
             System.out.println("name: " + user);
 
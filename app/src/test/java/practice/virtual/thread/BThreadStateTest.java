@@ -34,7 +34,7 @@ class BThreadStateTest {
         Runnable task = () -> {
             while(!Thread.currentThread().isInterrupted()) {
                count.getAndIncrement(); 
-               System.out.println(count.get());
+               Logs.LOG.log("{}", count.get()); // println 은 PrintStream 락을 잡고 직접 출력
             }
         };
 
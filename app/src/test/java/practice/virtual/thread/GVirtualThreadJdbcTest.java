@@ -0,0 +1,104 @@
+package practice.virtual.thread;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import practice.virtual.thread.batch.GroupCommitWriter;
+import practice.virtual.thread.batch.Outcome;
+import practice.virtual.thread.jdbc.InMemoryDataSource;
+import practice.virtual.thread.jdbc.TenantConnectionPool;
+
+class GVirtualThreadJdbcTest {
+
+    // 가상 스레드 1만 개가 동시에 DB 를 쓰려고 해도 실제로 동시에 실행되는 쿼리 수는
+    // 커넥션 풀 크기만큼이다. 가상 스레드에서는 풀이 진짜 동시성 제한 장치가 된다
+
+    @Test
+    @DisplayName("가상 스레드 수와 상관없이 테넌트별 커넥션 수는 max 를 넘지 않는다")
+    void virtualThreadsShareTenantPools() {
+        Map<String, InMemoryDataSource> databases = Map.of(
+                "SomeCompany", new InMemoryDataSource("SomeCompany", Duration.ofMillis(5), Duration.ofMillis(2)),
+                "OtherCompany", new InMemoryDataSource("OtherCompany", Duration.ofMillis(5), Duration.ofMillis(2)));
+        AtomicInteger failed = new AtomicInteger();
+
+        try (var pool = TenantConnectionPool.builder(databases::get)
+                .tenantKey(TenantAspect.TENANT_ID)
+                .limits(1, 10)
+                .limits("OtherCompany", 0, 4) // 작은 고객사는 커넥션을 적게
+                .build();
+                var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            TenantAspect tenant = new TenantAspect();
+            DataSourceManager manager = new DataSourceManager(pool);
+
+            IntStream.range(0, 10_000).forEach(i -> executor.submit(() -> {
+                String tenantId = i % 4 == 0 ? "OtherCompany" : "SomeCompany";
+                tenant.processTenantRequest(tenantId, () -> {
+                    // try-with-resources 로 닫으면 물리 커넥션은 닫히지 않고 풀에 반납된다
+                    try (Connection connection = manager.getConnection();
+                            Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("update orders set status = 'DONE'");
+                    } catch (SQLException e) {
+                        failed.incrementAndGet();
+                    }
+                });
+            }));
+            executor.close();
+
+            var some = pool.stats("SomeCompany");
+            var other = pool.stats("OtherCompany");
+
+            assertThat(failed.get()).isZero();
+            assertThat(databases.get("SomeCompany").peakOpenConnections()).isLessThanOrEqualTo(10);
+            assertThat(databases.get("OtherCompany").peakOpenConnections()).isLessThanOrEqualTo(4);
+            assertThat(some.acquired() + other.acquired()).isEqualTo(10_000);
+            assertThat(some.inUse()).isZero();
+            // 대기 시간 분포로 풀 크기가 적당한지 판단한다
+            assertThat(some.waitTime().count()).isEqualTo(some.acquired());
+            assertThat(other.waitTime().p99()).isPositive();
+        }
+    }
+
+    @Test
+    @DisplayName("group commit : 요청마다 쿼리하지 않고 모아서 한 번에 기록한다")
+    void groupCommit() {
+        InMemoryDataSource database = new InMemoryDataSource("SomeCompany", Duration.ZERO, Duration.ofMillis(2));
+
+        try (var pool = TenantConnectionPool.builder(_ -> database).build();
+                var writer = GroupCommitWriter.<String, Integer>builder(orders -> {
+                    // 배치 하나에 커넥션 하나, 쿼리(왕복) 한 번
+                    try (Connection connection = pool.getConnection("SomeCompany");
+                            Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("insert into orders values " + String.join(",", orders));
+                    }
+                    return orders.stream().map(_ -> Outcome.success(1)).toList();
+                }).maxBatchSize(100).build()) {
+
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                IntStream.range(0, 5_000).forEach(i -> executor.submit(() -> writer.write("(" + i + ")")));
+            }
+
+            assertThat(writer.itemCount()).isEqualTo(5_000);
+            assertThat(database.queryCount()).isEqualTo(writer.batchCount()).isLessThan(5_000);
+        }
+    }
+
+    @Test
+    @DisplayName("풀 없이 만든 DataSourceManager 는 커넥션을 줄 수 없다")
+    void withoutPool() {
+        assertThatThrownBy(() -> new DataSourceManager().getConnection())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    // 대기는 ReentrantLock/Condition 으로 하므로 기다리는 가상 스레드는 캐리어에서 unmount 된다
+    // (synchronized + wait() 로 만든 풀은 JDK 21 에서 캐리어 스레드를 점유한다)
+}
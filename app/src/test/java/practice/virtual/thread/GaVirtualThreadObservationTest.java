@@ -1,8 +1,8 @@
 package practice.virtual.thread;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import java.util.UUID;
 import org.junit.jupiter.api.Test;
+import practice.virtual.thread.observation.SpanRecorder;
 
 class GaVirtualThreadObservationTest {
 
@@ -16,20 +16,20 @@ class GaVirtualThreadObservationTest {
 
         assertThat(ObservationAspect.TX_ID.isBound()).isFalse();
     }
-    
-}
 
-class ObservationAspect {
-    public static final ScopedValue<String> TX_ID = ScopedValue.newInstance();
+    @Test
+    void spanNesting() {
+        long traced = ObservationAspect.SPANS.histogram("trace").count();
 
-    public void trace(Runnable businessLogic) {
-        String generatedId = UUID.randomUUID().toString();
-        ScopedValue.where(TX_ID, generatedId).run(businessLogic);
-    }
-}
+        new ObservationAspect().trace(() -> new OrderService().create());
 
-class OrderService {
-    public void create() {
-        System.out.println("[LOG] TraceId" + ObservationAspect.TX_ID.get());
+        // 가장 최근 기록부터: trace(부모)가 끝나기 전에 order.create(자식)가 먼저 끝난다
+        var spans = ObservationAspect.SPANS.recent(2);
+        assertThat(spans).extracting(SpanRecorder.SpanRecord::name)
+                .containsExactly("trace", "order.create");
+        assertThat(spans.get(1).parentId()).isEqualTo(spans.get(0).spanId());
+        assertThat(ObservationAspect.SPANS.histogram("trace").count()).isEqualTo(traced + 1);
+        assertThat(ObservationAspect.SPANS.histogram("order.create").p99()).isPositive();
     }
-}
\ No newline at end of file
+    
+}
@@ -1,7 +1,23 @@
 package practice.virtual.thread;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import practice.virtual.thread.loader.BatchLoader;
+import practice.virtual.thread.lock.KeyedLocks;
+import practice.virtual.thread.security.AccessDecisionCache;
+import practice.virtual.thread.security.Permission;
+import practice.virtual.thread.security.PermissionSet;
+import practice.virtual.thread.security.RoleRegistry;
 
 class GbVirtualThreadUserPrincipalTest {
 
@@ -19,25 +35,97 @@ class GbVirtualThreadUserPrincipalTest {
 
         assertThat(SecurityAspect.CURRENT_USER.isBound()).isFalse();
     }
-}
 
+    @Test
+    @DisplayName("역할은 요청마다 한 번 PermissionSet 으로 풀고, 권한 확인은 bit 연산으로 한다")
+    void permissionBitset() {
+        RoleRegistry roles = RoleRegistry.builder()
+                .role("viewer", Permission.DOCUMENT_READ)
+                .role("editor", Permission.DOCUMENT_READ, Permission.DOCUMENT_WRITE)
+                .role("owner", Permission.DOCUMENT_DELETE)
+                .build();
+        SecurityAspect security = new SecurityAspect(roles, null);
 
-class SecurityAspect {
-    public static final ScopedValue<User> CURRENT_USER = ScopedValue.newInstance();
+        security.runWithAuth("matthew", "SomeCompany", Set.of("editor", "owner"),
+                () -> new DocumentService().delete(123123L));
 
-    public void runWithAuth(User user, Runnable task) {
-        ScopedValue.where(CURRENT_USER, user).run(task);
+        assertThatThrownBy(() -> security.runWithAuth("guest", "SomeCompany", Set.of("viewer"),
+                () -> new DocumentService().delete(123123L)))
+                .isInstanceOf(SecurityException.class);
     }
-}
 
-class DocumentService {
-    public void delete(Long docId) {
-        User user = SecurityAspect.CURRENT_USER.get();
-        if (!user.isAdmin()) {
-            throw new SecurityException("권한이 없습니다: " + user.name());
+    @Test
+    @DisplayName("리소스 단위 결정은 캐시해 두고, 공유 설정이 바뀌면 그 리소스만 지운다")
+    void decisionCache() {
+        Set<String> sharedDocs = ConcurrentHashMap.newKeySet();
+        sharedDocs.add("document:1");
+        AtomicInteger policyCalls = new AtomicInteger();
+        AccessDecisionCache decisions = new AccessDecisionCache(10_000, Duration.ofMinutes(5), key -> {
+            policyCalls.incrementAndGet(); // 공유 설정 조회 (DB)
+            return sharedDocs.contains(key.resource());
+        });
+        SecurityAspect security = new SecurityAspect(
+                RoleRegistry.builder().role("viewer", Permission.DOCUMENT_READ).build(), decisions);
+
+        security.runWithAuth("matthew", "SomeCompany", Set.of("viewer"), () -> {
+            for (int i = 0; i < 100; i++) {
+                assertThat(security.isAllowed("document:1", Permission.DOCUMENT_READ)).isTrue();
+                assertThat(security.isAllowed("document:2", Permission.DOCUMENT_READ)).isFalse();
+                // 역할에 없는 권한은 캐시를 보지 않고 bit 확인에서 끝난다
+                assertThat(security.isAllowed("document:1", Permission.DOCUMENT_DELETE)).isFalse();
+            }
+        });
+        assertThat(policyCalls.get()).isEqualTo(2);
+
+        sharedDocs.add("document:2");
+        decisions.invalidateResource("document:2");
+
+        security.runWithAuth("matthew", "SomeCompany", Set.of("viewer"),
+                () -> assertThat(security.isAllowed("document:2", Permission.DOCUMENT_READ)).isTrue());
+        assertThat(policyCalls.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("여러 요청이 같은 문서를 동시에 조회하면 백엔드 호출은 합쳐진다")
+    void coalescedLookups() {
+        AtomicInteger backendCalls = new AtomicInteger();
+        BatchLoader<Long, Document> loader = BatchLoader.<Long, Document>builder(ids -> {
+            backendCalls.incrementAndGet(); // select * from document where id in (...)
+            Thread.sleep(10);
+            return ids.stream().collect(Collectors.toMap(Function.identity(), id -> new Document(id, "문서 " + id)));
+        }).window(Duration.ofMillis(5)).build();
+        DocumentService service = new DocumentService(loader);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 500).forEach(i -> executor.submit(() -> service.find(123123L + i % 5)));
         }
-        System.out.println(docId + "번 문서 삭제 완료 (By " + user.name() + ")");
+
+        assertThat(loader.requestCount()).isEqualTo(500);
+        assertThat(backendCalls.get()).isLessThan(50);
+        assertThatThrownBy(() -> new DocumentService().find(1L)).isInstanceOf(IllegalStateException.class);
     }
-}
 
-record User(String name, Boolean isAdmin) {}
\ No newline at end of file
+    @Test
+    @DisplayName("같은 문서를 여러 서비스 인스턴스가 동시에 지워도 확인과 삭제가 문서 lock 안에서 함께 일어나 한 번만 삭제된다")
+    void deleteOnce() {
+        var user = new User("matthew", true);
+        KeyedLocks locks = KeyedLocks.builder().build();
+        Set<Long> deleted = ConcurrentHashMap.newKeySet();
+        AtomicInteger deletedCount = new AtomicInteger();
+        AtomicInteger alreadyDeleted = new AtomicInteger();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 100).forEach(i -> executor.submit(() -> new SecurityAspect().runWithAuth(user, () -> {
+                // 요청마다 서비스를 새로 만들어도 lock 과 삭제 상태는 함께 공유된다
+                if (new DocumentService(null, locks, deleted).delete(123123L)) {
+                    deletedCount.incrementAndGet();
+                } else {
+                    alreadyDeleted.incrementAndGet();
+                }
+            })));
+        }
+
+        assertThat(deletedCount.get()).isEqualTo(1);
+        assertThat(alreadyDeleted.get()).isEqualTo(99);
+    }
+}
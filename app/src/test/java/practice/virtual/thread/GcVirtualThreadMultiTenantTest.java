@@ -1,7 +1,12 @@
 package practice.virtual.thread;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import practice.virtual.thread.tenant.TenantBulkheads;
 
 class GcVirtualThreadMultiTenantTest {
     
@@ -18,20 +23,38 @@ class GcVirtualThreadMultiTenantTest {
 
         assertThat(TenantAspect.TENANT_ID.isBound()).isFalse();
     }
-}
 
-class TenantAspect {
-    public static final ScopedValue<String> TENANT_ID = ScopedValue.newInstance();
+    @Test
+    @DisplayName("요청이 몰리는 테넌트가 있어도 다른 테넌트는 자기 몫의 자리를 받는다")
+    void noisyTenant() {
+        TenantBulkheads bulkheads = TenantBulkheads.builder(8)
+                .defaults(4, 1, 1_000)
+                .tenant("NoisyCompany", 4, 1, 1_000)
+                .build();
+        TenantAspect tenant = new TenantAspect(bulkheads);
+        AtomicInteger noisyRunning = new AtomicInteger();
+        AtomicInteger noisyPeak = new AtomicInteger();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 200).forEach(_ -> executor.submit(() -> tenant.processTenantRequest("NoisyCompany", () -> {
+                noisyPeak.accumulateAndGet(noisyRunning.incrementAndGet(), Math::max);
+                sleep(5);
+                noisyRunning.decrementAndGet();
+            })));
+            IntStream.range(0, 20).forEach(_ -> executor.submit(() -> tenant.processTenantRequest("SomeCompany", () -> sleep(5))));
+        }
 
-    public void processTenantRequest(String tenantId, Runnable logic) {
-        ScopedValue.where(TENANT_ID, tenantId).run(logic);
+        assertThat(noisyPeak.get()).isLessThanOrEqualTo(4);
+        assertThat(bulkheads.stats("NoisyCompany").admitted()).isEqualTo(200);
+        assertThat(bulkheads.stats("SomeCompany").admitted()).isEqualTo(20);
+        assertThat(bulkheads.stats("NoisyCompany").queued()).isPositive();
     }
-}
 
-class DataSourceManager {
-    public void connect() {
-        // 현재 실행 맥락의 TenantID에 따라 동적으로 커넥션 제공
-        String tenant = TenantAspect.TENANT_ID.get();
-        System.out.println(tenant + " 전용 데이터베이스에 연결 중...");
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
-}
\ No newline at end of file
+}
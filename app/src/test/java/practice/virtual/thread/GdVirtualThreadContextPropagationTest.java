@@ -0,0 +1,86 @@
+package practice.virtual.thread;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import practice.virtual.thread.context.ContextPropagator;
+
+class GdVirtualThreadContextPropagationTest {
+
+    private final ContextPropagator propagator = ContextPropagator.of(ObservationAspect.TX_ID,
+            SecurityAspect.CURRENT_USER, TenantAspect.TENANT_ID);
+
+    @Test
+    @DisplayName("ExecutorService 로 넘긴 작업에는 ScopedValue 가 상속되지 않는다")
+    void executorLosesScopedValue() {
+        new ObservationAspect().trace(() -> {
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                var future = executor.submit(() -> new OrderService().create());
+
+                assertThatThrownBy(future::get).isInstanceOf(ExecutionException.class)
+                        .hasRootCauseInstanceOf(NoSuchElementException.class);
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("ContextPropagator 로 감싼 실행기는 submit 시점의 바인딩을 워커에서 다시 바인딩한다")
+    void propagateToExecutor() {
+        var user = new User("matthew", true);
+
+        new ObservationAspect().trace(() -> new SecurityAspect().runWithAuth(user,
+                () -> new TenantAspect().processTenantRequest("SomeCompany", () -> {
+                    String txId = ObservationAspect.TX_ID.get();
+
+                    try (ExecutorService executor =
+                            propagator.wrap(Executors.newVirtualThreadPerTaskExecutor())) {
+                        var future = executor.submit(() -> {
+                            new OrderService().create();
+                            new DocumentService().delete(123123L);
+                            new DataSourceManager().connect();
+                            return ObservationAspect.TX_ID.get() + "/"
+                                    + SecurityAspect.CURRENT_USER.get().name() + "/"
+                                    + TenantAspect.TENANT_ID.get();
+                        });
+
+                        assertThat(future.get()).isEqualTo(txId + "/matthew/SomeCompany");
+                    } catch (InterruptedException | ExecutionException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })));
+    }
+
+    @Test
+    @DisplayName("CompletableFuture 의 비동기 단계에도 전달된다")
+    void propagateToCompletableFuture() {
+        new TenantAspect().processTenantRequest("SomeCompany", () -> {
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                Executor context = propagator.wrap((Executor) executor);
+
+                String tenant = CompletableFuture.supplyAsync(TenantAspect.TENANT_ID::get, context)
+                        .thenApplyAsync(previous -> previous + "/" + TenantAspect.TENANT_ID.get(),
+                                context)
+                        .join();
+
+                assertThat(tenant).isEqualTo("SomeCompany/SomeCompany");
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("바인딩된 값이 없으면 캡처해도 새 객체를 만들지 않는다")
+    void emptyCaptureDoesNotAllocate() {
+        Runnable task = () -> {};
+
+        assertThat(propagator.capture()).isSameAs(propagator.capture());
+        assertThat(propagator.capture().isEmpty()).isTrue();
+        assertThat(propagator.wrap(task)).isSameAs(task);
+    }
+}
@@ -0,0 +1,45 @@
+package practice.virtual.thread;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LoadRunnerTest {
+
+    @Test
+    @DisplayName("--이름=값 옵션을 읽는다")
+    void parse() {
+        var config = LoadRunner.Config.parse("--mode=virtual", "--rate=500", "--duration=2s", "--io=20ms",
+                "--cpu=200us", "--tenants=2");
+
+        assertThat(config.modes).containsExactly(LoadRunner.Mode.VIRTUAL);
+        assertThat(config.rate).isEqualTo(500);
+        assertThat(config.duration).isEqualTo(Duration.ofSeconds(2));
+        assertThat(config.cpu).isEqualTo(Duration.ofNanos(200_000));
+        assertThatThrownBy(() -> LoadRunner.Config.parse("--rate=0")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> LoadRunner.Config.parse("--speed=fast"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("플랫폼 스레드 수보다 동시 요청이 많으면 대기열에서 기다린 시간까지 지연시간에 잡힌다")
+    void openLoop() throws InterruptedException {
+        var config = LoadRunner.Config.parse("--rate=500", "--duration=500ms", "--warmup=0s", "--io=20ms",
+                "--threads=2");
+        LoadRunner runner = new LoadRunner(config);
+        long orders = ObservationAspect.SPANS.histogram("order.create").count();
+
+        var platform = runner.run(LoadRunner.Mode.PLATFORM);
+        var virtual = runner.run(LoadRunner.Mode.VIRTUAL);
+
+        assertThat(platform.completed()).isEqualTo(platform.sent());
+        assertThat(virtual.completed()).isEqualTo(virtual.sent());
+        // 요청은 OrderService.create 를 거친다
+        assertThat(ObservationAspect.SPANS.histogram("order.create").count() - orders)
+                .isEqualTo(platform.sent() + virtual.sent());
+        // 2 스레드 x 20ms 는 초당 100개 : 500개/s 로 도착하면 뒤 요청일수록 오래 기다린다
+        assertThat(platform.latency().p99()).isGreaterThan(virtual.latency().p99());
+    }
+}
@@ -0,0 +1,162 @@
+package practice.virtual.thread.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import practice.virtual.thread.deadline.Deadline;
+import practice.virtual.thread.deadline.DeadlineExceededException;
+
+class GroupCommitWriterTest {
+
+    // 메모리에 저장하는 sink : 배치 하나를 기록할 때마다 왕복 시간만큼 sleep
+    static final class InMemorySink implements BatchSink<String, Long> {
+        final ConcurrentHashMap<Long, String> rows = new ConcurrentHashMap<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+        long nextId = 1;
+
+        @Override
+        public synchronized List<Outcome<Long>> write(List<String> items) throws Exception {
+            Thread.sleep(5);
+            batchSizes.add(items.size());
+            List<Outcome<Long>> outcomes = new ArrayList<>();
+            for (String item : items) {
+                if (item.isBlank()) {
+                    outcomes.add(Outcome.failure(new IllegalArgumentException("빈 값")));
+                    continue;
+                }
+                long id = nextId++;
+                rows.put(id, item);
+                outcomes.add(Outcome.success(id));
+            }
+            return outcomes;
+        }
+    }
+
+    @Test
+    @DisplayName("가상 스레드 1000개의 쓰기를 maxBatchSize 단위로 모아서 기록한다")
+    void groupCommit() {
+        InMemorySink sink = new InMemorySink();
+
+        try (var writer = GroupCommitWriter.builder(sink).maxBatchSize(50)
+                .linger(Duration.ofMillis(10)).build()) {
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                IntStream.range(0, 1000).forEach(i -> executor.submit(() -> writer.write("order-" + i)));
+            }
+
+            assertThat(sink.rows).hasSize(1000);
+            assertThat(writer.itemCount()).isEqualTo(1000);
+            // 요청마다 기록했다면 1000번
+            assertThat(writer.batchCount()).isLessThan(100);
+            assertThat(sink.batchSizes).allMatch(size -> size <= 50);
+        }
+    }
+
+    @Test
+    @DisplayName("항목별 실패는 그 항목을 보낸 호출자에게만 전달된다")
+    void perItemFailure() throws Exception {
+        InMemorySink sink = new InMemorySink();
+
+        try (var writer = GroupCommitWriter.builder(sink).linger(Duration.ofMillis(20)).build()) {
+            CompletableFuture<Long> ok = writer.submit("a");
+            CompletableFuture<Long> bad = writer.submit(" ");
+            CompletableFuture<Long> ok2 = writer.submit("b");
+
+            assertThat(ok.get()).isPositive();
+            assertThat(ok2.get()).isPositive();
+            assertThatThrownBy(bad::get).isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalArgumentException.class);
+            assertThat(writer.failedItemCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("sink 가 예외를 던지면 배치의 모든 항목이 실패한다")
+    void batchFailure() {
+        BatchSink<String, Long> broken = _ -> {
+            throw new IllegalStateException("connection reset");
+        };
+
+        try (var writer = GroupCommitWriter.builder(broken).build()) {
+            assertThatThrownBy(() -> writer.write("a")).isInstanceOf(IllegalStateException.class)
+                    .hasMessage("connection reset");
+            assertThat(writer.failedItemCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("하나만 들어오면 linger 가 지난 뒤 기록하고, close 는 남은 항목을 기록한 뒤 끝낸다")
+    void lingerAndClose() throws Exception {
+        InMemorySink sink = new InMemorySink();
+        var writer = GroupCommitWriter.builder(sink).maxBatchSize(100)
+                .linger(Duration.ofMillis(30)).build();
+
+        long start = System.nanoTime();
+        writer.write("a");
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(30).toNanos());
+
+        CompletableFuture<Long> last = writer.submit("b");
+        writer.close();
+
+        assertThat(last).isCompleted();
+        assertThat(sink.rows).hasSize(2);
+        assertThatThrownBy(() -> writer.submit("c")).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    @DisplayName("write() 가 deadline 으로 포기한 항목은 기록하지 않는다")
+    void abandonedByDeadline() {
+        InMemorySink sink = new InMemorySink();
+
+        try (var writer = GroupCommitWriter.builder(sink).linger(Duration.ofMillis(200)).build()) {
+            assertThatThrownBy(() -> Deadline.after(Duration.ofMillis(20)).call(() -> writer.write("late")))
+                    .isInstanceOf(DeadlineExceededException.class);
+            writer.close();
+
+            assertThat(sink.rows).isEmpty();
+            assertThat(writer.expiredItemCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("close 와 동시에 들어온 submit 도 기록되거나 거절된다 : 완료되지 않는 future 가 없다")
+    void submitDuringClose() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            InMemorySink sink = new InMemorySink();
+            var writer = GroupCommitWriter.builder(sink).maxBatchSize(4).maxPending(4)
+                    .linger(Duration.ofMillis(1)).build();
+            List<CompletableFuture<Long>> accepted = new CopyOnWriteArrayList<>();
+            CountDownLatch started = new CountDownLatch(50);
+
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                IntStream.range(0, 50).forEach(i -> executor.submit(() -> {
+                    started.countDown();
+                    try {
+                        accepted.add(writer.submit("v" + i)); // 대기열이 가득 차면 여기서 기다린다
+                    } catch (RejectedExecutionException e) {
+                        // close 이후 : 거절
+                    }
+                }));
+                started.await();
+                writer.close();
+            }
+
+            for (CompletableFuture<Long> result : accepted) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isPositive();
+            }
+            assertThat(sink.rows).hasSize(accepted.size());
+        }
+    }
+}
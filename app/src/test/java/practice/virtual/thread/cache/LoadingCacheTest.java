@@ -0,0 +1,188 @@
+package practice.virtual.thread.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LoadingCacheTest {
+
+    @Test
+    @DisplayName("처음에는 적재하고 이후에는 캐시에서 읽는다")
+    void hitAndMiss() {
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<String, Integer> cache = LoadingCache.builder(100).build(key -> {
+            loads.incrementAndGet();
+            return key.length();
+        });
+
+        assertThat(cache.get("tenant")).isEqualTo(6);
+        assertThat(cache.get("tenant")).isEqualTo(6);
+        assertThat(cache.getIfPresent("none")).isNull();
+
+        var stats = cache.stats();
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(stats.hitCount()).isEqualTo(1);
+        assertThat(stats.missCount()).isEqualTo(2);
+        assertThat(stats.loadLatency().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("같은 key 는 한 번만 적재하고, 느린 key 가 다른 key 의 적재를 막지 않는다")
+    void perKeyLoading() throws InterruptedException {
+        CountDownLatch slowRelease = new CountDownLatch(1);
+        AtomicInteger slowLoads = new AtomicInteger();
+        LoadingCache<String, String> cache = LoadingCache.builder(100).build(key -> {
+            if (key.equals("slow")) {
+                slowLoads.incrementAndGet();
+                slowRelease.await();
+            }
+            return key.toUpperCase();
+        });
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 100).forEach(_ -> executor.submit(() -> cache.get("slow")));
+
+            // slow 적재가 끝나지 않았어도 다른 key 는 바로 읽힌다
+            assertThat(cache.get("fast")).isEqualTo("FAST");
+            slowRelease.countDown();
+        }
+
+        assertThat(slowLoads.get()).isEqualTo(1);
+        assertThat(cache.get("slow")).isEqualTo("SLOW");
+    }
+
+    @Test
+    @DisplayName("maximumSize 를 넘지 않고, 자주 읽힌 key 는 한 번 읽힌 key 들이 몰려와도 남는다")
+    void tinyLfuKeepsHotKeys() {
+        LoadingCache<Integer, Integer> cache = LoadingCache.builder(100).build(key -> key);
+
+        for (int round = 0; round < 20; round++) {
+            for (int hot = 0; hot < 50; hot++) {
+                cache.get(hot);
+            }
+        }
+        // 한 번씩만 읽히는 key 가 대량으로 지나간다 (스캔)
+        for (int cold = 1_000; cold < 11_000; cold++) {
+            cache.get(cold);
+        }
+        cache.cleanUp();
+
+        assertThat(cache.estimatedSize()).isLessThanOrEqualTo(100);
+        long hotRemaining = IntStream.range(0, 50).filter(hot -> cache.getIfPresent(hot) != null).count();
+        assertThat(hotRemaining).isGreaterThanOrEqualTo(45);
+        assertThat(cache.stats().evictionCount()).isPositive();
+    }
+
+    @Test
+    @DisplayName("expireAfterWrite 가 지나면 다시 적재한다")
+    void expireAfterWrite() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        LoadingCache<String, Integer> cache = LoadingCache.builder(10)
+                .expireAfterWrite(Duration.ofMillis(20)).build(_ -> loads.incrementAndGet());
+
+        assertThat(cache.get("a")).isEqualTo(1);
+        Thread.sleep(30);
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(cache.get("a")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("expireAfterAccess : 계속 읽으면 남고, 읽지 않으면 만료된다")
+    void expireAfterAccess() throws InterruptedException {
+        LoadingCache<String, String> cache = LoadingCache.builder(10)
+                .expireAfterAccess(Duration.ofMillis(50)).build(key -> key);
+
+        cache.get("a");
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(20);
+            assertThat(cache.getIfPresent("a")).isEqualTo("a");
+        }
+        Thread.sleep(70);
+        assertThat(cache.getIfPresent("a")).isNull();
+    }
+
+    @Test
+    @DisplayName("refreshAfterWrite : 기존 값을 바로 돌려주고 백그라운드에서 새 값으로 바꾼다")
+    void refreshAhead() throws InterruptedException {
+        AtomicInteger version = new AtomicInteger();
+        LoadingCache<String, Integer> cache = LoadingCache.builder(10)
+                .refreshAfterWrite(Duration.ofMillis(20)).build(_ -> version.incrementAndGet());
+
+        assertThat(cache.get("a")).isEqualTo(1);
+        Thread.sleep(30);
+        assertThat(cache.get("a")).isEqualTo(1); // 기다리지 않는다
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.getIfPresent("a") != 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(cache.getIfPresent("a")).isEqualTo(2);
+        assertThat(cache.stats().refreshCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("적재 실패는 호출자에게 전달되고 캐시에 남지 않는다")
+    void loadFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+        LoadingCache<String, String> cache = LoadingCache.builder(10).build(key -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IOException("db down");
+            }
+            return key;
+        });
+
+        assertThatThrownBy(() -> cache.get("a")).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IOException.class);
+        assertThat(cache.get("a")).isEqualTo("a");
+        assertThat(cache.stats().loadFailureCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("invalidate / invalidateIf 로 항목을 지운다")
+    void invalidate() {
+        LoadingCache<String, String> cache = LoadingCache.builder(10).build(key -> key);
+        cache.get("user:1:doc");
+        cache.get("user:1:report");
+        cache.get("user:2:doc");
+
+        cache.invalidate("user:2:doc");
+        cache.invalidateIf(key -> key.startsWith("user:1:"));
+
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("적재는 요청한 스레드에서 하고, 적재 중에 invalidate 된 값은 캐시에 넣지 않는다")
+    void invalidateDuringLoad() throws InterruptedException {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> loaderThread = new AtomicReference<>();
+        LoadingCache<String, String> cache = LoadingCache.builder(10).build(key -> {
+            loaderThread.set(Thread.currentThread());
+            loadStarted.countDown();
+            release.await();
+            return "stale";
+        });
+
+        AtomicReference<String> result = new AtomicReference<>();
+        Thread caller = Thread.ofVirtual().start(() -> result.set(cache.get("a")));
+        loadStarted.await();
+        cache.invalidate("a");
+        release.countDown();
+        caller.join();
+
+        assertThat(loaderThread.get()).isSameAs(caller);
+        assertThat(result.get()).isEqualTo("stale"); // 기다리던 호출자는 결과를 받는다
+        assertThat(cache.getIfPresent("a")).isNull();
+    }
+}
@@ -0,0 +1,55 @@
+package practice.virtual.thread.deadline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTest {
+
+    @Test
+    @DisplayName("바인딩 범위 안에서만 읽히고, 밖에서는 clamp 가 timeout 을 그대로 돌려준다")
+    void lifecycle() {
+        assertThat(Deadline.current()).isEmpty();
+        assertThat(Deadline.clamp(123)).isEqualTo(123);
+
+        Deadline.after(Duration.ofSeconds(1)).run(() -> {
+            assertThat(Deadline.current()).isPresent();
+            assertThat(Deadline.clamp(TimeUnit.SECONDS.toNanos(30)))
+                    .isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+        });
+
+        assertThat(Deadline.current()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("중첩 바인딩은 deadline 을 줄일 수만 있고 늘릴 수는 없다")
+    void nestedOnlyShrinks() {
+        Deadline.after(Duration.ofMillis(500)).run(() -> {
+            Deadline outer = Deadline.current().orElseThrow();
+
+            Deadline.after(Duration.ofSeconds(60)).run(() ->
+                    assertThat(Deadline.current()).containsSame(outer));
+
+            Deadline.after(Duration.ofMillis(10)).run(() ->
+                    assertThat(Deadline.current().orElseThrow().remaining())
+                            .isLessThanOrEqualTo(Duration.ofMillis(10)));
+        });
+    }
+
+    @Test
+    @DisplayName("deadline 이 지나면 checkpoint 에서 작업을 멈춘다")
+    void checkpoint() {
+        Deadline.checkpoint(); // 바인딩이 없으면 아무 일도 없다
+
+        assertThatThrownBy(() -> Deadline.after(Duration.ofMillis(10)).call(() -> {
+            for (int step = 0; step < 100; step++) {
+                Deadline.checkpoint();
+                Thread.sleep(5);
+            }
+            return "done";
+        })).isInstanceOf(DeadlineExceededException.class);
+    }
+}
@@ -0,0 +1,86 @@
+package practice.virtual.thread.deadline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RetryPolicyTest {
+
+    @Test
+    @DisplayName("일시적인 실패는 maxAttempts 까지 재시도한다")
+    void retryUntilSuccess() throws Exception {
+        RetryPolicy policy = RetryPolicy.builder().maxAttempts(3)
+                .backoff(Duration.ofMillis(1), Duration.ofMillis(5)).build();
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = policy.call(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IOException("connection reset");
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(policy.attemptCount()).isEqualTo(3);
+        assertThat(policy.retryCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("재시도 대상이 아닌 예외는 바로 던진다")
+    void retryOn() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .retryOn(e -> e instanceof IOException).build();
+
+        assertThatThrownBy(() -> policy.call(() -> {
+            throw new IllegalStateException("bug");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(policy.attemptCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("남은 예산이 대기 시간 + minBudget 보다 적으면 재시도하지 않는다")
+    void stopWhenBudgetIsGone() {
+        RetryPolicy policy = RetryPolicy.builder().maxAttempts(10)
+                .backoff(Duration.ofMillis(100), Duration.ofMillis(100))
+                .minBudget(Duration.ofMillis(200)).build();
+        AtomicInteger calls = new AtomicInteger();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> Deadline.after(Duration.ofMillis(150)).call(() -> policy.call(() -> {
+            calls.incrementAndGet();
+            throw new IOException("timeout");
+        }))).isInstanceOf(IOException.class);
+
+        // 대기 시간 + minBudget(200ms) 은 150ms 예산을 넘으므로 기다리지 않고 첫 실패에서 멈춘다
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(policy.budgetExhaustedCount()).isEqualTo(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(150));
+    }
+
+    @Test
+    @DisplayName("대기 시간은 0 ~ min(maxDelay, baseDelay * 2^n) 사이 (full jitter)")
+    void jitteredBackoff() {
+        RetryPolicy policy = RetryPolicy.builder()
+                .backoff(Duration.ofMillis(10), Duration.ofMillis(50)).build();
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(policy.delayNanos(1)).isBetween(0L, Duration.ofMillis(10).toNanos());
+            assertThat(policy.delayNanos(3)).isBetween(0L, Duration.ofMillis(40).toNanos());
+            assertThat(policy.delayNanos(10)).isBetween(0L, Duration.ofMillis(50).toNanos());
+        }
+    }
+
+    @Test
+    @DisplayName("바인딩된 정책이 없으면 재시도하지 않는다")
+    void currentPolicy() throws Exception {
+        assertThat(RetryPolicy.current()).isSameAs(RetryPolicy.NONE);
+
+        RetryPolicy policy = RetryPolicy.builder().backoff(Duration.ZERO, Duration.ZERO).build();
+        ScopedValue.where(RetryPolicy.CURRENT, policy).run(() ->
+                assertThat(RetryPolicy.current()).isSameAs(policy));
+    }
+}
@@ -0,0 +1,152 @@
+package practice.virtual.thread.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import practice.virtual.thread.deadline.Deadline;
+
+class BoundedVirtualExecutorTest {
+
+    @Test
+    @DisplayName("DBasicVitualThreadTest 의 100개 I/O 작업을 동시에 10개까지만 실행한다")
+    void capInFlight() throws InterruptedException, ExecutionException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        try (var executor = BoundedVirtualExecutor.builder(10).build()) {
+            List<Future<String>> futures = IntStream.range(0, 100).mapToObj(num -> executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(20); // IO작업중이라 시간이 걸린다고 가정하자
+                running.decrementAndGet();
+                return "Result-" + num;
+            })).toList();
+
+            assertThat(futures.get(12).get()).isEqualTo("Result-12");
+        }
+
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("SHED : 자리가 없으면 바로 거절한다")
+    void shed() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = BoundedVirtualExecutor.builder(2).shed().build()) {
+            executor.submit(() -> await(release));
+            executor.submit(() -> await(release));
+
+            assertThat(executor.inFlight()).isEqualTo(2);
+            assertThat(executor.availablePermits()).isZero();
+            assertThatThrownBy(() -> executor.submit(() -> "overflow"))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(executor.rejectedCount()).isEqualTo(1);
+
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("TIMEOUT : 정해진 시간만큼 기다린 뒤 거절한다")
+    void timeout() {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = BoundedVirtualExecutor.builder(1).timeout(Duration.ofMillis(50)).build()) {
+            executor.submit(() -> await(release));
+
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> executor.submit(() -> "late"))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("BLOCK : 대기 중인 호출자 수를 queueDepth 로 확인할 수 있다")
+    void blockAndQueueDepth() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = BoundedVirtualExecutor.builder(1).build()) {
+            executor.submit(() -> await(release));
+            Thread caller = Thread.ofVirtual().start(() -> executor.submit(() -> "queued"));
+
+            // waiting 은 실제로 park 하기 전에 증가하므로 상태가 WAITING 이 될 때까지 기다린다
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while ((executor.queueDepth() == 0 || caller.getState() != Thread.State.WAITING)
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(executor.queueDepth()).isEqualTo(1);
+            assertThat(caller.getState()).isEqualTo(Thread.State.WAITING);
+
+            release.countDown();
+            caller.join();
+            assertThat(executor.queueDepth()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("key 별로 동시 실행 개수를 따로 제한한다")
+    void perKeyLimit() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = BoundedVirtualExecutor.builder(10).perKey(2).shed().build()) {
+            executor.submit("orders-db", () -> await(release));
+            executor.submit("orders-db", () -> await(release));
+
+            assertThatThrownBy(() -> executor.submit("orders-db", () -> "overflow"))
+                    .isInstanceOf(RejectedExecutionException.class);
+            // 다른 key 는 영향을 받지 않는다
+            executor.submit("payment-api", () -> await(release));
+
+            assertThat(executor.availablePermits("orders-db")).isZero();
+            assertThat(executor.availablePermits("payment-api")).isEqualTo(1);
+            assertThat(executor.inFlight()).isEqualTo(3);
+
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deadline : BLOCK 이라도 남은 예산까지만 기다리고, 작업 스레드에 deadline 을 다시 바인딩한다")
+    void deadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = BoundedVirtualExecutor.builder(1).build()) {
+            Future<Boolean> bound = Deadline.after(Duration.ofSeconds(5))
+                    .call(() -> executor.submit(() -> Deadline.current().isPresent()));
+            assertThat(bound.get()).isTrue();
+
+            executor.submit(() -> await(release));
+            Deadline.after(Duration.ofMillis(50)).run(() ->
+                    assertThatThrownBy(() -> executor.submit(() -> "late"))
+                            .isInstanceOf(RejectedExecutionException.class));
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("timeout 은 null 이나 음수를 builder 에서 거절한다")
+    void invalidTimeout() {
+        assertThatThrownBy(() -> BoundedVirtualExecutor.builder(1).timeout(null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BoundedVirtualExecutor.builder(1).timeout(Duration.ofMillis(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String await(CountDownLatch latch) throws InterruptedException {
+        latch.await();
+        return "done";
+    }
+}
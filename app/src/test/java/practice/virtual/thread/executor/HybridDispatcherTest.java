@@ -0,0 +1,188 @@
+package practice.virtual.thread.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import practice.virtual.thread.deadline.Deadline;
+import practice.virtual.thread.executor.HybridDispatcher.TaskKind;
+
+class HybridDispatcherTest {
+
+    @Test
+    @DisplayName("COMPUTE 는 전용 ForkJoinPool 에서, IO 는 가상 스레드에서 실행된다")
+    void dispatchByKind() throws InterruptedException, ExecutionException {
+        try (var dispatcher = HybridDispatcher.builder().parallelism(4).build()) {
+            Thread computeThread = dispatcher.submit(TaskKind.COMPUTE, Thread::currentThread).get();
+            Thread ioThread = dispatcher.submit(TaskKind.IO, Thread::currentThread).get();
+
+            assertThat(computeThread).isInstanceOf(ForkJoinWorkerThread.class);
+            assertThat(((ForkJoinWorkerThread) computeThread).getPool())
+                    .isNotSameAs(ForkJoinPool.commonPool());
+            assertThat(ioThread.isVirtual()).isTrue();
+            assertThat(dispatcher.computeCount()).isEqualTo(1);
+            assertThat(dispatcher.ioCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("COMPUTE 작업 안의 병렬 스트림은 commonPool 이 아닌 전용 풀을 사용한다")
+    void parallelStreamStaysInPool() throws InterruptedException, ExecutionException {
+        try (var dispatcher = HybridDispatcher.builder().parallelism(4).build()) {
+            long sum = dispatcher.submit(TaskKind.COMPUTE, () -> LongStream.rangeClosed(1, 1_000_000)
+                    .parallel()
+                    .peek(_ -> {
+                        if (Thread.currentThread() instanceof ForkJoinWorkerThread worker) {
+                            assertThat(worker.getPool()).isNotSameAs(ForkJoinPool.commonPool());
+                        }
+                    })
+                    .sum()).get();
+
+            assertThat(sum).isEqualTo(500000500000L);
+        }
+    }
+
+    @Test
+    @DisplayName("이름별로 블로킹 비율을 관찰해서 I/O 작업은 가상 스레드로 옮긴다")
+    void autoClassify() throws InterruptedException, ExecutionException {
+        try (var dispatcher = HybridDispatcher.builder().parallelism(2).minSamples(5).build()) {
+            for (int i = 0; i < 5; i++) {
+                dispatcher.submit("sleepy", () -> {
+                    Thread.sleep(20); // IO작업중이라 시간이 걸린다고 가정하자
+                    return null;
+                }).get();
+                dispatcher.submit("busy", () -> spin(TimeUnit.MILLISECONDS.toNanos(5))).get();
+            }
+
+            assertThat(dispatcher.classification("sleepy")).isEqualTo(TaskKind.IO);
+            assertThat(dispatcher.classification("busy")).isEqualTo(TaskKind.COMPUTE);
+            assertThat(dispatcher.reclassifiedCount()).isEqualTo(1);
+
+            Thread next = dispatcher.submit("sleepy", Thread::currentThread).get();
+            assertThat(next.isVirtual()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("관찰 몇 번 전에는 바꾸지 않고, IO 로 보낸 이름도 다시 계산 위주가 되면 COMPUTE 로 돌아온다")
+    void reclassifyBack() throws InterruptedException, ExecutionException {
+        try (var dispatcher = HybridDispatcher.builder().parallelism(2).minSamples(3).probeEvery(1).build()) {
+            dispatcher.submit("phase", HybridDispatcherTest::io).get();
+            assertThat(dispatcher.classification("phase")).isEqualTo(TaskKind.COMPUTE); // 한 번으로는 바꾸지 않는다
+
+            for (int i = 0; i < 2; i++) {
+                dispatcher.submit("phase", HybridDispatcherTest::io).get();
+            }
+            assertThat(dispatcher.classification("phase")).isEqualTo(TaskKind.IO);
+
+            // 다른 스레드에 cpu 를 빼앗긴 시간도 블로킹으로 보이므로 (코어가 적은 환경) 여유 있게 반복
+            for (int i = 0; i < 50 && dispatcher.classification("phase") == TaskKind.IO; i++) {
+                dispatcher.submit("phase", () -> spin(TimeUnit.MILLISECONDS.toNanos(5))).get();
+            }
+            assertThat(dispatcher.classification("phase")).isEqualTo(TaskKind.COMPUTE);
+            assertThat(dispatcher.reclassifiedCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("classify 로 지정한 이름은 자동 분류하지 않는다")
+    void pinnedClassification() throws InterruptedException, ExecutionException {
+        try (var dispatcher = HybridDispatcher.builder().parallelism(2).build()) {
+            dispatcher.classify("report", TaskKind.COMPUTE);
+            dispatcher.submit("report", () -> {
+                Thread.sleep(20);
+                return null;
+            }).get();
+
+            assertThat(dispatcher.classification("report")).isEqualTo(TaskKind.COMPUTE);
+            assertThat(dispatcher.reclassifiedCount()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("blocking() 으로 감싸면 풀이 보상 스레드를 띄워 parallelism 보다 많은 작업이 함께 대기할 수 있다")
+    void managedBlocker() throws InterruptedException, ExecutionException {
+        int tasks = 6;
+        CountDownLatch allArrived = new CountDownLatch(tasks);
+
+        try (var dispatcher = HybridDispatcher.builder().parallelism(2).build()) {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                futures.add(dispatcher.submit(TaskKind.COMPUTE, () -> {
+                    allArrived.countDown();
+                    // 감싸지 않으면 워커 2개가 모두 대기해서 나머지 작업이 시작되지 못한다
+                    return HybridDispatcher.blocking(() -> allArrived.await(5, TimeUnit.SECONDS));
+                }));
+            }
+
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get()).isTrue();
+            }
+            assertThat(dispatcher.computePoolSize()).isGreaterThan(dispatcher.parallelism());
+        }
+    }
+
+    @Test
+    @DisplayName("아직 분류되지 않은 블로킹 작업이 몰려도 관찰 실행은 ManagedBlocker 로 감싸져 워커가 모두 묶이지 않는다")
+    void observationDoesNotStarve() throws InterruptedException, ExecutionException {
+        int tasks = 6;
+        CountDownLatch allArrived = new CountDownLatch(tasks);
+
+        try (var dispatcher = HybridDispatcher.builder().parallelism(2).build()) {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                futures.add(dispatcher.submit("new-blocking", () -> {
+                    allArrived.countDown();
+                    return allArrived.await(5, TimeUnit.SECONDS);
+                }));
+            }
+
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get()).isTrue();
+            }
+            assertThat(dispatcher.computePoolSize()).isGreaterThan(dispatcher.parallelism());
+        }
+    }
+
+    private static Void io() throws InterruptedException {
+        Thread.sleep(10);
+        return null;
+    }
+
+    private static long spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        long n = 0;
+        while (System.nanoTime() < end) {
+            n++;
+        }
+        return n;
+    }
+
+    @Test
+    @DisplayName("Deadline : 풀과 가상 스레드 작업에 다시 바인딩하고, 이미 지났으면 받지 않는다")
+    void deadline() throws Exception {
+        try (var dispatcher = HybridDispatcher.builder().parallelism(2).build()) {
+            Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+            for (TaskKind kind : TaskKind.values()) {
+                Future<Boolean> bound = deadline.call(() -> dispatcher.submit(kind, () -> Deadline.current().isPresent()));
+                assertThat(bound.get()).isTrue();
+            }
+            Future<Boolean> named = deadline.call(() -> dispatcher.submit("named", () -> Deadline.current().isPresent()));
+            assertThat(named.get()).isTrue();
+
+            assertThatThrownBy(() -> Deadline.after(Duration.ZERO).run(() ->
+                    dispatcher.submit(TaskKind.COMPUTE, () -> 1))).isInstanceOf(RejectedExecutionException.class);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package practice.virtual.thread.footprint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.Locale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import practice.virtual.thread.footprint.ContextFootprint.Mechanism;
+
+class ContextFootprintTest {
+
+    @Test
+    @DisplayName("GC.class_histogram 결과에서 StackChunk 바이트를 읽는다")
+    void parseHistogram() {
+        String histogram = """
+                 num     #instances         #bytes  class name (module)
+                -------------------------------------------------------
+                   1:         20000        1920000  jdk.internal.vm.StackChunk (java.base@25)
+                   2:          5000         120000  java.lang.String (java.base@25)
+                Total         25000        2040000
+                """;
+
+        assertThat(ContextFootprint.stackChunkBytes(histogram)).isEqualTo(1_920_000);
+    }
+
+    @Test
+    @DisplayName("park 된 가상 스레드마다 스택이 StackChunk 로 힙에 남고, 맥락은 스레드마다 유지된다")
+    void measure() throws Exception {
+        // 측정마다 전체 GC 를 하므로 단위 테스트에서는 한 가지만 작게 (전체 비교는 ./gradlew footprint)
+        ContextFootprint footprint = new ContextFootprint(16L << 20, 10_000);
+
+        var result = footprint.measure(Mechanism.SCOPED_VALUE, 2_000);
+
+        assertThat(result.threads()).isEqualTo(2_000);
+        assertThat(result.stackChunkPerThread()).isPositive();
+        assertThat(result.heapPerThread()).isPositive();
+        assertThat(result.lookupNanos()).isPositive();
+    }
+
+    @Test
+    @DisplayName("CSV 의 소수는 locale 과 상관없이 점으로 쓴다")
+    void csvIgnoresLocale() {
+        Locale original = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            var result = new ContextFootprint.Result("25", "G1", Mechanism.THREAD_LOCAL, 1_000, 1_200, 900, 3, 1,
+                    12.34, 5.6);
+
+            assertThat(result.csv()).endsWith(",12.3,5.6");
+            assertThat(result.csv().split(",")).hasSize(ContextFootprint.Result.csvHeader().split(",").length);
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+}
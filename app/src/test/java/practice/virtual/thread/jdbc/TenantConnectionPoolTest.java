@@ -0,0 +1,137 @@
+package practice.virtual.thread.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TenantConnectionPoolTest {
+
+    private static final ScopedValue<String> TENANT = ScopedValue.newInstance();
+
+    private final InMemoryDataSource database =
+            new InMemoryDataSource("test", Duration.ZERO, Duration.ZERO);
+
+    @Test
+    @DisplayName("close 하면 물리 커넥션을 닫지 않고 반납해서 다시 사용한다")
+    void reuse() throws Exception {
+        try (var pool = TenantConnectionPool.builder(_ -> database).tenantKey(TENANT).build()) {
+            Connection first = ScopedValue.where(TENANT, "a").call(pool::getConnection);
+            first.close();
+            first.close(); // 두 번 닫아도 한 번만 반납
+
+            assertThat(first.isClosed()).isTrue();
+            assertThatThrownBy(first::createStatement).isInstanceOf(SQLException.class);
+
+            try (Connection second = pool.getConnection("a")) {
+                assertThat(second.isClosed()).isFalse();
+            }
+            var stats = pool.stats("a");
+            assertThat(stats.created()).isEqualTo(1);
+            assertThat(stats.acquired()).isEqualTo(2);
+            assertThat(stats.idle()).isEqualTo(1);
+            assertThat(database.openConnections()).isEqualTo(1);
+        }
+        assertThat(database.openConnections()).isZero();
+    }
+
+    @Test
+    @DisplayName("테넌트가 바인딩되지 않았으면 커넥션을 주지 않는다")
+    void unboundTenant() {
+        try (var pool = TenantConnectionPool.builder(_ -> database).tenantKey(TENANT).build()) {
+            assertThatThrownBy(pool::getConnection).isInstanceOf(SQLException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("max 개를 모두 쓰고 있으면 acquireTimeout 까지 기다린 뒤 실패한다")
+    void acquireTimeout() throws SQLException {
+        try (var pool = TenantConnectionPool.builder(_ -> database).limits("a", 0, 1)
+                .acquireTimeout(Duration.ofMillis(50)).build();
+                Connection _ = pool.getConnection("a")) {
+
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> pool.getConnection("a"))
+                    .isInstanceOf(SQLTransientConnectionException.class);
+
+            assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+            assertThat(pool.stats("a").timeouts()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("대기 중인 가상 스레드는 반납된 커넥션을 받는다")
+    void waiterGetsReleasedConnection() throws Exception {
+        try (var pool = TenantConnectionPool.builder(_ -> database).limits("a", 0, 1).build()) {
+            Connection held = pool.getConnection("a");
+            CountDownLatch done = new CountDownLatch(1);
+
+            Thread waiter = Thread.ofVirtual().start(() -> {
+                try (Connection _ = pool.getConnection("a")) {
+                    done.countDown();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            while (pool.stats("a").waiting() == 0) {
+                Thread.onSpinWait();
+            }
+            held.close();
+            waiter.join();
+
+            assertThat(done.getCount()).isZero();
+            assertThat(pool.stats("a").created()).isEqualTo(1);
+            assertThat(pool.stats("a").waitTime().max()).isPositive();
+        }
+    }
+
+    @Test
+    @DisplayName("idleTimeout 이 지난 유휴 커넥션은 min 개만 남기고 닫는다")
+    void idleEviction() throws Exception {
+        try (var pool = TenantConnectionPool.builder(_ -> database).limits("a", 1, 5)
+                .idleTimeout(Duration.ofMillis(10)).build()) {
+            Connection c1 = pool.getConnection("a");
+            Connection c2 = pool.getConnection("a");
+            Connection c3 = pool.getConnection("a");
+            c1.close();
+            c2.close();
+            c3.close();
+            assertThat(pool.stats("a").idle()).isEqualTo(3);
+
+            Thread.sleep(20);
+            pool.evictIdleNow();
+
+            var stats = pool.stats("a");
+            assertThat(stats.total()).isEqualTo(1);
+            assertThat(stats.evicted()).isEqualTo(2);
+            assertThat(database.openConnections()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("warmUp 은 min 개의 커넥션을 미리 만든다")
+    void warmUp() throws SQLException {
+        try (var pool = TenantConnectionPool.builder(_ -> database).limits(3, 5).build()) {
+            pool.warmUp("a");
+
+            assertThat(pool.stats("a").idle()).isEqualTo(3);
+            assertThat(database.openConnections()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    @DisplayName("housekeepingInterval 은 1ms 미만도 받고, 0 이하는 builder 에서 거절한다")
+    void housekeepingInterval() {
+        try (var pool = TenantConnectionPool.builder(_ -> database).tenantKey(TENANT)
+                .housekeepingInterval(Duration.ofNanos(500_000)).build()) {
+            assertThat(pool).isNotNull();
+        }
+        assertThatThrownBy(() -> TenantConnectionPool.builder(_ -> database).housekeepingInterval(Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
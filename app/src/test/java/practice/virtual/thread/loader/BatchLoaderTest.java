@@ -0,0 +1,84 @@
+package practice.virtual.thread.loader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BatchLoaderTest {
+
+    // 호출된 key 묶음을 기록하는 백엔드
+    private final List<Set<Long>> calls = new CopyOnWriteArrayList<>();
+
+    private Map<Long, String> backend(Set<Long> keys) throws InterruptedException {
+        calls.add(Set.copyOf(keys));
+        Thread.sleep(20); // 백엔드 왕복
+        return keys.stream().filter(key -> key >= 0)
+                .collect(Collectors.toMap(Function.identity(), key -> "doc-" + key));
+    }
+
+    @Test
+    @DisplayName("single-flight : 같은 key 를 동시에 1000번 요청해도 백엔드는 한 번만 호출한다")
+    void singleFlight() {
+        var loader = BatchLoader.<Long, String>builder(this::backend).build();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = IntStream.range(0, 1000).mapToObj(_ -> executor.submit(() -> loader.load(7L))).toList();
+            assertThat(futures).allSatisfy(future -> assertThat(future.get()).isEqualTo("doc-7"));
+        }
+
+        assertThat(calls).hasSize(1);
+        assertThat(loader.requestCount()).isEqualTo(1000);
+        assertThat(loader.coalescedCount()).isEqualTo(999);
+    }
+
+    @Test
+    @DisplayName("window 안에 들어온 서로 다른 key 를 모아서 한 번에 읽는다")
+    void batching() throws Exception {
+        var loader = BatchLoader.<Long, String>builder(this::backend).window(Duration.ofMillis(20)).build();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            LongStream.range(0, 50).forEach(key -> executor.submit(() -> loader.load(key)));
+        }
+
+        assertThat(calls.stream().mapToInt(Set::size).sum()).isEqualTo(50);
+        assertThat(loader.batchCount()).isLessThan(50);
+        assertThat(loader.loadAll(List.of(1L, 2L, 1L))).containsExactly(Map.entry(1L, "doc-1"),
+                Map.entry(2L, "doc-2"));
+    }
+
+    @Test
+    @DisplayName("maxBatchSize 를 넘으면 window 를 기다리지 않고 나눠서 읽는다")
+    void maxBatchSize() throws Exception {
+        var loader = BatchLoader.<Long, String>builder(this::backend).maxBatchSize(10)
+                .window(Duration.ofSeconds(10)).build();
+
+        long start = System.nanoTime();
+        loader.loadAll(LongStream.range(0, 30).boxed().toList());
+
+        assertThat(calls).hasSize(3).allMatch(keys -> keys.size() == 10);
+        assertThat(System.nanoTime() - start).isLessThan(Duration.ofSeconds(5).toNanos());
+    }
+
+    @Test
+    @DisplayName("결과에 없는 key 는 null, 백엔드 예외는 배치의 모든 요청에 전달된다")
+    void missingAndFailure() throws Exception {
+        var loader = BatchLoader.<Long, String>builder(this::backend).build();
+        assertThat(loader.load(-1L)).isNull();
+
+        var failing = BatchLoader.<Long, String>builder(_ -> {
+            throw new IllegalStateException("backend down");
+        }).build();
+        assertThatThrownBy(() -> failing.load(1L)).isInstanceOf(IllegalStateException.class);
+    }
+}
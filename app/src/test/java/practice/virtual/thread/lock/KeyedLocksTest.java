@@ -0,0 +1,142 @@
+package practice.virtual.thread.lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import practice.virtual.thread.deadline.Deadline;
+
+class KeyedLocksTest {
+
+    @Test
+    @DisplayName("같은 key 는 한 번에 하나씩, check-then-act 가 깨지지 않는다")
+    void mutualExclusionPerKey() {
+        KeyedLocks locks = KeyedLocks.builder().stripes(64).build();
+        int[] balances = new int[8];
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 8_000).forEach(i -> executor.submit(() -> locks.withLock(i % 8, () -> {
+                int current = balances[i % 8]; // 읽고
+                Thread.yield();
+                balances[i % 8] = current + 1; // 쓴다
+            })));
+        }
+
+        assertThat(balances).containsOnly(1_000);
+        assertThat(locks.stats().stream().mapToLong(KeyedLocks.StripeStats::acquired).sum()).isEqualTo(8_000);
+    }
+
+    @Test
+    @DisplayName("다른 key 는 서로 기다리지 않는다 : 전체 시간이 key 하나의 처리 시간에 가깝다")
+    void differentKeysRunInParallel() {
+        KeyedLocks locks = KeyedLocks.builder().stripes(1024).build();
+        long start = System.nanoTime();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 100).forEach(docId -> executor.submit(() -> locks.withLock((long) docId, () -> {
+                sleep(50); // 가상 스레드는 lock 을 가진 채로 unmount 된다
+            })));
+        }
+
+        // synchronized (this) 하나였다면 100 * 50ms = 5초
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    @DisplayName("읽기 lock 은 함께 잡고, 쓰기 lock 은 읽기가 끝날 때까지 기다린다")
+    void readWrite() throws Exception {
+        KeyedLocks locks = KeyedLocks.builder().timeout(Duration.ofMillis(100)).build();
+        CountDownLatch readersIn = new CountDownLatch(3);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 3).forEach(_ -> executor.submit(() -> locks.withReadLock("doc", () -> {
+                readersIn.countDown();
+                await(release);
+                return null;
+            })));
+            readersIn.await(); // 세 읽기가 동시에 들어와 있다
+
+            assertThatThrownBy(() -> locks.withLock("doc", () -> {})).isInstanceOf(LockTimeoutException.class);
+            release.countDown();
+        }
+
+        assertThat(locks.withLock("doc", () -> "written")).isEqualTo("written");
+        KeyedLocks.StripeStats stats = locks.stats(locks.stripeIndex("doc"));
+        assertThat(stats.timedOut()).isEqualTo(1);
+        assertThat(stats.contended()).isEqualTo(1);
+        assertThat(locks.hottest()).get().extracting(KeyedLocks.StripeStats::stripe).isEqualTo(stats.stripe());
+    }
+
+    @Test
+    @DisplayName("Deadline 이 바인딩되어 있으면 남은 예산까지만 기다린다")
+    void deadlineClampsWait() throws Exception {
+        KeyedLocks locks = KeyedLocks.builder().timeout(Duration.ofSeconds(10)).build();
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread owner = Thread.ofVirtual().start(() -> locks.withLock(1L, () -> {
+            held.countDown();
+            await(release);
+        }));
+        held.await();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> Deadline.after(Duration.ofMillis(50)).run(() -> locks.withLock(1L, () -> {})))
+                .isInstanceOf(LockTimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+
+        release.countDown();
+        owner.join();
+        assertThat(locks.timedOutCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("lockAll 은 stripe 순서대로 잡으므로 반대 순서로 잠가도 교착하지 않는다")
+    void lockAllOrdered() {
+        KeyedLocks locks = KeyedLocks.builder().stripes(16).timeout(Duration.ofSeconds(5)).build();
+        AtomicInteger transfers = new AtomicInteger();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 1_000).forEach(i -> executor.submit(() -> {
+                List<Long> accounts = i % 2 == 0 ? List.of(1L, 2L) : List.of(2L, 1L);
+                try (KeyedLocks.Guard _ = locks.lockAll(accounts)) {
+                    transfers.incrementAndGet();
+                    Thread.yield();
+                }
+            }));
+        }
+
+        assertThat(transfers.get()).isEqualTo(1_000);
+        assertThat(locks.timedOutCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("stripes 는 2의 거듭제곱으로 올린다")
+    void stripesRoundedUp() {
+        assertThat(KeyedLocks.builder().stripes(100).build().stripeCount()).isEqualTo(128);
+        assertThat(KeyedLocks.builder().stripes(1).build().stripeCount()).isEqualTo(1);
+        assertThatThrownBy(() -> KeyedLocks.builder().stripes(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
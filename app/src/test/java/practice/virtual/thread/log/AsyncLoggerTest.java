@@ -0,0 +1,119 @@
+package practice.virtual.thread.log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AsyncLoggerTest {
+
+    private static final ScopedValue<String> TX_ID = ScopedValue.newInstance();
+    private static final ScopedValue<String> TENANT_ID = ScopedValue.newInstance();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("템플릿의 {} 를 인자로 채우고 바인딩된 ScopedValue 를 태그로 붙인다")
+    void formatWithTags() throws IOException {
+        Path file = dir.resolve("app.log");
+
+        try (var logger = AsyncLogger.builder().file(file).tag("txId", TX_ID).tag("tenant", TENANT_ID)
+                .build()) {
+            ScopedValue.where(TX_ID, "tx-1").where(TENANT_ID, "SomeCompany")
+                    .run(() -> logger.log("{}번 문서 삭제 완료 (By {})", 123123L, "matthew"));
+            logger.log("태그 없음 {} {} {} {}", 1, 2, 3, 4);
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains(" txId=tx-1 tenant=SomeCompany ")
+                .endsWith("123123번 문서 삭제 완료 (By matthew)");
+        assertThat(lines.get(1)).doesNotContain("txId=").endsWith("태그 없음 1 2 3 4");
+    }
+
+    @Test
+    @DisplayName("여러 가상 스레드가 동시에 남긴 로그가 빠짐없이 한 파일에 기록된다")
+    void manyProducers() throws IOException {
+        Path file = dir.resolve("concurrent.log");
+
+        try (var logger = AsyncLogger.builder().file(file).capacity(256).build()) {
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                IntStream.range(0, 10_000).forEach(n -> executor.submit(() -> logger.log("request {}", n)));
+            }
+            logger.flush();
+            assertThat(logger.writtenCount()).isEqualTo(10_000);
+            assertThat(logger.droppedCount()).isZero();
+        }
+
+        assertThat(Files.readAllLines(file)).hasSize(10_000);
+    }
+
+    @Test
+    @DisplayName("DROP : 버퍼가 가득 차면 호출한 스레드는 기다리지 않고 버린 개수만 센다")
+    void dropWhenFull() throws IOException {
+        Path file = dir.resolve("drop.log");
+
+        try (var logger = AsyncLogger.builder().file(file).capacity(4)
+                .whenFull(AsyncLogger.WhenFull.DROP).build()) {
+            for (int i = 0; i < 100_000; i++) {
+                logger.log("tick {}", i);
+            }
+            logger.flush();
+
+            assertThat(logger.writtenCount() + logger.droppedCount()).isEqualTo(100_000);
+        }
+    }
+
+    @Test
+    @DisplayName("인자의 toString 이 실패해도 그 줄만 대체하고 소비자는 계속 쓴다 (BLOCK 생산자가 멈추지 않음)")
+    void formatFailure() throws IOException {
+        Path file = dir.resolve("bad.log");
+        Object bad = new Object() {
+            @Override
+            public String toString() {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        try (var logger = AsyncLogger.builder().file(file).capacity(4).build()) {
+            logger.log("bad {}", bad);
+            for (int i = 0; i < 100; i++) {
+                logger.log("tick {}", i);
+            }
+            logger.flush();
+
+            assertThat(logger.formatErrorCount()).isEqualTo(1);
+            assertThat(logger.writtenCount()).isEqualTo(101);
+            assertThatThrownBy(() -> logger.log(null)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(101);
+        assertThat(lines.get(0)).contains("IllegalStateException").endsWith("bad {}");
+    }
+
+    @Test
+    @DisplayName("close 이후의 로그는 쓰지 않고 버린 개수로 센다")
+    void logAfterClose() throws IOException {
+        Path file = dir.resolve("closed.log");
+
+        var logger = AsyncLogger.builder().file(file).build();
+        logger.log("before");
+        logger.close();
+        logger.log("after");
+
+        assertThat(logger.droppedCount()).isEqualTo(1);
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(lines).hasSize(1);
+        assertThat(lines.getFirst()).endsWith("before");
+    }
+}
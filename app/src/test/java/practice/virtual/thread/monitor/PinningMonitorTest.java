@@ -0,0 +1,75 @@
+package practice.virtual.thread.monitor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PinningMonitorTest {
+
+    @Test
+    @DisplayName("pinning 시간은 스택별로 합산되고 합계가 큰 순서로 조회된다")
+    void aggregatePerStack() {
+        PinningStats stats = new PinningStats(2);
+        stats.record("A", null, 1_000, 10);
+        stats.record("B", "NATIVE", 5_000, 300);
+        stats.record("A", null, 9_000, 20);
+
+        List<PinnedSite> top = stats.top(10);
+
+        assertThat(top).extracting(PinnedSite::stackTrace).containsExactly("B", "A");
+        assertThat(top.get(1).count()).isEqualTo(2);
+        assertThat(top.get(1).totalNanos()).isEqualTo(30);
+        assertThat(top.get(1).maxNanos()).isEqualTo(20);
+        assertThat(top.get(0).reason()).isEqualTo("NATIVE");
+        assertThat(stats.pinnedCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("동시에 pin 된 구간이 캐리어 수 이상이면 포화로 센다")
+    void saturation() {
+        PinningStats stats = new PinningStats(2);
+        stats.record("A", null, 100, 100); // 100 ~ 200
+        stats.record("B", null, 300, 100); // 300 ~ 400 (겹치지 않음)
+        assertThat(stats.saturationCount()).isZero();
+
+        stats.record("C", null, 350, 100); // 350 ~ 450 (B 와 겹침 -> 캐리어 2개 모두 점유)
+        assertThat(stats.saturationCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("클래스 초기화 중에 블로킹하면 캐리어 스레드가 pin 되고 모니터가 이를 잡아낸다")
+    void detectPinningInClassInitializer() throws Exception {
+        try (PinningMonitor monitor = PinningMonitor.start(Duration.ZERO, true)) {
+            List<String> reports = new CopyOnWriteArrayList<>();
+            monitor.reportEvery(Duration.ofMillis(200), reports::add);
+
+            Thread.ofVirtual().start(() -> SlowInit.VALUE.length()).join();
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (monitor.pinnedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+
+            assertThat(monitor.pinnedCount()).isPositive();
+            assertThat(monitor.topOffenders(1).getFirst().stackTrace()).contains("SlowInit");
+            assertThat(new ArrayList<>(reports)).isNotEmpty();
+        }
+    }
+
+    static class SlowInit {
+        static final String VALUE;
+
+        static {
+            try {
+                Thread.sleep(100); // <clinit> 안에서는 가상 스레드가 unmount 되지 못함
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            VALUE = "initialized";
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package practice.virtual.thread.observation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SpanRecorderTest {
+
+    @Test
+    @DisplayName("로그 버킷 히스토그램의 백분위 값은 상대 오차(1/16) 안에 있다")
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 100_000).forEach(n -> histogram.record(n * 1_000L));
+
+        assertThat(histogram.count()).isEqualTo(100_000);
+        assertThat(histogram.p50()).isBetween(50_000_000L, 50_000_000L * 17 / 16);
+        assertThat(histogram.p99()).isBetween(99_000_000L, 99_000_000L * 17 / 16);
+        assertThat(histogram.p999()).isBetween(99_900_000L, 100_000_000L);
+        assertThat(histogram.max()).isEqualTo(100_000_000L);
+    }
+
+    @Test
+    @DisplayName("버킷 경계 : 모든 값은 자기 버킷의 상한보다 작거나 같다")
+    void bucketBounds() {
+        for (long value : new long[] {0, 1, 15, 16, 17, 1023, 1024, 1_000_000_007L, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertThat(bucket).isLessThan(LatencyHistogram.BUCKETS);
+            assertThat(LatencyHistogram.upperBound(bucket)).isGreaterThanOrEqualTo(value);
+            if (bucket > 0) {
+                assertThat(LatencyHistogram.upperBound(bucket - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("히스토그램은 합칠 수 있다")
+    void merge() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        IntStream.range(0, 990).forEach(_ -> fast.record(1_000));
+        IntStream.range(0, 10).forEach(_ -> slow.record(1_000_000));
+
+        LatencyHistogram merged = fast.copy();
+        merged.merge(slow);
+
+        assertThat(merged.count()).isEqualTo(1000);
+        assertThat(merged.p50()).isLessThan(1100);
+        assertThat(merged.p999()).isGreaterThanOrEqualTo(1_000_000);
+    }
+
+    @Test
+    @DisplayName("span 은 ScopedValue 체인을 따라 부모-자식으로 이어진다")
+    void nestedSpans() throws Exception {
+        SpanRecorder recorder = new SpanRecorder(16);
+        var request = recorder.register("request");
+        var query = recorder.register("query");
+
+        String result = recorder.call(request, () -> {
+            recorder.span(query, () -> assertThat(SpanRecorder.CURRENT.get().depth()).isEqualTo(1));
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+        var spans = recorder.recent(10);
+        assertThat(spans).extracting(SpanRecorder.SpanRecord::name).containsExactly("request", "query");
+        assertThat(spans.get(1).parentId()).isEqualTo(spans.get(0).spanId());
+        assertThat(spans.get(0).parentId()).isZero();
+        assertThat(recorder.histograms()).containsOnlyKeys("request", "query");
+    }
+
+    @Test
+    @DisplayName("링 버퍼가 가득 차면 오래된 span 을 덮어쓰지만 히스토그램에는 모두 남는다")
+    void ringBufferWraps() {
+        SpanRecorder recorder = new SpanRecorder(8);
+        var work = recorder.register("work");
+
+        for (int i = 0; i < 20; i++) {
+            recorder.end(work, recorder.start());
+        }
+
+        assertThat(recorder.recent(100)).hasSize(8);
+        assertThat(recorder.histogram("work").count()).isEqualTo(20);
+    }
+
+    @Test
+    @DisplayName("start/end 기록은 힙 할당을 하지 않는다")
+    void recordingDoesNotAllocate() {
+        SpanRecorder recorder = new SpanRecorder(1024);
+        var work = recorder.register("work");
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 20_000; i++) { // warm-up
+            recorder.end(work, recorder.start());
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            recorder.end(work, recorder.start());
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(allocated).isLessThan(1024);
+    }
+
+    @Test
+    @DisplayName("작은 링 버퍼를 여러 스레드가 동시에 덮어써도 읽은 span 은 한 기록의 필드로만 이루어진다")
+    void concurrentOverwrite() {
+        SpanRecorder recorder = new SpanRecorder(8);
+        SpanRecorder.SpanName[] names = IntStream.range(0, 4)
+                .mapToObj(i -> recorder.register("writer-" + i)).toArray(SpanRecorder.SpanName[]::new);
+
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            for (int writer = 0; writer < 4; writer++) {
+                int id = writer;
+                executor.submit(() -> {
+                    for (int i = 0; i < 200_000; i++) {
+                        recorder.end(names[id], id); // 이름과 시작 값이 항상 짝을 이룬다
+                    }
+                });
+            }
+            for (int round = 0; round < 2_000; round++) {
+                for (SpanRecorder.SpanRecord record : recorder.recent(8)) {
+                    assertThat(record.name()).isEqualTo("writer-" + record.startNanos());
+                }
+            }
+        }
+        assertThat(recorder.histogram("writer-0").count()).isEqualTo(200_000);
+    }
+}
@@ -0,0 +1,94 @@
+package practice.virtual.thread.observation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TraceIdsTest {
+
+    @Test
+    @DisplayName("UUIDv7 : version 7, RFC variant, 앞 48bit 는 현재 시각(ms)")
+    void uuidV7Layout() {
+        long before = System.currentTimeMillis();
+        UUID id = TraceIds.uuidV7();
+        long after = System.currentTimeMillis();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(id.getMostSignificantBits() >>> 16).isBetween(before, after);
+        assertThat(UUID.fromString(TraceIds.uuidV7String()).version()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("UUIDv7 문자열은 생성 시각 순서대로 정렬된다")
+    void uuidV7IsTimeOrdered() throws InterruptedException {
+        String first = TraceIds.uuidV7String();
+        Thread.sleep(2);
+        String second = TraceIds.uuidV7String();
+
+        assertThat(first).isLessThan(second);
+    }
+
+    @Test
+    @DisplayName("W3C traceparent 형식")
+    void traceparent() {
+        assertThat(TraceIds.traceparent(true)).hasSize(TraceIds.TRACEPARENT_LENGTH)
+                .matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01");
+        assertThat(TraceIds.traceparent(false)).endsWith("-00");
+        assertThat(TraceIds.traceIdHex()).matches("[0-9a-f]{32}");
+    }
+
+    @Test
+    @DisplayName("호출한 쪽의 버퍼에 할당 없이 기록한다")
+    void encodeIntoBuffer() {
+        byte[] buffer = new byte[64];
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 20_000; i++) { // warm-up
+            TraceIds.encodeTraceparent(TraceIds.id64(), TraceIds.id64(), TraceIds.id64(), true, buffer, 0);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        int end = 0;
+        for (int i = 0; i < 100_000; i++) {
+            end = TraceIds.encodeTraceparent(TraceIds.uuidV7Msb(System.currentTimeMillis()),
+                    TraceIds.uuidV7Lsb(), TraceIds.id64(), true, buffer, 4);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(allocated).isLessThan(1024);
+        assertThat(end).isEqualTo(4 + TraceIds.TRACEPARENT_LENGTH);
+        assertThat(new String(buffer, 4, TraceIds.TRACEPARENT_LENGTH, StandardCharsets.US_ASCII))
+                .matches("00-[0-9a-f]{32}-[0-9a-f]{16}-01");
+    }
+
+    @Test
+    @DisplayName("encodeUuid 는 java.util.UUID 와 같은 문자열을 만든다")
+    void encodeUuidMatchesUuidToString() {
+        UUID id = UUID.randomUUID();
+        byte[] buffer = new byte[TraceIds.UUID_LENGTH];
+
+        TraceIds.encodeUuid(id.getMostSignificantBits(), id.getLeastSignificantBits(), buffer, 0);
+
+        assertThat(new String(buffer, StandardCharsets.US_ASCII)).isEqualTo(id.toString());
+    }
+
+    @Test
+    @DisplayName("여러 가상 스레드에서 동시에 만들어도 겹치지 않는다")
+    void uniqueAcrossVirtualThreads() {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 10_000).forEach(_ -> executor.submit(() -> ids.add(TraceIds.uuidV7String())));
+        }
+
+        assertThat(ids).hasSize(10_000);
+        assertThat(TraceIds.id64()).isNotZero();
+    }
+}
@@ -0,0 +1,186 @@
+package practice.virtual.thread.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import practice.virtual.thread.context.ContextPropagator;
+import practice.virtual.thread.deadline.Deadline;
+import practice.virtual.thread.deadline.DeadlineExceededException;
+
+class PipelineTest {
+
+    static final ScopedValue<String> TX_ID = ScopedValue.newInstance();
+
+    record Order(int id, int quantity) {}
+
+    record Priced(Order order, long amount) {}
+
+    @Test
+    @DisplayName("validate → enrich → price → persist : 요청마다 맥락이 단계를 따라 이동한다")
+    void stagesWithContext() throws Exception {
+        ConcurrentHashMap<Integer, String> seenTxIds = new ConcurrentHashMap<>();
+        List<Integer> batchSizes = new ArrayList<>();
+
+        try (Pipeline<Order, Long> pipeline = Pipeline.<Order>builder(ContextPropagator.of(TX_ID))
+                .stage("validate", 2, order -> {
+                    if (order.quantity() <= 0) {
+                        throw new IllegalArgumentException("수량 오류: " + order.id());
+                    }
+                    return order;
+                })
+                .stage("enrich", 4, order -> {
+                    Thread.sleep(2); // 외부 조회
+                    seenTxIds.put(order.id(), TX_ID.get());
+                    return order;
+                })
+                .stage("price", 2, order -> new Priced(order, order.quantity() * 1_000L))
+                .batchStage("persist", 1, 20, Duration.ofMillis(5), (List<Priced> items) -> {
+                    synchronized (batchSizes) {
+                        batchSizes.add(items.size());
+                    }
+                    return items.stream().map(Priced::amount).toList();
+                })
+                .build()) {
+
+            List<CompletableFuture<Long>> results = new ArrayList<>();
+            for (int i = 1; i <= 100; i++) {
+                Order order = new Order(i, i);
+                results.add(ScopedValue.where(TX_ID, "tx-" + i).call(() -> pipeline.submit(order)));
+            }
+
+            for (int i = 1; i <= 100; i++) {
+                assertThat(results.get(i - 1).get()).isEqualTo(i * 1_000L);
+                assertThat(seenTxIds.get(i)).isEqualTo("tx-" + i);
+            }
+            assertThat(batchSizes).anyMatch(size -> size > 1);
+
+            assertThatThrownBy(() -> pipeline.process(new Order(999, 0)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(pipeline.stats().getFirst().failed()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("느린 단계의 큐가 차면 앞 단계와 submit 이 기다린다 (backpressure) : 병목 단계가 드러난다")
+    void backpressure() throws InterruptedException {
+        AtomicInteger submitted = new AtomicInteger();
+
+        try (Pipeline<Integer, Integer> pipeline = Pipeline.<Integer>builder().queueCapacity(4)
+                .stage("fast", 4, item -> item)
+                .stage("slow", 1, item -> {
+                    Thread.sleep(10);
+                    return item;
+                })
+                .build()) {
+
+            Thread producer = Thread.ofVirtual().start(() -> IntStream.range(0, 50).forEach(i -> {
+                pipeline.submit(i);
+                submitted.incrementAndGet();
+            }));
+            Thread.sleep(100);
+
+            // slow 가 처리한 만큼 + 큐(4+4) + 워커가 들고 있는 것 이상은 들어가지 못한다
+            var slow = pipeline.stats().get(1);
+            assertThat(submitted.get()).isLessThan(50);
+            assertThat(slow.queueDepth()).isLessThanOrEqualTo(slow.queueCapacity());
+            assertThat(pipeline.bottleneck().name()).isEqualTo("slow");
+            assertThat(slow.utilization()).isGreaterThan(0.5);
+
+            producer.join();
+        }
+    }
+
+    @Test
+    @DisplayName("close 는 남은 항목을 모두 처리하고 끝낸다")
+    void closeDrains() throws InterruptedException, ExecutionException {
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        Pipeline<Integer, Integer> pipeline = Pipeline.<Integer>builder()
+                .stage("double", 2, item -> item * 2)
+                .batchStage("sum", 1, 10, Duration.ofMillis(50), (List<Integer> items) -> items)
+                .build();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            IntStream.range(0, 100).forEach(i -> executor.submit(() -> {
+                synchronized (results) {
+                    results.add(pipeline.submit(i));
+                }
+            }));
+        }
+        pipeline.close();
+
+        assertThat(results).hasSize(100).allMatch(CompletableFuture::isDone);
+        assertThat(pipeline.stats().get(1).processed()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("close 와 동시에 들어온 submit 도 처리되거나 거절된다 : 완료되지 않는 future 가 없다")
+    void submitDuringClose() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            Pipeline<Integer, Integer> pipeline = Pipeline.<Integer>builder().queueCapacity(2)
+                    .stage("double", 2, item -> item * 2)
+                    .batchStage("persist", 2, 4, Duration.ofMillis(1), (List<Integer> items) -> items)
+                    .build();
+            List<CompletableFuture<Integer>> accepted = new CopyOnWriteArrayList<>();
+            CountDownLatch started = new CountDownLatch(50);
+
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                IntStream.range(0, 50).forEach(i -> executor.submit(() -> {
+                    started.countDown();
+                    try {
+                        accepted.add(pipeline.submit(i)); // 첫 단계 큐가 가득 차면 여기서 기다린다
+                    } catch (RejectedExecutionException e) {
+                        // close 이후 : 거절
+                    }
+                }));
+                started.await();
+                pipeline.close();
+            }
+
+            for (CompletableFuture<Integer> result : accepted) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEven();
+            }
+            assertThat(pipeline.stats().get(1).processed()).isEqualTo(accepted.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Deadline : 단계 함수에 다시 바인딩되고, 단계 시작 전에 지난 항목은 처리하지 않는다")
+    void deadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (Pipeline<Integer, Boolean> pipeline = Pipeline.<Integer>builder()
+                .stage("slow", 1, item -> {
+                    if (item == 0) {
+                        release.await(5, TimeUnit.SECONDS);
+                    }
+                    return item;
+                })
+                .stage("check", 1, item -> Deadline.current().isPresent())
+                .build()) {
+            assertThat(Deadline.after(Duration.ofSeconds(5)).call(() -> pipeline.process(1))).isTrue();
+
+            pipeline.submit(0); // slow 단계를 막아 둔다
+            CompletableFuture<Boolean> late = Deadline.after(Duration.ofMillis(50)).call(() -> pipeline.submit(2));
+            assertThatThrownBy(() -> Deadline.after(Duration.ofMillis(50)).call(() -> pipeline.process(3)))
+                    .isInstanceOf(DeadlineExceededException.class);
+            Thread.sleep(60);
+            release.countDown();
+
+            assertThatThrownBy(late::get).hasCauseInstanceOf(DeadlineExceededException.class);
+            assertThatThrownBy(() -> Deadline.after(Duration.ZERO).call(() -> pipeline.submit(4)))
+                    .isInstanceOf(RejectedExecutionException.class);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package practice.virtual.thread.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import practice.virtual.thread.deadline.Deadline;
+import practice.virtual.thread.deadline.DeadlineExceededException;
+
+class ForkJoinPoolRegistryTest {
+
+    @Test
+    @DisplayName("병렬 스트림이 이름 붙은 풀의 워커에서만 실행된다")
+    void runParallelInNamedPool() {
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+        try (var registry = new ForkJoinPoolRegistry().define("report", 4)) {
+            long sum = registry.runParallel("report", () -> LongStream.rangeClosed(1, 1_000_000)
+                    .parallel()
+                    .peek(_ -> threadNames.add(Thread.currentThread().getName()))
+                    .sum());
+
+            assertThat(sum).isEqualTo(500000500000L);
+            assertThat(threadNames).allMatch(name -> name.startsWith("report-worker-"));
+            assertThat(registry.stats("report").parallelism()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    @DisplayName("처음 사용할 때 기본 크기로 만들고 같은 이름은 같은 풀을 돌려준다")
+    void lazyCreation() {
+        try (var registry = new ForkJoinPoolRegistry(2)) {
+            assertThat(registry.stats()).isEmpty();
+
+            registry.runParallel("request", () -> {});
+
+            assertThat(registry.pool("request")).isSameAs(registry.pool("request"));
+            assertThat(registry.stats()).extracting(ForkJoinPoolRegistry.PoolStats::name)
+                    .containsExactly("request");
+            assertThat(registry.stats("request").parallelism()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @DisplayName("한 풀이 오래 걸리는 작업으로 가득 차도 다른 풀의 병렬 스트림은 영향을 받지 않는다")
+    void isolation() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (var registry = new ForkJoinPoolRegistry().define("report", 1).define("request", 2)) {
+            Thread heavy = Thread.ofVirtual().start(() -> registry.runParallel("report", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            started.await();
+
+            long sum = registry.runParallel("request",
+                    () -> LongStream.rangeClosed(1, 1000).parallel().sum());
+            assertThat(sum).isEqualTo(500500L);
+            assertThat(registry.stats("report").activeThreads()).isEqualTo(1);
+
+            release.countDown();
+            heavy.join();
+        }
+    }
+
+    @Test
+    @DisplayName("shutdown(timeout) 은 끝나지 않는 작업을 중단하고 false 를 반환한다")
+    void boundedShutdown() {
+        var registry = new ForkJoinPoolRegistry(1);
+        registry.pool("stuck").submit(() -> {
+            try {
+                TimeUnit.MINUTES.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertThat(registry.shutdown(Duration.ofMillis(100))).isFalse();
+        assertThatThrownBy(() -> registry.runParallel("stuck", () -> {}))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    @DisplayName("Deadline : 워커에 다시 바인딩하고, 남은 예산까지만 기다리며, 지난 뒤에는 제출하지 않는다")
+    void deadline() throws Exception {
+        try (var registry = new ForkJoinPoolRegistry(2)) {
+            assertThat(Deadline.after(Duration.ofSeconds(5))
+                    .call(() -> registry.runParallel("report", () -> Deadline.current().isPresent()))).isTrue();
+
+            CountDownLatch release = new CountDownLatch(1);
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> Deadline.after(Duration.ofMillis(50)).run(() ->
+                    registry.runParallel("report", () -> {
+                        try {
+                            return release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            return false;
+                        }
+                    }))).isInstanceOf(DeadlineExceededException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+            release.countDown();
+
+            assertThatThrownBy(() -> Deadline.after(Duration.ZERO).run(() ->
+                    registry.runParallel("report", () -> 1))).isInstanceOf(DeadlineExceededException.class);
+        }
+    }
+}
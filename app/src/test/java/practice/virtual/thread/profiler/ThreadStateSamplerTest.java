@@ -0,0 +1,160 @@
+package practice.virtual.thread.profiler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ThreadStateSamplerTest {
+
+    // JDK 21 형식 : state 가 없다
+    static final String DUMP = """
+            {
+              "threadDump": {
+                "threadContainers": [
+                  {
+                    "container": "<root>",
+                    "threads": [
+                      { "tid": "1", "name": "main", "stack": [
+                          "java.base\\/java.lang.Thread.getStackTrace(Thread.java:2450)",
+                          "D.main(D.java:7)" ] },
+                      { "tid": "13", "name": "v1", "stack": [
+                          "java.base\\/java.lang.VirtualThread.parkNanos(VirtualThread.java:621)",
+                          "java.base\\/java.lang.Thread.sleep(Thread.java:507)",
+                          "D.lambda$main$0(D.java:4)",
+                          "java.base\\/java.lang.VirtualThread.run(VirtualThread.java:309)" ] },
+                      { "tid": "14", "name": "v2", "state": "BLOCKED", "stack": [
+                          "D.locked(D.java:9)" ] }
+                    ]
+                  },
+                  { "container": "ForkJoinPool-1", "threads": [], "threadCount": "0" }
+                ]
+              }
+            }
+            """;
+
+    @Test
+    @DisplayName("JSON 덤프를 읽고, state 가 없으면 맨 위 JDK frame 으로 추정한다")
+    void parseDump() {
+        List<ThreadStateSampler.ThreadSample> threads = ThreadStateSampler.parse(DUMP, 1);
+
+        assertThat(threads).extracting(ThreadStateSampler.ThreadSample::name).containsExactly("v1", "v2");
+        assertThat(threads.get(0).state()).isEqualTo(Thread.State.TIMED_WAITING);
+        assertThat(threads.get(0).stack()).first().isEqualTo("java.lang.VirtualThread.parkNanos(VirtualThread.java:621)");
+        assertThat(threads.get(1).state()).isEqualTo(Thread.State.BLOCKED);
+
+        assertThat(ThreadStateSampler.inferState(List.of("jdk.internal.misc.Unsafe.park(Native Method)",
+                "java.util.concurrent.locks.LockSupport.park(LockSupport.java:371)", "App.run(App.java:3)")))
+                .isEqualTo(Thread.State.WAITING);
+        assertThat(ThreadStateSampler.inferState(List.of("App.compute(App.java:3)")))
+                .isEqualTo(Thread.State.RUNNABLE);
+    }
+
+    @Test
+    @DisplayName("Json : escape, 숫자, 중첩 구조")
+    void json() {
+        Object value = Json.parse("{\"a\": [1, -2.5e1, true, null, \"x\\/y\\u0041\\n\"], \"b\": {}}");
+
+        assertThat(value).isEqualTo(Map.of("a", Arrays.asList(1L, -25.0, true, null, "x/yA\n"),
+                "b", Map.of()));
+        assertThatThrownBy(() -> Json.parse("{\"a\": 1} x")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("sleep / latch 에 park 된 가상 스레드를 상태별로 세고, 기다리는 코드 위치를 찾는다")
+    void sampleVirtualThreads() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Thread> sleepers = IntStream.range(0, 50)
+                .mapToObj(_ -> Thread.ofVirtual().start(() -> sleepUntilInterrupted())).toList();
+        List<Thread> waiters = IntStream.range(0, 30)
+                .mapToObj(_ -> Thread.ofVirtual().start(() -> awaitRelease(release))).toList();
+        Thread.sleep(200); // 모두 park 될 때까지
+
+        try (ThreadStateSampler sampler = ThreadStateSampler.builder().maxDepth(32).build()) {
+            sampler.sampleOnce();
+            sampler.sampleOnce();
+
+            assertThat(sampler.sampleCount()).isEqualTo(2);
+            Map<Thread.State, Long> states = sampler.stateHistogram();
+            assertThat(states.get(Thread.State.TIMED_WAITING)).isGreaterThanOrEqualTo(100);
+            assertThat(states.get(Thread.State.WAITING)).isGreaterThanOrEqualTo(60);
+
+            List<ThreadStateSampler.BlockingSite> sites = sampler.topBlockingSites(2);
+            assertThat(sites).extracting(ThreadStateSampler.BlockingSite::frame)
+                    .allMatch(frame -> frame.startsWith(ThreadStateSamplerTest.class.getName()));
+            assertThat(sites.getFirst().state()).isEqualTo(Thread.State.TIMED_WAITING);
+            assertThat(sites.getFirst().count()).isEqualTo(100);
+
+            assertThat(sampler.collapsedStacks().lines())
+                    .anyMatch(line -> line.startsWith("TIMED_WAITING;java.lang.VirtualThread.run;")
+                            && line.contains("sleepUntilInterrupted") && line.endsWith(" 100"));
+            assertThat(sampler.report(3)).contains("top blocking sites");
+        } finally {
+            release.countDown();
+            sleepers.forEach(Thread::interrupt);
+            for (Thread thread : sleepers) {
+                thread.join();
+            }
+            for (Thread thread : waiters) {
+                thread.join();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("백그라운드 샘플링은 maxOverhead 를 넘지 않도록 간격을 늘린다")
+    void overheadBound() throws InterruptedException {
+        try (ThreadStateSampler sampler = ThreadStateSampler.builder()
+                .interval(Duration.ofMillis(1)).maxOverhead(0.05).build()) {
+            sampler.start();
+            Thread.sleep(500);
+            sampler.close();
+
+            assertThat(sampler.sampleCount()).isPositive();
+            assertThat(sampler.overhead()).isLessThan(0.1);
+        }
+    }
+
+    @Test
+    @DisplayName("백그라운드 샘플링 중에 sampleOnce 를 여러 스레드에서 불러도 덤프 파일이 겹치지 않는다")
+    void concurrentSampleOnce() throws Exception {
+        try (ThreadStateSampler sampler = ThreadStateSampler.builder()
+                .interval(Duration.ofMillis(1)).maxOverhead(1.0).build()) {
+            sampler.start();
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<Long>> samples = IntStream.range(0, 8).mapToObj(_ -> executor.submit(sampler::sampleOnce))
+                        .toList();
+                for (Future<Long> sample : samples) {
+                    assertThat(sample.get()).isPositive();
+                }
+            }
+            sampler.close();
+
+            assertThat(sampler.failureCount()).isZero();
+            assertThat(sampler.lastFailure()).isEmpty();
+            assertThat(sampler.sampleCount()).isGreaterThanOrEqualTo(8);
+        }
+    }
+
+    static void sleepUntilInterrupted() {
+        try {
+            Thread.sleep(Duration.ofMinutes(1));
+        } catch (InterruptedException e) {
+        }
+    }
+
+    static void awaitRelease(CountDownLatch release) {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+        }
+    }
+}
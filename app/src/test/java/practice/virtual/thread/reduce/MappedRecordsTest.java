@@ -0,0 +1,116 @@
+package practice.virtual.thread.reduce;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedRecordsTest {
+
+    private static final int COUNT = 300_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("long[] 로 읽어 들이지 않고 매핑된 파일을 그대로 합산한다")
+    void sumDenseLongFile() throws IOException {
+        // CThreadPoolTest.forkJoinPool 과 같은 1..1_000_000 을 파일로 저장
+        Path file = dir.resolve("numbers.bin");
+        ByteBuffer buffer = ByteBuffer.allocate(1_000_000 * Long.BYTES).order(ByteOrder.BIG_ENDIAN);
+        for (long n = 1; n <= 1_000_000; n++) {
+            buffer.putLong(n);
+        }
+        Files.write(file, buffer.array());
+
+        try (ForkJoinPool pool = new ForkJoinPool(4);
+                MappedRecords records = MappedRecords.map(file, Long.BYTES)) {
+            var reducer = new ParallelReducer(pool);
+            var value = RecordField.ofLong(0, ByteOrder.BIG_ENDIAN);
+
+            assertThat(records.recordCount()).isEqualTo(1_000_000);
+            assertThat(reducer.sum(records, value)).isEqualTo((1_000_000L * 1_000_001L) / 2);
+            assertThat(reducer.min(records, value)).isEqualTo(1);
+            assertThat(reducer.max(records, value)).isEqualTo(1_000_000);
+            assertThat(reducer.countIf(records, value, Compare.GT, 999_000L)).isEqualTo(1000);
+        }
+    }
+
+    @Test
+    @DisplayName("여러 필드로 된 레코드에서는 레코드 크기만큼 건너뛰며 한 필드만 집계한다")
+    void stridedRecords() throws IOException {
+        // record { long id; int quantity; double price; } = 20 bytes
+        Path file = dir.resolve("orders.bin");
+        writeOrders(file);
+
+        try (MappedRecords records = MappedRecords.map(file, 20)) {
+            var reducer = new ParallelReducer();
+            var quantity = RecordField.ofInt(8, ByteOrder.LITTLE_ENDIAN);
+            var price = RecordField.ofDouble(12, ByteOrder.LITTLE_ENDIAN);
+
+            assertThat(reducer.sum(records, quantity)).isEqualTo((long) COUNT * 3);
+            assertThat(reducer.max(records, quantity)).isEqualTo(5);
+            assertThat(reducer.countIf(records, quantity, Compare.EQ, 1L)).isEqualTo(COUNT / 5);
+            assertThat(reducer.sumDouble(records, price)).isEqualTo(COUNT * 0.5);
+            assertThat(reducer.minDouble(records, price)).isEqualTo(0.5);
+            assertThat(reducer.countIf(records, price, Compare.LT, 1.0)).isEqualTo(COUNT);
+        }
+    }
+
+    @Test
+    @DisplayName("Arena 로 할당한 segment 도 같은 방식으로 집계할 수 있다")
+    void offHeapSegment() {
+        // ForkJoin 워커들이 함께 읽으므로 shared arena 를 사용
+        try (Arena arena = Arena.ofShared()) {
+            var segment = arena.allocate((long) COUNT * Integer.BYTES);
+            for (int i = 0; i < COUNT; i++) {
+                segment.setAtIndex(ValueLayout.JAVA_INT, i, i % 100);
+            }
+            var records = MappedRecords.of(segment, Integer.BYTES);
+            var value = RecordField.ofInt(0, ByteOrder.nativeOrder());
+            var reducer = new ParallelReducer();
+
+            assertThat(reducer.sum(records, value)).isEqualTo(COUNT / 100 * 4950L);
+            assertThat(reducer.countIf(records, value, Compare.GE, 99L)).isEqualTo(COUNT / 100);
+        }
+    }
+
+    @Test
+    void invalidLayout() throws IOException {
+        Path file = dir.resolve("broken.bin");
+        Files.write(file, new byte[10]);
+
+        assertThatThrownBy(() -> MappedRecords.map(file, 8))
+                .isInstanceOf(IllegalArgumentException.class);
+        try (MappedRecords records = MappedRecords.map(file, 5)) {
+            assertThatThrownBy(
+                    () -> new ParallelReducer().sum(records, RecordField.ofLong(0, ByteOrder.BIG_ENDIAN)))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private static void writeOrders(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(COUNT * 20).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < COUNT; i++) {
+            buffer.putLong(i).putInt(i % 5 + 1).putDouble(0.5);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
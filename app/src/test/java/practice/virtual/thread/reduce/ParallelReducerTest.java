@@ -0,0 +1,86 @@
+package practice.virtual.thread.reduce;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ParallelReducerTest {
+
+    @Test
+    @DisplayName("CThreadPoolTest.forkJoinPool 과 같은 합계를 박싱 없이 계산한다")
+    void sumLong() {
+        long[] numbers = LongStream.rangeClosed(1, 1_000_000).toArray();
+        long expectedSum = (1_000_000L * 1_000_001L) / 2;
+
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            assertThat(new ParallelReducer(pool).sum(numbers)).isEqualTo(expectedSum);
+        }
+    }
+
+    @Test
+    @DisplayName("int 합계는 long 으로 넓혀서 누적하므로 오버플로가 나지 않는다")
+    void sumIntWithoutOverflow() {
+        int[] numbers = IntStream.generate(() -> Integer.MAX_VALUE).limit(100_003).toArray();
+
+        assertThat(new ParallelReducer().sum(numbers)).isEqualTo(100_003L * Integer.MAX_VALUE);
+    }
+
+    @Test
+    void sumDouble() {
+        double[] numbers = IntStream.rangeClosed(1, 200_001).asDoubleStream().toArray();
+
+        assertThat(new ParallelReducer().sum(numbers)).isEqualTo(200_001.0 * 200_002.0 / 2);
+    }
+
+    @Test
+    void minMax() {
+        int[] ints = IntStream.range(-50_000, 150_001).map(n -> n * 7 % 100_003).toArray();
+        long[] longs = IntStream.of(ints).asLongStream().toArray();
+        double[] doubles = IntStream.of(ints).asDoubleStream().toArray();
+        var reducer = new ParallelReducer();
+
+        assertThat(reducer.min(ints)).isEqualTo(IntStream.of(ints).min().getAsInt());
+        assertThat(reducer.max(ints)).isEqualTo(IntStream.of(ints).max().getAsInt());
+        assertThat(reducer.min(longs)).isEqualTo(LongStream.of(longs).min().getAsLong());
+        assertThat(reducer.max(longs)).isEqualTo(LongStream.of(longs).max().getAsLong());
+        assertThat(reducer.min(doubles)).isEqualTo((double) reducer.min(ints));
+        assertThat(reducer.max(doubles)).isEqualTo((double) reducer.max(ints));
+    }
+
+    @Test
+    void countIf() {
+        int[] ints = IntStream.range(0, 123_457).toArray();
+        var reducer = new ParallelReducer();
+
+        assertThat(reducer.countIf(ints, Compare.LT, 1000)).isEqualTo(1000);
+        assertThat(reducer.countIf(ints, Compare.GE, 1000)).isEqualTo(123_457 - 1000);
+        assertThat(reducer.countIf(IntStream.of(ints).asLongStream().toArray(), Compare.EQ, 77))
+                .isEqualTo(1);
+        assertThat(reducer.countIf(IntStream.of(ints).asDoubleStream().toArray(), Compare.NE, 77))
+                .isEqualTo(123_456);
+    }
+
+    @Test
+    @DisplayName("작은 배열은 풀에 넘기지 않고 바로 계산한다")
+    void smallArray() {
+        var reducer = new ParallelReducer();
+
+        assertThat(reducer.sum(new long[] {1, 2, 3})).isEqualTo(6);
+        assertThat(reducer.sum(new int[0])).isZero();
+        assertThatThrownBy(() -> reducer.min(new long[0]))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    @DisplayName("threshold 는 배열 크기와 병렬도에 따라 달라진다")
+    void adaptiveThreshold() {
+        assertThat(ParallelReducer.threshold(10_000, 8)).isEqualTo(ParallelReducer.MIN_LEAF);
+        assertThat(ParallelReducer.threshold(64_000_000, 8)).isEqualTo(2_000_000);
+        assertThat(ParallelReducer.threshold(64_000_000, 32)).isEqualTo(500_000);
+    }
+}
@@ -0,0 +1,64 @@
+package practice.virtual.thread.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AccessDecisionCacheTest {
+
+    private final AtomicInteger policyCalls = new AtomicInteger();
+
+    private AccessDecisionCache cache(Duration ttl) {
+        return new AccessDecisionCache(1000, ttl, key -> {
+            policyCalls.incrementAndGet();
+            return key.resource().startsWith("document:" + key.principal());
+        });
+    }
+
+    @Test
+    @DisplayName("같은 (사용자, 리소스, 행위) 는 한 번만 결정한다")
+    void cached() {
+        var decisions = cache(Duration.ofMinutes(1));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(decisions.isAllowed("kim", "t1", "document:kim/1", Permission.DOCUMENT_READ)).isTrue();
+            assertThat(decisions.isAllowed("lee", "t1", "document:kim/1", Permission.DOCUMENT_READ)).isFalse();
+        }
+
+        assertThat(policyCalls.get()).isEqualTo(2);
+        assertThat(decisions.stats().hitCount()).isEqualTo(18);
+    }
+
+    @Test
+    @DisplayName("사용자 / 리소스 / 테넌트 단위로 무효화한다")
+    void invalidation() {
+        var decisions = cache(Duration.ofMinutes(1));
+        decisions.isAllowed("kim", "t1", "document:kim/1", Permission.DOCUMENT_READ);
+        decisions.isAllowed("kim", "t1", "document:kim/2", Permission.DOCUMENT_READ);
+        decisions.isAllowed("lee", "t2", "document:lee/1", Permission.DOCUMENT_READ);
+
+        decisions.invalidatePrincipal("kim");
+        decisions.isAllowed("kim", "t1", "document:kim/1", Permission.DOCUMENT_READ);
+        decisions.isAllowed("lee", "t2", "document:lee/1", Permission.DOCUMENT_READ);
+        assertThat(policyCalls.get()).isEqualTo(4);
+
+        decisions.invalidateTenant("t2");
+        decisions.invalidateResource("document:kim/1");
+        decisions.isAllowed("kim", "t1", "document:kim/1", Permission.DOCUMENT_READ);
+        decisions.isAllowed("lee", "t2", "document:lee/1", Permission.DOCUMENT_READ);
+        assertThat(policyCalls.get()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("ttl 이 지나면 다시 결정한다")
+    void ttl() throws InterruptedException {
+        var decisions = cache(Duration.ofMillis(20));
+        decisions.isAllowed("kim", "t1", "document:kim/1", Permission.DOCUMENT_READ);
+        Thread.sleep(30);
+        decisions.isAllowed("kim", "t1", "document:kim/1", Permission.DOCUMENT_READ);
+
+        assertThat(policyCalls.get()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,39 @@
+package practice.virtual.thread.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PermissionSetTest {
+
+    @Test
+    @DisplayName("권한 하나가 bit 하나에 대응한다")
+    void bits() {
+        PermissionSet set = PermissionSet.of(Permission.DOCUMENT_READ, Permission.DOCUMENT_DELETE);
+
+        assertThat(set.bits()).isEqualTo(0b101L);
+        assertThat(set.has(Permission.DOCUMENT_READ)).isTrue();
+        assertThat(set.has(Permission.DOCUMENT_WRITE)).isFalse();
+        assertThat(set.hasAll(PermissionSet.of(Permission.DOCUMENT_DELETE))).isTrue();
+        assertThat(set.hasAll(PermissionSet.ALL)).isFalse();
+        assertThat(PermissionSet.fromBits(set.bits())).isEqualTo(set);
+        assertThat(set.toSet()).containsExactly(Permission.DOCUMENT_READ, Permission.DOCUMENT_DELETE);
+    }
+
+    @Test
+    @DisplayName("여러 역할의 권한을 합치고, 모르는 역할은 권한을 주지 않는다")
+    void resolveRoles() {
+        RoleRegistry roles = RoleRegistry.builder()
+                .role("viewer", Permission.DOCUMENT_READ, Permission.REPORT_READ)
+                .role("editor", Permission.DOCUMENT_WRITE)
+                .role("editor", Permission.ORDER_CREATE) // 같은 역할은 합쳐진다
+                .build();
+
+        PermissionSet resolved = roles.resolve(List.of("viewer", "editor", "unknown"));
+
+        assertThat(resolved).isEqualTo(PermissionSet.of(Permission.DOCUMENT_READ, Permission.REPORT_READ,
+                Permission.DOCUMENT_WRITE, Permission.ORDER_CREATE));
+        assertThat(roles.resolve(List.of("unknown"))).isSameAs(PermissionSet.NONE);
+    }
+}
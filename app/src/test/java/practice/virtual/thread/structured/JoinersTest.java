@@ -0,0 +1,130 @@
+package practice.virtual.thread.structured;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class JoinersTest {
+
+    @Test
+    @DisplayName("hedging : 첫 요청이 빠르면 백업 요청을 보내지 않는다")
+    void hedgeNotNeeded() throws InterruptedException {
+        Hedger hedger = new Hedger(Duration.ofMillis(200));
+        AtomicInteger backupCalls = new AtomicInteger();
+
+        String result = hedger.call(() -> "primary", () -> {
+            backupCalls.incrementAndGet();
+            return "backup";
+        });
+
+        assertThat(result).isEqualTo("primary");
+        assertThat(backupCalls.get()).isZero();
+        assertThat(hedger.stats().winCount()).isEqualTo(1);
+        assertThat(hedger.stats().hedgeCount()).isZero();
+        assertThat(hedger.stats().cancelCount()).isEqualTo(1); // 잠들어 있던 백업 subtask
+    }
+
+    @Test
+    @DisplayName("hedging : 첫 요청이 느리면 백업 요청의 결과를 사용하고 첫 요청은 취소한다")
+    void hedgeWins() throws InterruptedException {
+        Hedger hedger = new Hedger(Duration.ofMillis(20));
+
+        String result = hedger.call(() -> {
+            Thread.sleep(5_000);
+            return "primary";
+        }, () -> "backup");
+
+        assertThat(result).isEqualTo("backup");
+        assertThat(hedger.stats().hedgeCount()).isEqualTo(1);
+        assertThat(hedger.stats().hedgeWinCount()).isEqualTo(1);
+        assertThat(hedger.latency().max()).isLessThan(Duration.ofSeconds(1).toNanos());
+    }
+
+    @Test
+    @DisplayName("hedging : 표본이 쌓이면 hedge 지연은 관찰한 p95 를 따른다")
+    void hedgeDelayFollowsP95() throws InterruptedException {
+        Hedger hedger = new Hedger(Duration.ofSeconds(1), 95.0, 10);
+        for (int i = 0; i < 20; i++) {
+            hedger.call(() -> "fast", () -> "backup");
+        }
+        assertThat(hedger.hedgeDelay()).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("quorum : 3 개 중 2 개가 성공하면 느린 나머지를 기다리지 않는다")
+    void quorum() throws InterruptedException {
+        JoinerStats stats = new JoinerStats();
+        try (var scope = StructuredTaskScope.open(new QuorumJoiner<String>(2, stats))) {
+            scope.fork(() -> "replica-1");
+            scope.fork(() -> "replica-2");
+            scope.fork(() -> {
+                Thread.sleep(5_000);
+                return "replica-3";
+            });
+
+            List<String> results = scope.join();
+
+            assertThat(results).containsExactlyInAnyOrder("replica-1", "replica-2");
+        }
+        assertThat(stats.winCount()).isEqualTo(1);
+        assertThat(stats.cancelCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("quorum : 성공이 k 개에 못 미치면 실패")
+    void quorumNotReached() {
+        JoinerStats stats = new JoinerStats();
+        assertThatThrownBy(() -> {
+            try (var scope = StructuredTaskScope.open(new QuorumJoiner<String>(2, stats))) {
+                scope.fork(() -> "replica-1");
+                scope.fork(() -> {
+                    throw new IOException("replica-2 down");
+                });
+                scope.join();
+            }
+        }).isInstanceOf(StructuredTaskScope.FailedException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(stats.failureCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("deadline : 시간 안에 끝난 결과만 돌려주고 나머지는 취소한다")
+    void deadlinePartialResults() throws InterruptedException {
+        JoinerStats stats = new JoinerStats();
+        List<Callable<String>> tasks = List.of(
+                () -> "fast-1",
+                () -> "fast-2",
+                () -> {
+                    throw new IOException("broken");
+                },
+                () -> {
+                    Thread.sleep(5_000);
+                    return "slow";
+                });
+
+        var partial = DeadlineJoiner.invokeAll(Duration.ofMillis(200), tasks, stats);
+
+        assertThat(partial.timedOut()).isTrue();
+        assertThat(partial.results()).containsExactlyInAnyOrder("fast-1", "fast-2");
+        assertThat(partial.failed()).isEqualTo(1);
+        assertThat(partial.cancelled()).isEqualTo(1);
+        assertThat(stats.cancelCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("deadline : 모두 시간 안에 끝나면 전체 결과")
+    void deadlineAllCompleted() throws InterruptedException {
+        var partial = DeadlineJoiner.invokeAll(Duration.ofSeconds(5),
+                List.<Callable<Integer>>of(() -> 1, () -> 2), new JoinerStats());
+
+        assertThat(partial.timedOut()).isFalse();
+        assertThat(partial.results()).containsExactlyInAnyOrder(1, 2);
+    }
+}
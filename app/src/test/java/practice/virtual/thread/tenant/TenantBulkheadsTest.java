@@ -0,0 +1,100 @@
+package practice.virtual.thread.tenant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TenantBulkheadsTest {
+
+    @Test
+    @DisplayName("테넌트의 maxConcurrent 가 차면 전체 자리가 남아도 대기한다")
+    void bulkhead() throws InterruptedException {
+        var bulkheads = TenantBulkheads.builder(10).tenant("a", 1, 1, 10).build();
+
+        var held = bulkheads.admit("a");
+        Thread waiter = Thread.ofVirtual().start(() -> bulkheads.run("a", () -> {}));
+        awaitQueued(bulkheads, "a", 1);
+
+        // 다른 테넌트는 영향을 받지 않는다
+        bulkheads.run("b", () -> assertThat(bulkheads.inFlight()).isEqualTo(2));
+
+        held.close();
+        waiter.join();
+        var stats = bulkheads.stats("a");
+        assertThat(stats.admitted()).isEqualTo(2);
+        assertThat(stats.queued()).isEqualTo(1);
+        assertThat(stats.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("대기열이 maxQueue 를 넘으면 바로 거절한다")
+    void queueFull() throws InterruptedException {
+        var bulkheads = TenantBulkheads.builder(1).tenant("a", 1, 1, 1).build();
+
+        var held = bulkheads.admit("a");
+        Thread waiter = Thread.ofVirtual().start(() -> bulkheads.run("a", () -> {}));
+        awaitQueued(bulkheads, "a", 1);
+
+        assertThatThrownBy(() -> bulkheads.admit("a")).isInstanceOf(RejectedExecutionException.class);
+        assertThat(bulkheads.stats("a").rejected()).isEqualTo(1);
+
+        held.close();
+        waiter.join();
+    }
+
+    @Test
+    @DisplayName("queueTimeout 안에 입장하지 못하면 거절하고 대기열에서 빠진다")
+    void queueTimeout() {
+        var bulkheads = TenantBulkheads.builder(1).queueTimeout(Duration.ofMillis(30)).build();
+
+        try (var _ = bulkheads.admit("a")) {
+            assertThatThrownBy(() -> bulkheads.admit("b")).isInstanceOf(RejectedExecutionException.class);
+            assertThat(bulkheads.stats("b").queueDepth()).isZero();
+            assertThat(bulkheads.stats("b").rejected()).isEqualTo(1);
+        }
+        bulkheads.run("b", () -> {});
+    }
+
+    @Test
+    @DisplayName("자리가 나면 가중치 비율(3 : 1)대로 번갈아 입장시킨다")
+    void weightedFairness() throws InterruptedException {
+        var bulkheads = TenantBulkheads.builder(1)
+                .tenant("heavy", 1, 3, 100)
+                .tenant("light", 1, 1, 100)
+                .build();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+
+        var held = bulkheads.admit("other");
+        for (int i = 0; i < 12; i++) {
+            threads.add(Thread.ofVirtual().start(() -> bulkheads.run("heavy", () -> order.add("heavy"))));
+        }
+        for (int i = 0; i < 4; i++) {
+            threads.add(Thread.ofVirtual().start(() -> bulkheads.run("light", () -> order.add("light"))));
+        }
+        awaitQueued(bulkheads, "heavy", 12);
+        awaitQueued(bulkheads, "light", 4);
+
+        held.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // 요청 수가 3배인 테넌트도 light 를 굶기지 않는다
+        assertThat(order.subList(0, 8)).filteredOn("light"::equals).hasSize(2);
+        assertThat(order).hasSize(16);
+    }
+
+    private static void awaitQueued(TenantBulkheads bulkheads, String tenant, int depth)
+            throws InterruptedException {
+        while (bulkheads.stats(tenant).queueDepth() < depth) {
+            Thread.sleep(1);
+        }
+    }
+}
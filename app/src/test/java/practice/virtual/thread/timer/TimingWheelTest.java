@@ -0,0 +1,157 @@
+package practice.virtual.thread.timer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    @Test
+    @DisplayName("예정 시각 전에는 실행하지 않고, tick 정도 늦게 가상 스레드에서 실행한다")
+    void expiresAfterDelay() throws InterruptedException {
+        try (var wheel = TimingWheel.builder().tick(Duration.ofMillis(1)).build()) {
+            CountDownLatch done = new CountDownLatch(1);
+            AtomicLong elapsed = new AtomicLong();
+            AtomicInteger virtual = new AtomicInteger();
+            long start = System.nanoTime();
+
+            var timeout = wheel.schedule(() -> {
+                elapsed.set(System.nanoTime() - start);
+                if (Thread.currentThread().isVirtual()) {
+                    virtual.incrementAndGet();
+                }
+                done.countDown();
+            }, Duration.ofMillis(50));
+
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(elapsed.get()).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+            assertThat(virtual.get()).isEqualTo(1);
+            assertThat(timeout.isExpired()).isTrue();
+            assertThat(wheel.pendingCount()).isZero();
+            assertThat(wheel.drift().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("여러 단계를 거쳐 내려오는 먼 timeout 도 예정 시각 순서대로 실행한다 (cascade)")
+    void cascade() throws InterruptedException {
+        // 4 칸 x 4 단계 : 4 tick 이상 남은 timeout 은 위 단계에 들어간다
+        try (var wheel = TimingWheel.builder().tick(Duration.ofMillis(1)).wheelSize(4).executor(Runnable::run)
+                .build()) {
+            List<Integer> order = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(3);
+            long start = System.nanoTime();
+            AtomicLong lastElapsed = new AtomicLong();
+
+            wheel.schedule(() -> { order.add(3); lastElapsed.set(System.nanoTime() - start); done.countDown(); },
+                    Duration.ofMillis(150));
+            wheel.schedule(() -> { order.add(2); done.countDown(); }, Duration.ofMillis(40));
+            wheel.schedule(() -> { order.add(1); done.countDown(); }, Duration.ofMillis(3));
+
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(order).containsExactly(1, 2, 3);
+            assertThat(lastElapsed.get()).isGreaterThanOrEqualTo(Duration.ofMillis(150).toNanos());
+        }
+    }
+
+    @Test
+    @DisplayName("취소한 timeout 은 실행되지 않는다")
+    void cancel() throws InterruptedException {
+        try (var wheel = TimingWheel.builder().build()) {
+            AtomicInteger runs = new AtomicInteger();
+            var timeout = wheel.schedule(runs::incrementAndGet, Duration.ofMillis(20));
+
+            assertThat(timeout.cancel()).isTrue();
+            assertThat(timeout.cancel()).isFalse();
+            Thread.sleep(50);
+
+            assertThat(runs.get()).isZero();
+            assertThat(timeout.isCancelled()).isTrue();
+            assertThat(wheel.pendingCount()).isZero();
+            assertThat(wheel.cancelledCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("요청마다 timeout 을 걸고 응답이 오면 취소 : 100만 개를 등록/취소해도 남는 것이 없다")
+    void scheduleAndCancelMillions() throws InterruptedException {
+        try (var wheel = TimingWheel.builder().build();
+                var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            AtomicInteger fired = new AtomicInteger();
+            for (int thread = 0; thread < 100; thread++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        wheel.schedule(fired::incrementAndGet, Duration.ofSeconds(30)).cancel();
+                    }
+                });
+            }
+            executor.close();
+
+            assertThat(wheel.pendingCount()).isZero();
+            assertThat(wheel.cancelledCount()).isEqualTo(1_000_000);
+            assertThat(fired.get()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("close 와 겹친 schedule 도 거절되거나 취소되어 대기 중으로 남지 않는다")
+    void scheduleDuringClose() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            var wheel = TimingWheel.builder().build();
+            AtomicInteger accepted = new AtomicInteger();
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                // 플랫폼 스레드 : 쉬지 않고 schedule 하는 동안에도 worker 가 carrier 를 얻을 수 있도록
+                threads.add(Thread.ofPlatform().start(() -> {
+                    started.countDown();
+                    try {
+                        for (int i = 0; i < 20_000; i++) {
+                            wheel.schedule(() -> {}, Duration.ofSeconds(30));
+                            accepted.incrementAndGet();
+                        }
+                    } catch (RejectedExecutionException e) {
+                        // close 이후
+                    }
+                }));
+            }
+            started.await();
+            wheel.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertThat(wheel.pendingCount()).isZero();
+            assertThat(wheel.cancelledCount()).isEqualTo(accepted.get());
+        }
+    }
+
+    @Test
+    @DisplayName("executor 가 거절한 만료 작업은 rejectedCount 로 센다")
+    void countsRejected() throws InterruptedException {
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("거절");
+        };
+        try (var wheel = TimingWheel.builder().executor(rejecting).build()) {
+            wheel.schedule(() -> {}, Duration.ofMillis(1));
+            wheel.schedule(() -> {}, Duration.ofMillis(1));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (wheel.rejectedCount() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(wheel.rejectedCount()).isEqualTo(2);
+            assertThat(wheel.pendingCount()).isZero();
+        }
+    }
+}